@@ -0,0 +1,191 @@
+package test.minesweeper.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import test.minesweeper.component.GameComponent;
+import test.minesweeper.component.GameJournal;
+import test.minesweeper.component.GameMetrics;
+import test.minesweeper.configuration.GameProperties;
+import test.minesweeper.configuration.JournalProperties;
+import test.minesweeper.dto.GameBoard;
+import test.minesweeper.dto.GameInfo;
+import test.minesweeper.dto.GameInfoCompactResponse;
+import test.minesweeper.dto.GameInfoResponse;
+import test.minesweeper.dto.GameNewRequest;
+import test.minesweeper.enums.FieldFormatEnum;
+import test.minesweeper.service.MinesweeperService;
+import test.minesweeper.unit.service.MinesweeperServiceFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки горячих путей движка игры на квадратных полях разного размера.
+ * <p>
+ * Сериализация и проверка выигрыша читают поля, подготовленные один раз на запуск. Бенчмарки, которые
+ * меняют поле, получают его из своего состояния, пересоздаваемого перед каждым вызовом вне замера времени;
+ * gc.alloc.rate.norm таких бенчмарков включает это поле. Созданная игра удаляется из хранилища после
+ * каждого вызова, поэтому createNewGame не замеряет вытеснение и рост хранилища.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameEngineBenchmark {
+
+    // доля мин на поле, близкая к уровню "эксперт"
+    private static final double MINES_DENSITY = 0.15;
+
+    @Param({"9", "100", "500", "2000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private GameNewRequest gameRequest;
+    private GameNewRequest emptyGameRequest;
+
+    private GameInfo generatedGame;
+    private GameInfoResponse openedGameResponse;
+    private GameInfoCompactResponse openedGameRowsResponse;
+    private GameInfoCompactResponse openedGameRleResponse;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        objectMapper = new ObjectMapper();
+        gameRequest = newGameRequest((int) Math.max(1, size * size * MINES_DENSITY));
+        emptyGameRequest = newGameRequest(0);
+
+        generatedGame = new GameInfo(gameRequest);
+        generatedGame.initFirstTurn(0, 0);
+
+        GameInfo openedGame = new GameInfo(newGameRequest(size * size / 100));
+        openedGame.initFirstTurn(size / 2, size / 2);
+        openedGame.getBoard().revealArea(size / 2, size / 2, null);
+        openedGameResponse = new GameInfoResponse(openedGame);
+        openedGameRowsResponse = new GameInfoCompactResponse(openedGameResponse, FieldFormatEnum.ROWS);
+        openedGameRleResponse = new GameInfoCompactResponse(openedGameResponse, FieldFormatEnum.RLE);
+    }
+
+    // хранилище, из которого созданная игра удаляется после вызова
+    @State(Scope.Thread)
+    public static class Store {
+        private GameComponent gameComponent;
+        private MinesweeperService minesweeperService;
+        private long deadlineNanos;
+        private long now;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            GameProperties gameProperties = new GameProperties();
+            GameMetrics gameMetrics = new GameMetrics(new SimpleMeterRegistry());
+            gameComponent = new GameComponent(gameProperties, gameMetrics);
+            minesweeperService = MinesweeperServiceFactory.newService(gameProperties, gameComponent, gameMetrics,
+                    new GameJournal(new JournalProperties()));
+            deadlineNanos = 2 * Math.max(gameProperties.getTtl().toNanos(), gameProperties.getCompactAfter().toNanos());
+            now = System.nanoTime();
+        }
+
+        // время хранилища сдвигается за срок жизни и сжатия игры, и оба колеса освобождаются от нее
+        @TearDown(Level.Invocation)
+        public void removeGames() {
+            now += deadlineNanos;
+            gameComponent.deleteGame(now);
+            gameComponent.compactIdleGames(now);
+        }
+    }
+
+    // поле до первого хода
+    @State(Scope.Thread)
+    public static class NewGame {
+        private GameInfo gameInfo;
+
+        @Setup(Level.Invocation)
+        public void setUp(GameEngineBenchmark benchmark) {
+            gameInfo = new GameInfo(benchmark.gameRequest);
+        }
+    }
+
+    // расставленное поле и закрытая клетка с числом
+    @State(Scope.Thread)
+    public static class GeneratedGame {
+        private GameInfo gameInfo;
+        private int numberRow;
+        private int numberCol;
+
+        @Setup(Level.Invocation)
+        public void setUp(GameEngineBenchmark benchmark) {
+            gameInfo = new GameInfo(benchmark.gameRequest);
+            gameInfo.initFirstTurn(0, 0);
+            GameBoard board = gameInfo.getBoard();
+            for (int i = 0; i < board.size(); i++) {
+                if (!board.isMine(i) && board.getValue(i) != 0) {
+                    numberRow = i / board.getWidth();
+                    numberCol = i % board.getWidth();
+                    return;
+                }
+            }
+        }
+    }
+
+    // поле без мин: открытие центра заливает все поле
+    @State(Scope.Thread)
+    public static class EmptyGame {
+        private GameInfo gameInfo;
+
+        @Setup(Level.Invocation)
+        public void setUp(GameEngineBenchmark benchmark) {
+            gameInfo = new GameInfo(benchmark.emptyGameRequest);
+            gameInfo.initFirstTurn(benchmark.size / 2, benchmark.size / 2);
+        }
+    }
+
+    @Benchmark
+    public GameInfoResponse createNewGame(Store store) {
+        return store.minesweeperService.createNewGame(gameRequest);
+    }
+
+    @Benchmark
+    public GameInfo initFirstTurn(NewGame newGame) {
+        newGame.gameInfo.initFirstTurn(size / 2, size / 2);
+        return newGame.gameInfo;
+    }
+
+    @Benchmark
+    public int revealSingleCell(GeneratedGame game) {
+        return game.gameInfo.getBoard().revealArea(game.numberRow, game.numberCol, null);
+    }
+
+    @Benchmark
+    public int revealFloodFill(EmptyGame emptyGame) {
+        return emptyGame.gameInfo.getBoard().revealArea(size / 2, size / 2, null);
+    }
+
+    @Benchmark
+    public boolean checkWinGame() {
+        return generatedGame.getSafeCellsRemaining() == 0;
+    }
+
+    @Benchmark
+    public byte[] serializeGameInfoResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(openedGameResponse);
+    }
+
+    @Benchmark
+    public byte[] serializeRowsResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(openedGameRowsResponse);
+    }
+
+    @Benchmark
+    public byte[] serializeRleResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(openedGameRleResponse);
+    }
+
+    private GameNewRequest newGameRequest(int minesCount) {
+        GameNewRequest newGameRequest = new GameNewRequest();
+        newGameRequest.setHeight(size);
+        newGameRequest.setWidth(size);
+        newGameRequest.setMines_count(Math.min(minesCount, size * size - 1));
+        return newGameRequest;
+    }
+}
@@ -0,0 +1,96 @@
+package test.minesweeper.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import test.minesweeper.component.GameSolver;
+import test.minesweeper.configuration.GameProperties;
+import test.minesweeper.dto.GameBoard;
+import test.minesweeper.dto.GameInfo;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки решателя на стандартных конфигурациях "ширина x высота / мины" в середине партии:
+ * после первого хода открываются все клетки, которые решатель находит безопасными, пока не открыта
+ * половина безопасных клеток или не потребуется угадывание.
+ * <p>
+ * Позиции строятся по {@link #SEEDS} зернам и решаются по очереди. Решения, не уложившиеся в лимит
+ * времени, считаются в счетчике {@code timeouts} рядом со счетчиком {@code solutions}: время таких
+ * решений - время оценки, а не перебора, и при ненулевой доле таймаутов его нельзя сравнивать с точным.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameSolverBenchmark {
+    private static final int SEEDS = 16;
+
+    @Param({"9x9/10", "16x16/40", "30x16/99"})
+    private String configuration;
+
+    private GameSolver gameSolver;
+    private GameBoard[] boards;
+    private int minesCount;
+    private int next;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Timeouts {
+        public long solutions;
+        public long timeouts;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            solutions = 0;
+            timeouts = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        gameSolver = new GameSolver(new GameProperties());
+        String[] sizeAndMines = configuration.split("/");
+        String[] size = sizeAndMines[0].split("x");
+        int width = Integer.parseInt(size[0]);
+        int height = Integer.parseInt(size[1]);
+        minesCount = Integer.parseInt(sizeAndMines[1]);
+
+        boards = new GameBoard[SEEDS];
+        for (int seed = 0; seed < SEEDS; seed++) {
+            boards[seed] = midGameBoard(width, height, seed);
+        }
+    }
+
+    @Benchmark
+    public GameSolver.Solution solve(Timeouts timeouts) {
+        GameSolver.Solution solution = gameSolver.solve(boards[next], minesCount);
+        next = next + 1 == boards.length ? 0 : next + 1;
+        timeouts.solutions++;
+        if (!solution.isExact()) {
+            timeouts.timeouts++;
+        }
+        return solution;
+    }
+
+    private GameBoard midGameBoard(int width, int height, long seed) {
+        GameInfo gameInfo = new GameInfo("benchmark", width, height, minesCount, seed);
+        gameInfo.initFirstTurn(height / 2, width / 2);
+        GameBoard board = gameInfo.getBoard();
+        int revealed = board.revealArea(height / 2, width / 2, null);
+        int target = (width * height - minesCount) / 2;
+        boolean progress = true;
+        while (progress && revealed < target) {
+            progress = false;
+            GameSolver.Solution solution = gameSolver.solve(board, minesCount);
+            for (int i = 0; i < solution.getCells().length && revealed < target; i++) {
+                int cell = solution.getCells()[i];
+                if (solution.isSafe(i) && !board.isRevealed(cell)) {
+                    revealed += board.revealArea(cell / width, cell % width, null);
+                    progress = true;
+                }
+            }
+        }
+        return board;
+    }
+}
@@ -0,0 +1,344 @@
+package test.minesweeper.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+import test.minesweeper.MinesweeperApplication;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Нагрузочный тест REST API: игроки создают игры через /v1/new и ходят через /v1/turn.
+ * <p>
+ * Модель открытая: запросы приходят пуассоновским потоком с частотой rate (по умолчанию players / think
+ * в секунду) независимо от ответов. Каждый запрос отдается свободному игроку, то есть игроку без запроса
+ * в полете; если свободных нет, потому что сервер тормозит, добавляется новый игрок с новой игрой, и
+ * нагрузка не падает. Задержка считается от момента прихода запроса по расписанию, а не от фактической
+ * отправки (поправка на coordinated omission): запросы, которые ждали отстающий генератор, получают
+ * в замер все время ожидания. Задержка от фактической отправки выводится отдельно для сравнения.
+ * <p>
+ * Запуск: {@code mvn -Ploadtest test-compile exec:exec -Dloadtest.args="players=2000 duration=60s"}.
+ * Без url приложение запускается в том же процессе на свободном порту, аргументы вида --ключ=значение
+ * передаются приложению. Пороги max-p50, max-p99, max-p999, max-error-rate и min-throughput
+ * проверяются после замера, при нарушении процесс завершается с кодом 1.
+ */
+public class LoadGenerator {
+    private static final long HIGHEST_LATENCY = TimeUnit.MINUTES.toNanos(1);
+    private static final Duration REPORT_INTERVAL = Duration.ofSeconds(5);
+    private static final String NEW = "new";
+    private static final String TURN = "turn";
+
+    // замер одного вида запросов: задержка от запланированного и от фактического момента отправки
+    private static final class Endpoint {
+        private final Recorder intended = new Recorder(HIGHEST_LATENCY, 3);
+        private final Recorder actual = new Recorder(HIGHEST_LATENCY, 3);
+        private final Histogram intendedTotal = new Histogram(HIGHEST_LATENCY, 3);
+        private final Histogram actualTotal = new Histogram(HIGHEST_LATENCY, 3);
+        private final AtomicLong errors = new AtomicLong();
+        private long measuredErrors;
+
+        private void record(long intendedNanos, long actualNanos, boolean success) {
+            intended.recordValue(Math.min(intendedNanos, HIGHEST_LATENCY));
+            actual.recordValue(Math.min(actualNanos, HIGHEST_LATENCY));
+            if (!success) {
+                errors.incrementAndGet();
+            }
+        }
+
+        // интервальные гистограммы забираются из записи и, если идет замер, добавляются к итогу
+        private Histogram collect(boolean measured) {
+            Histogram interval = intended.getIntervalHistogram();
+            Histogram actualInterval = actual.getIntervalHistogram();
+            long intervalErrors = errors.getAndSet(0);
+            if (measured) {
+                intendedTotal.add(interval);
+                actualTotal.add(actualInterval);
+                measuredErrors += intervalErrors;
+            }
+            return interval;
+        }
+    }
+
+    private final Map<String, String> options;
+    private final String url;
+    private final int players;
+    // средний интервал между запросами всех игроков
+    private final double arrivalNanos;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Duration timeout;
+    private final String[] sizes;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ConcurrentLinkedQueue<Player> idlePlayers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger playerCount = new AtomicInteger();
+    private final SplittableRandom arrivals = new SplittableRandom();
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService responseExecutor;
+    private final HttpClient httpClient;
+    private volatile boolean running = true;
+    // момент прихода следующего запроса по расписанию, меняется только цепочкой arrive
+    private long nextArrival;
+
+    LoadGenerator(Map<String, String> options, String url) {
+        this.options = options;
+        this.url = url;
+        this.players = Integer.parseInt(options.getOrDefault("players", "1000"));
+        double rate = options.containsKey("rate") ? Double.parseDouble(options.get("rate"))
+                : players * 1e9 / duration("think", "1s").toNanos();
+        this.arrivalNanos = 1e9 / rate;
+        this.warmup = duration("warmup", "10s");
+        this.duration = duration("duration", "60s");
+        this.timeout = duration("timeout", "5s");
+        this.sizes = options.getOrDefault("sizes", "9x9/10,16x16/40,30x16/99").split(",");
+        endpoints.put(NEW, new Endpoint());
+        endpoints.put(TURN, new Endpoint());
+        int threads = Runtime.getRuntime().availableProcessors();
+        this.scheduler = Executors.newScheduledThreadPool(Math.max(threads / 2, 1));
+        this.responseExecutor = Executors.newFixedThreadPool(threads);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .executor(responseExecutor)
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        List<String> applicationArgs = new ArrayList<>(List.of("--server.port=0",
+                "--logging.level.test.minesweeper=WARN"));
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                applicationArgs.add(arg);
+            } else if (arg.contains("=")) {
+                options.put(arg.substring(0, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        ConfigurableApplicationContext context = null;
+        String url = options.get("url");
+        if (url == null) {
+            context = SpringApplication.run(MinesweeperApplication.class, applicationArgs.toArray(String[]::new));
+            url = "http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                    + context.getEnvironment().getProperty("server.servlet.context-path", "");
+        }
+        LoadGenerator loadGenerator = new LoadGenerator(options, url);
+        int status;
+        try {
+            loadGenerator.run();
+            status = loadGenerator.report();
+        } finally {
+            loadGenerator.close();
+            if (context != null) {
+                context.close();
+            }
+        }
+        System.exit(status);
+    }
+
+    void run() throws InterruptedException {
+        System.out.printf(Locale.ROOT, "Нагрузка на %s: %d игроков, %.0f запросов/с по расписанию, поля %s%n",
+                url, players, 1e9 / arrivalNanos, String.join(",", sizes));
+        for (int i = 0; i < players; i++) {
+            idlePlayers.offer(new Player(playerCount.getAndIncrement(), sizes));
+        }
+        long start = System.nanoTime();
+        nextArrival = start;
+        scheduler.execute(this::arrive);
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        boolean measured = false;
+        long intervalStart = start;
+        while (System.nanoTime() < end) {
+            Thread.sleep(Math.min(REPORT_INTERVAL.toMillis(), Math.max(TimeUnit.NANOSECONDS.toMillis(
+                    (measured ? end : measureFrom) - System.nanoTime()), 1)));
+            long now = System.nanoTime();
+            Histogram turns = endpoints.get(TURN).collect(measured);
+            endpoints.get(NEW).collect(measured);
+            System.out.printf(Locale.ROOT, "%s %5.0f с: ходов %.0f/с, p99 хода %.2f мс, в полете %d, игроков %d%n",
+                    measured ? "замер " : "прогрев", (now - start) / 1e9, turns.getTotalCount() * 1e9 / (now - intervalStart),
+                    turns.getValueAtPercentile(99) / 1e6, inFlight.get(), playerCount.get());
+            intervalStart = now;
+            measured = now >= measureFrom;
+        }
+        running = false;
+        // ответы на уже отправленные запросы входят в замер
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        for (Endpoint endpoint : endpoints.values()) {
+            endpoint.collect(true);
+        }
+    }
+
+    // итоговый отчет и проверка порогов, возвращает код завершения процесса
+    int report() throws IOException {
+        double seconds = duration.toNanos() / 1e9;
+        Histogram all = new Histogram(HIGHEST_LATENCY, 3);
+        long errors = 0;
+        Map<String, Object> json = new LinkedHashMap<>();
+        System.out.printf("%nзапрос  запросов   ошибок  p50 мс  p99 мс  p99.9 мс  max мс  (от момента по расписанию)%n");
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            Endpoint endpoint = entry.getValue();
+            all.add(endpoint.intendedTotal);
+            errors += endpoint.measuredErrors;
+            printRow(entry.getKey(), endpoint.intendedTotal, endpoint.measuredErrors);
+            json.put(entry.getKey(), summary(endpoint.intendedTotal, endpoint.measuredErrors, seconds));
+        }
+        printRow("все", all, errors);
+        System.out.printf("%nбез поправки на coordinated omission (от фактической отправки):%n");
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            printRow(entry.getKey(), entry.getValue().actualTotal, entry.getValue().measuredErrors);
+        }
+        double throughput = all.getTotalCount() / seconds;
+        double errorRate = all.getTotalCount() == 0 ? 0 : (double) errors / all.getTotalCount();
+        System.out.printf(Locale.ROOT, "%nпропускная способность %.1f запросов/с при %.1f по расписанию, "
+                + "доля ошибок %.5f, игроков %d%n", throughput, 1e9 / arrivalNanos, errorRate, playerCount.get());
+        Map<String, Object> summary = summary(all, errors, seconds);
+        summary.put("offered_rate", 1e9 / arrivalNanos);
+        summary.put("players", playerCount.get());
+        json.put("all", summary);
+
+        List<String> violations = new ArrayList<>();
+        checkLatency(violations, "max-p50", all.getValueAtPercentile(50));
+        checkLatency(violations, "max-p99", all.getValueAtPercentile(99));
+        checkLatency(violations, "max-p999", all.getValueAtPercentile(99.9));
+        if (options.containsKey("max-error-rate") && errorRate > Double.parseDouble(options.get("max-error-rate"))) {
+            violations.add(String.format(Locale.ROOT, "доля ошибок %.5f больше max-error-rate=%s",
+                    errorRate, options.get("max-error-rate")));
+        }
+        if (options.containsKey("min-throughput") && throughput < Double.parseDouble(options.get("min-throughput"))) {
+            violations.add(String.format(Locale.ROOT, "пропускная способность %.1f меньше min-throughput=%s",
+                    throughput, options.get("min-throughput")));
+        }
+        json.put("violations", violations);
+        if (options.containsKey("report")) {
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(new File(options.get("report")), json);
+        }
+        for (String violation : violations) {
+            System.out.println("ПОРОГ НАРУШЕН: " + violation);
+        }
+        return violations.isEmpty() ? 0 : 1;
+    }
+
+    void close() {
+        scheduler.shutdownNow();
+        responseExecutor.shutdownNow();
+    }
+
+    // приход запроса по расписанию: запросы, время которых уже наступило, отправляются сразу,
+    // следующий приход планируется от расписания, а не от момента отправки
+    private void arrive() {
+        long now = System.nanoTime();
+        while (running && nextArrival - now <= 0) {
+            Player player = idlePlayers.poll();
+            if (player == null) {
+                player = new Player(playerCount.getAndIncrement(), sizes);
+            }
+            send(player, nextArrival);
+            nextArrival += (long) (-Math.log(1 - arrivals.nextDouble()) * arrivalNanos);
+        }
+        if (running) {
+            scheduler.schedule(this::arrive, nextArrival - now, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void send(Player player, long intendedStart) {
+        String body = player.needsNewGame() ? null : player.turnRequest();
+        String endpointName = body == null ? NEW : TURN;
+        if (body == null) {
+            body = player.newGameRequest();
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/v1/" + endpointName))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        Endpoint endpoint = endpoints.get(endpointName);
+        long sent = System.nanoTime();
+        inFlight.incrementAndGet();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).whenComplete((response, error) -> {
+            long now = System.nanoTime();
+            boolean success = error == null && response.statusCode() == 200 && update(player, response.body());
+            if (!success) {
+                player.gameLost();
+            }
+            endpoint.record(now - intendedStart, now - sent, success);
+            inFlight.decrementAndGet();
+            idlePlayers.offer(player);
+        });
+    }
+
+    private boolean update(Player player, byte[] body) {
+        try {
+            JsonNode root = objectMapper.readTree(body);
+            JsonNode fieldNode = root.get("field");
+            String[][] field = new String[fieldNode.size()][];
+            for (int row = 0; row < field.length; row++) {
+                JsonNode rowNode = fieldNode.get(row);
+                field[row] = new String[rowNode.size()];
+                for (int col = 0; col < field[row].length; col++) {
+                    field[row][col] = rowNode.get(col).asText();
+                }
+            }
+            player.gameUpdated(root.get("game_id").asText(), field, root.get("completed").asBoolean());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    private void checkLatency(List<String> violations, String option, long nanos) {
+        if (options.containsKey(option) && nanos > DurationStyle.detectAndParse(options.get(option)).toNanos()) {
+            violations.add(String.format(Locale.ROOT, "%s: %.2f мс больше %s", option, nanos / 1e6,
+                    options.get(option)));
+        }
+    }
+
+    private Duration duration(String option, String defaultValue) {
+        return DurationStyle.detectAndParse(options.getOrDefault(option, defaultValue));
+    }
+
+    private static void printRow(String name, Histogram histogram, long errors) {
+        System.out.printf(Locale.ROOT, "%-6s %9d %8d %7.2f %7.2f %9.2f %7.2f%n", name, histogram.getTotalCount(),
+                errors, histogram.getValueAtPercentile(50) / 1e6, histogram.getValueAtPercentile(99) / 1e6,
+                histogram.getValueAtPercentile(99.9) / 1e6, histogram.getMaxValue() / 1e6);
+    }
+
+    private static Map<String, Object> summary(Histogram histogram, long errors, double seconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", histogram.getTotalCount());
+        summary.put("errors", errors);
+        summary.put("throughput", histogram.getTotalCount() / seconds);
+        summary.put("p50_ms", histogram.getValueAtPercentile(50) / 1e6);
+        summary.put("p99_ms", histogram.getValueAtPercentile(99) / 1e6);
+        summary.put("p999_ms", histogram.getValueAtPercentile(99.9) / 1e6);
+        summary.put("max_ms", histogram.getMaxValue() / 1e6);
+        return summary;
+    }
+}
@@ -0,0 +1,108 @@
+package test.minesweeper.loadtest;
+
+import java.util.SplittableRandom;
+
+/**
+ * Модель игрока: видит поле из последнего ответа и ходит так, как ходит человек. Первый ход - в середину
+ * поля, дальше чаще всего открывается закрытая клетка рядом с уже открытыми числами, иногда - случайная
+ * закрытая клетка, изредка ставится флаг. После завершения игры игрок начинает новую.
+ */
+class Player {
+    // доли ходов рядом с открытой областью и флагов
+    private static final double FRONTIER_MOVES = 0.75;
+    private static final double FLAG_MOVES = 0.05;
+    private static final String HIDDEN = " ";
+    private static final String FLAG = "F";
+
+    private final SplittableRandom random;
+    private final String[] sizes;
+
+    private String gameId;
+    private String[][] field;
+    private boolean completed = true;
+
+    Player(long seed, String[] sizes) {
+        this.random = new SplittableRandom(seed);
+        this.sizes = sizes;
+    }
+
+    boolean needsNewGame() {
+        return completed;
+    }
+
+    // тело запроса /v1/new случайного размера из списка
+    String newGameRequest() {
+        String[] sizeAndMines = sizes[random.nextInt(sizes.length)].split("/");
+        String[] size = sizeAndMines[0].split("x");
+        return String.format("{\"width\":%s,\"height\":%s,\"mines_count\":%s}", size[0], size[1], sizeAndMines[1]);
+    }
+
+    // тело запроса /v1/turn или null, если закрытых клеток не осталось
+    String turnRequest() {
+        int height = field.length;
+        int width = field[0].length;
+        int cell = -1;
+        boolean first = true;
+        for (String[] row : field) {
+            for (String value : row) {
+                first &= HIDDEN.equals(value);
+            }
+        }
+        if (first) {
+            cell = height / 2 * width + width / 2;
+        } else if (random.nextDouble() < FRONTIER_MOVES) {
+            cell = pickCell(width, height, true);
+        }
+        if (cell < 0) {
+            cell = pickCell(width, height, false);
+        }
+        if (cell < 0) {
+            return null;
+        }
+        String action = !first && random.nextDouble() < FLAG_MOVES ? ",\"action\":\"flag\"" : "";
+        return String.format("{\"game_id\":\"%s\",\"row\":%d,\"col\":%d%s}", gameId, cell / width, cell % width,
+                action);
+    }
+
+    void gameUpdated(String gameId, String[][] field, boolean completed) {
+        this.gameId = gameId;
+        this.field = field;
+        this.completed = completed;
+    }
+
+    // игра потеряна (например, удалена сервером), следующим запросом создается новая
+    void gameLost() {
+        completed = true;
+    }
+
+    // случайная закрытая клетка без флага, для frontier - только соседняя с открытой
+    private int pickCell(int width, int height, boolean frontier) {
+        int chosen = -1;
+        int candidates = 0;
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                if (!HIDDEN.equals(field[row][col]) || (frontier && !nearRevealed(row, col))) {
+                    continue;
+                }
+                // выборка одного элемента из потока с равной вероятностью
+                candidates++;
+                if (random.nextInt(candidates) == 0) {
+                    chosen = row * width + col;
+                }
+            }
+        }
+        return chosen;
+    }
+
+    private boolean nearRevealed(int row, int col) {
+        for (int i = Math.max(row - 1, 0); i <= Math.min(row + 1, field.length - 1); i++) {
+            for (int j = Math.max(col - 1, 0); j <= Math.min(col + 1, field[0].length - 1); j++) {
+                String value = field[i][j];
+                if (!HIDDEN.equals(value) && !FLAG.equals(value)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,122 @@
+package test.minesweeper.component;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import test.minesweeper.configuration.ClusterProperties;
+import test.minesweeper.dto.GameIds;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Кольцо согласованного хеширования узлов кластера.
+ * <p>
+ * Идентификатор игры несет один из {@link GameIds#SHARDS} шардов, шард отображается на кольцо и
+ * принадлежит ближайшей по часовой стрелке точке узла. Новая игра получает случайный шард этого узла,
+ * поэтому создается локально, а ходы любого узла находят владельца по одному идентификатору.
+ * Добавление узла переносит на него примерно 1/N шардов, остальные остаются у прежних владельцев.
+ * <p>
+ * Без кластерного режима все шарды локальные.
+ */
+@Slf4j
+@Component
+public class ClusterRing {
+    private final boolean enabled;
+    private final String nodeId;
+    // владелец каждого шарда
+    private final String[] owners;
+    private final int[] localShards;
+    private final Map<String, String> nodes;
+
+    public ClusterRing(ClusterProperties clusterProperties) {
+        this.enabled = clusterProperties.isEnabled();
+        this.nodeId = clusterProperties.getNodeId();
+        this.nodes = Map.copyOf(clusterProperties.getNodes());
+        this.owners = new String[GameIds.SHARDS];
+        if (!enabled) {
+            Arrays.fill(owners, nodeId);
+            this.localShards = null;
+            return;
+        }
+        if (!nodes.containsKey(nodeId)) {
+            throw new IllegalStateException(String.format("Узел %s отсутствует в составе кластера %s",
+                    nodeId, nodes.keySet()));
+        }
+        TreeMap<Long, String> ring = new TreeMap<>();
+        for (String node : nodes.keySet()) {
+            for (int i = 0; i < clusterProperties.getVirtualNodes(); i++) {
+                ring.put(hash(node + "#" + i), node);
+            }
+        }
+        int local = 0;
+        for (int shard = 0; shard < owners.length; shard++) {
+            Map.Entry<Long, String> entry = ring.ceilingEntry(mix(shard));
+            owners[shard] = (entry == null ? ring.firstEntry() : entry).getValue();
+            local += owners[shard].equals(nodeId) ? 1 : 0;
+        }
+        if (local == 0) {
+            throw new IllegalStateException(String.format("Узлу %s не досталось ни одного шарда", nodeId));
+        }
+        this.localShards = new int[local];
+        for (int shard = 0, i = 0; shard < owners.length; shard++) {
+            if (owners[shard].equals(nodeId)) {
+                localShards[i++] = shard;
+            }
+        }
+        String message = String.format("Узел %s владеет %d из %d шардов кластера из %d узлов",
+                nodeId, local, owners.length, nodes.size());
+        log.info(message);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public String newGameId() {
+        if (!enabled) {
+            return GameIds.newId();
+        }
+        return GameIds.newId(localShards[ThreadLocalRandom.current().nextInt(localShards.length)]);
+    }
+
+    public boolean isLocal(String gameId) {
+        return !enabled || owners[GameIds.shard(gameId)].equals(nodeId);
+    }
+
+    public String getOwner(String gameId) {
+        return owners[GameIds.shard(gameId)];
+    }
+
+    // адрес API узла-владельца игры
+    public String getOwnerUrl(String gameId) {
+        return nodes.get(getOwner(gameId));
+    }
+
+    public int getLocalShardCount() {
+        return enabled ? localShards.length : owners.length;
+    }
+
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
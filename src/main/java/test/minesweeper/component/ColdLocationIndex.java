@@ -0,0 +1,136 @@
+package test.minesweeper.component;
+
+import test.minesweeper.dto.GameIds;
+
+import java.util.function.LongPredicate;
+
+/**
+ * Расположения записей холодного хранилища: открытая адресация по 64-битному ключу идентификатора
+ * ({@link GameIds#key}) и упакованное расположение {@link #location(long, int)} в двух параллельных
+ * массивах long, без строки, узла и объекта расположения на каждую игру.
+ * <p>
+ * Строка идентификатора не хранится, поэтому идентификаторы старого вида с одинаковым ключом делят
+ * одну ячейку: хранилище сверяет идентификатор с прочитанной записью. Не потокобезопасен, вызывается
+ * под монитором {@link GameColdStore}.
+ */
+class ColdLocationIndex {
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    // 0 - свободная ячейка: номера сегментов начинаются с 1
+    private static final long EMPTY = 0;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private long[] locations = new long[INITIAL_CAPACITY];
+    private int size;
+
+    // номер сегмента в старших 32 битах, смещение записи в младших
+    static long location(long segment, int offset) {
+        return segment << Integer.SIZE | Integer.toUnsignedLong(offset);
+    }
+
+    static long segment(long location) {
+        return location >>> Integer.SIZE;
+    }
+
+    static int offset(long location) {
+        return (int) location;
+    }
+
+    // расположение игры или 0, если ее нет
+    long get(String gameId) {
+        long key = GameIds.key(gameId);
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); locations[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return locations[slot];
+            }
+        }
+        return EMPTY;
+    }
+
+    void put(String gameId, long location) {
+        long key = GameIds.key(gameId);
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (locations[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                locations[slot] = location;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        locations[slot] = location;
+        size++;
+        // заполнение не выше половины держит цепочки пробирования короткими
+        if (size > keys.length >>> 1) {
+            rehash(keys.length << 1, ignored -> false);
+        }
+    }
+
+    boolean remove(String gameId) {
+        long key = GameIds.key(gameId);
+        int mask = keys.length - 1;
+        int hole = slot(key, mask);
+        while (locations[hole] != EMPTY && keys[hole] != key) {
+            hole = (hole + 1) & mask;
+        }
+        if (locations[hole] == EMPTY) {
+            return false;
+        }
+        locations[hole] = EMPTY;
+        for (int slot = (hole + 1) & mask; locations[slot] != EMPTY; slot = (slot + 1) & mask) {
+            int home = slot(keys[slot], mask);
+            // элемент переносится в дыру, если она лежит между его домашней ячейкой и текущей
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                keys[hole] = keys[slot];
+                locations[hole] = locations[slot];
+                locations[slot] = EMPTY;
+                hole = slot;
+            }
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * Удаляет расположения, подходящие под условие, перестраивая таблицу целиком.
+     *
+     * @return количество удаленных расположений
+     */
+    int removeIf(LongPredicate filter) {
+        int before = size;
+        rehash(keys.length, filter);
+        return before - size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void rehash(int capacity, LongPredicate filter) {
+        long[] oldKeys = keys;
+        long[] oldLocations = locations;
+        keys = new long[capacity];
+        locations = new long[capacity];
+        size = 0;
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldLocations[i] != EMPTY && !filter.test(oldLocations[i])) {
+                int slot = slot(oldKeys[i], mask);
+                while (locations[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                locations[slot] = oldLocations[i];
+                size++;
+            }
+        }
+    }
+
+    private static int slot(long key, int mask) {
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+}
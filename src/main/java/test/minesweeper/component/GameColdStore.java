@@ -0,0 +1,354 @@
+package test.minesweeper.component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import test.minesweeper.configuration.ColdStoreProperties;
+import test.minesweeper.dto.GameInfo;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Холодное хранилище игр на диске. Игра без ходов дольше ttl сжимается до зерна и масок состояний,
+ * упаковывается deflate и дописывается в текущий сегмент - файл, отображенный в память. Расположение
+ * записи дописывается в индекс сегмента, при запуске индексы всех сегментов читаются по порядку,
+ * последняя запись об игре побеждает. При промахе {@link GameComponent#getGame(String)} игра читается
+ * из сегмента, возвращается в память и удаляется из индекса.
+ * <p>
+ * Сегменты не перезаписываются: сегмент целиком удаляется, когда с последней записи в него прошел срок
+ * хранения, поэтому каждая выгруженная игра хранится не меньше этого срока.
+ * <p>
+ * Расположения записей всех выгруженных игр держатся в куче в {@link ColdLocationIndex}: ключ и упакованное
+ * расположение, от 32 до 64 байт на выгруженную игру в зависимости от заполнения таблицы, то есть миллион
+ * игр на диске - порядка 64 МБ кучи. Длина записи читается из ее заголовка в сегменте, запись за границами
+ * сегмента или с неверной контрольной суммой считается поврежденной.
+ */
+@Slf4j
+@Component
+public class GameColdStore {
+    private static final String SEGMENT_PREFIX = "cold-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+    // длина и контрольная сумма записи
+    private static final int RECORD_HEADER = 8;
+    // длина записи индекса об игре, возвращенной в память
+    private static final int REMOVED = -1;
+
+    private static final class Segment {
+        private final long number;
+        private final MappedByteBuffer buffer;
+        // время последней записи по часам системы: сроки хранения переживают перезапуск
+        private long lastWrite;
+
+        private Segment(long number, MappedByteBuffer buffer, long lastWrite) {
+            this.number = number;
+            this.buffer = buffer;
+            this.lastWrite = lastWrite;
+        }
+    }
+
+    private final ColdStoreProperties coldStoreProperties;
+    private final GameComponent gameComponent;
+    private final GameMetrics gameMetrics;
+    private final ColdLocationIndex locations = new ColdLocationIndex();
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private Path dir;
+    // сегмент, в который дописываются игры, и его индекс
+    private Segment current;
+    private FileChannel index;
+
+    public GameColdStore(ColdStoreProperties coldStoreProperties, GameComponent gameComponent,
+                         GameMetrics gameMetrics) {
+        this.coldStoreProperties = coldStoreProperties;
+        this.gameComponent = gameComponent;
+        this.gameMetrics = gameMetrics;
+    }
+
+    public boolean isEnabled() {
+        return coldStoreProperties.isEnabled();
+    }
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        dir = Paths.get(coldStoreProperties.getDir());
+        Files.createDirectories(dir);
+        for (long number : segmentNumbers()) {
+            loadSegment(number);
+        }
+        gameMetrics.registerColdStore(this);
+        gameComponent.setColdStore(this);
+        log.info(String.format("Холодное хранилище: %d игр в %d сегментах", locations.size(), segments.size()));
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (index != null) {
+            current.buffer.force();
+            index.force(true);
+            index.close();
+            index = null;
+            current = null;
+        }
+    }
+
+    /**
+     * Дописывает игру в текущий сегмент. Вызывается под монитором игры.
+     */
+    public synchronized void write(GameInfo gameInfo) throws IOException {
+        byte[] payload = compress(gameInfo);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        int recordLength = RECORD_HEADER + payload.length;
+        if (current == null || current.buffer.remaining() < recordLength) {
+            nextSegment(recordLength);
+        }
+        int offset = current.buffer.position();
+        current.buffer.putInt(payload.length);
+        current.buffer.putInt((int) crc.getValue());
+        current.buffer.put(payload);
+        appendIndex(gameInfo.getGame_id(), offset, payload.length);
+        locations.put(gameInfo.getGame_id(), ColdLocationIndex.location(current.number, offset));
+    }
+
+    /**
+     * Игра из холодного хранилища или null, если ее там нет или запись повреждена. Запись остается
+     * в индексе до {@link #remove(String)}.
+     */
+    public synchronized GameInfo read(String gameId) {
+        long location = locations.get(gameId);
+        if (location == 0) {
+            return null;
+        }
+        long number = ColdLocationIndex.segment(location);
+        Segment segment = segments.get(number);
+        if (segment == null) {
+            return null;
+        }
+        ByteBuffer buffer = segment.buffer.duplicate();
+        int offset = ColdLocationIndex.offset(location);
+        if (offset < 0 || offset > buffer.limit() - RECORD_HEADER) {
+            return damaged(gameId, number);
+        }
+        buffer.position(offset);
+        int length = buffer.getInt();
+        int crcValue = buffer.getInt();
+        if (length <= 0 || length > buffer.remaining()) {
+            return damaged(gameId, number);
+        }
+        byte[] payload = new byte[length];
+        buffer.get(payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        if ((int) crc.getValue() != crcValue) {
+            return damaged(gameId, number);
+        }
+        try {
+            GameInfo gameInfo = decompress(payload);
+            return gameId.equals(gameInfo.getGame_id()) ? gameInfo : null;
+        } catch (IOException | RuntimeException e) {
+            log.warn(String.format("Игра с id %s: не прочитана из холодного хранилища", gameId), e);
+            return null;
+        }
+    }
+
+    // игра вернулась в память, ее запись в сегменте становится мусором до удаления сегмента
+    public synchronized void remove(String gameId) throws IOException {
+        if (!locations.remove(gameId)) {
+            return;
+        }
+        if (current == null) {
+            nextSegment(0);
+        }
+        appendIndex(gameId, 0, REMOVED);
+    }
+
+    public void deleteExpired() {
+        deleteExpired(System.currentTimeMillis());
+    }
+
+    /**
+     * Удаляет сегменты, в которые ничего не писалось дольше срока хранения, вместе с их играми.
+     *
+     * @return количество окончательно удаленных игр
+     */
+    public synchronized int deleteExpired(long nowMillis) {
+        if (!isEnabled()) {
+            return 0;
+        }
+        long retention = coldStoreProperties.getRetention().toMillis();
+        List<Long> expired = new ArrayList<>();
+        // сегменты удаляются по порядку: отметка о возврате игры в память не должна пережить ее запись
+        for (Segment segment : segments.values()) {
+            if (nowMillis - segment.lastWrite < retention) {
+                break;
+            }
+            expired.add(segment.number);
+        }
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        long last = expired.get(expired.size() - 1);
+        int games = locations.removeIf(location -> ColdLocationIndex.segment(location) <= last);
+        for (long number : expired) {
+            Segment segment = segments.remove(number);
+            try {
+                if (segment == current) {
+                    index.close();
+                    index = null;
+                    current = null;
+                }
+                Files.deleteIfExists(file(number, SEGMENT_SUFFIX));
+                Files.deleteIfExists(file(number, INDEX_SUFFIX));
+            } catch (IOException e) {
+                log.error(String.format("Не удалось удалить сегмент %d холодного хранилища", number), e);
+            }
+        }
+        gameMetrics.gamesRetired(games);
+        log.info(String.format("Удалено %d сегментов и %d игр холодного хранилища старше %s",
+                expired.size(), games, coldStoreProperties.getRetention()));
+        return games;
+    }
+
+    public synchronized int getGameCount() {
+        return locations.size();
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    private void nextSegment(int recordLength) throws IOException {
+        long number = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        long size = Math.max(coldStoreProperties.getSegmentSize().toBytes(), recordLength);
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file(number, SEGMENT_SUFFIX), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        if (index != null) {
+            current.buffer.force();
+            index.close();
+        }
+        index = FileChannel.open(file(number, INDEX_SUFFIX), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        current = new Segment(number, buffer, System.currentTimeMillis());
+        segments.put(number, current);
+    }
+
+    private void appendIndex(String gameId, int offset, int length) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(gameId.length() + 10);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(gameId);
+        out.writeInt(offset);
+        out.writeInt(length);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        while (buffer.hasRemaining()) {
+            index.write(buffer);
+        }
+        current.lastWrite = System.currentTimeMillis();
+    }
+
+    private void loadSegment(long number) throws IOException {
+        Path indexFile = file(number, INDEX_SUFFIX);
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file(number, SEGMENT_SUFFIX), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        segments.put(number, new Segment(number, buffer, Files.getLastModifiedTime(indexFile).toMillis()));
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            while (true) {
+                String gameId;
+                int offset;
+                int length;
+                try {
+                    gameId = in.readUTF();
+                    offset = in.readInt();
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    // недописанная последняя запись индекса отбрасывается
+                    break;
+                }
+                if (length == REMOVED) {
+                    locations.remove(gameId);
+                } else if (offset < 0 || length <= 0 || length > buffer.capacity() - RECORD_HEADER - offset) {
+                    log.warn(String.format("Игра с id %s: запись индекса за границами сегмента %d холодного хранилища",
+                            gameId, number));
+                    locations.remove(gameId);
+                } else {
+                    locations.put(gameId, ColdLocationIndex.location(number, offset));
+                }
+            }
+        }
+    }
+
+    private GameInfo damaged(String gameId, long number) {
+        log.warn(String.format("Игра с id %s: поврежденная запись в сегменте %d холодного хранилища",
+                gameId, number));
+        return null;
+    }
+
+    private static byte[] compress(GameInfo gameInfo) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater, 1 << 12))) {
+            gameInfo.writeTo(out);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static GameInfo decompress(byte[] payload) throws IOException {
+        Inflater inflater = new Inflater();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new InflaterInputStream(new ByteArrayInputStream(payload), inflater), 1 << 12))) {
+            return GameInfo.readFrom(in);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private Path file(long number, String suffix) {
+        return dir.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, number, suffix));
+    }
+
+    // сегменты с индексом, сегмент без индекса не успел получить ни одной записи и удаляется
+    private List<Long> segmentNumbers() throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        for (long number : numbers(SEGMENT_SUFFIX)) {
+            if (Files.exists(file(number, INDEX_SUFFIX))) {
+                numbers.add(number);
+            } else {
+                Files.delete(file(number, SEGMENT_SUFFIX));
+            }
+        }
+        return numbers;
+    }
+
+    private List<Long> numbers(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(suffix))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - suffix.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
@@ -1,35 +1,487 @@
 package test.minesweeper.component;
 
-import lombok.AllArgsConstructor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import test.minesweeper.configuration.GameProperties;
+import test.minesweeper.dto.GameBoard;
+import test.minesweeper.dto.GameInfo;
 import test.minesweeper.dto.GeneralGame;
+import test.minesweeper.dto.OffHeapGameBoard;
+import test.minesweeper.dto.OffHeapMemory;
+import test.minesweeper.enums.GameStoreEnum;
+import test.minesweeper.exception.GameStoreFullException;
 
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
-import java.util.concurrent.ConcurrentHashMap;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 
+/**
+ * Хранилище игр. Устаревание игр отслеживается колесом таймеров по монотонному времени:
+ * каждая игра лежит в ячейке колеса, соответствующей ее сроку, и очистка просматривает
+ * только ячейки, срок которых наступил. Продление игры при ходе только сдвигает ее срок,
+ * а перенос в нужную ячейку происходит лениво, когда очистка доходит до старой. Сроки сжатия
+ * простаивающих полей лежат во втором колесе с тем же ленивым переносом, поэтому сжатие тоже
+ * не обходит все игры.
+ * <p>
+ * Суммарный размер полей ограничен бюджетом клеток. Новая игра сверх бюджета вытесняет игры
+ * в порядке их срока, то есть давно не использованные, а если места все равно нет - отклоняется.
+ * <p>
+ * В режиме {@link GameStoreEnum#OFF_HEAP} поля игр переносятся в прямые буферы {@link OffHeapMemory},
+ * а индекс игр - открытая адресация по 64-битному ключу идентификатора, поэтому размер кучи и число
+ * объектов в ней почти не растут с количеством живых игр.
+ * <p>
+ * С холодным хранилищем {@link GameColdStore} устаревшая игра не удаляется, а выгружается на диск и
+ * возвращается в память при следующем обращении к ней.
+ */
+@Slf4j
 @Component
-@AllArgsConstructor
 public class GameComponent {
 
-    private ConcurrentHashMap<String, GeneralGame> gameHashMap;
+    private final GameIndex gameIndex;
+    // null для хранилища в куче
+    private final OffHeapMemory offHeapMemory;
 
-    private static final int MINUTES_GAME_TO_DELETE = 2;
+    private final GameMetrics gameMetrics;
+    private final List<GameListener> gameListeners = new CopyOnWriteArrayList<>();
+    // подписчики вызываются в своем потоке по порядку удаления игр: медленный подписчик (например, отправка
+    // в WebSocket) не держит ни монитор хранилища, ни мониторы игр
+    private final ThreadPoolExecutor listenerExecutor = newListenerExecutor();
+    // null, пока холодное хранилище не подключено
+    private volatile GameColdStore coldStore;
+
+    private final long maxCells;
+    private final AtomicLong usedCells = new AtomicLong();
+
+    private final long ttlNanos;
+    private final long compactAfterNanos;
+    private final long tickNanos;
+    private final long origin;
+    private final ConcurrentLinkedQueue<GeneralGame>[] wheel;
+    private final int wheelMask;
+    // последний обработанный шаг колеса
+    private volatile long currentTick;
+    // колесо сроков сжатия: игра лежит в нем, пока ее поле не сжато
+    private final ConcurrentLinkedQueue<GeneralGame>[] compactWheel;
+    private final int compactWheelMask;
+    private volatile long compactTick;
 
     public GameComponent() {
-        this.gameHashMap = new ConcurrentHashMap<>();
+        this(new GameProperties(), new GameMetrics(new SimpleMeterRegistry()));
+    }
+
+    @Autowired
+    public GameComponent(GameProperties gameProperties, GameMetrics gameMetrics) {
+        boolean offHeap = gameProperties.getStore() == GameStoreEnum.OFF_HEAP;
+        this.gameIndex = offHeap ? new LongGameIndex() : new HashGameIndex();
+        this.offHeapMemory = offHeap ? new OffHeapMemory() : null;
+        this.gameMetrics = gameMetrics;
+        this.maxCells = gameProperties.getMaxCells();
+        this.ttlNanos = gameProperties.getTtl().toNanos();
+        this.compactAfterNanos = gameProperties.getCompactAfter().toNanos();
+        this.tickNanos = Math.max(gameProperties.getExpiryTick().toNanos(), 1);
+        this.origin = System.nanoTime();
+        // колесо должно покрывать весь ttl, чтобы новая игра не попала в уже пройденную ячейку
+        this.wheel = newWheel(ttlNanos / tickNanos + 2);
+        this.wheelMask = wheel.length - 1;
+        // сжатие запускается раз в compactInterval, колесо покрывает срок сжатия вместе с интервалом
+        this.compactWheel = newWheel((compactAfterNanos + gameProperties.getCompactInterval().toNanos()) / tickNanos + 2);
+        this.compactWheelMask = compactWheel.length - 1;
+        gameMetrics.registerStore(this);
     }
 
     public void addGame(GeneralGame generalGame) {
-        gameHashMap.put(generalGame.getGameInfo().getGame_id(), generalGame);
+        moveOffHeap(generalGame);
+        long cells = generalGame.countCells();
+        reserveCells(cells);
+        generalGame.setCells(cells);
+        touchGame(generalGame);
+        GeneralGame previous = gameIndex.put(generalGame.getGameId(), generalGame);
+        if (previous != null) {
+            usedCells.addAndGet(-previous.getCells());
+            releaseBoard(previous);
+        }
+        schedule(generalGame);
+        scheduleCompaction(generalGame);
+    }
+
+    // поле из кучи (новое, из пула или из журнала) копируется в память вне кучи
+    private void moveOffHeap(GeneralGame generalGame) {
+        if (offHeapMemory == null || generalGame.isChunked()) {
+            return;
+        }
+        GameInfo gameInfo = generalGame.getGameInfo();
+        GameBoard board = gameInfo.getBoard();
+        if (!(board instanceof OffHeapGameBoard)) {
+            gameInfo.setBoard(new OffHeapGameBoard(board, offHeapMemory));
+        }
+    }
+
+    private void releaseBoard(GeneralGame generalGame) {
+        if (!generalGame.isChunked()) {
+            generalGame.getGameInfo().getBoard().release();
+        }
+    }
+
+    /**
+     * Учет изменившегося размера поля игры: новых плиток или сжатия и восстановления поля. Место освобождается
+     * вытеснением других игр, но уже сыгранный ход не отменяется, поэтому бюджет может быть превышен.
+     * <p>
+     * Вызывается на каждом ходе, а размер меняется редко, поэтому монитор хранилища берется, только когда
+     * учтенный размер отличается от фактического, и ходы разных игр не выстраиваются в очередь на нем.
+     */
+    public void resizeGame(GeneralGame generalGame) {
+        if (generalGame.countCells() == generalGame.getCells()) {
+            return;
+        }
+        chargeResizedGame(generalGame);
+    }
+
+    private synchronized void chargeResizedGame(GeneralGame generalGame) {
+        long delta = generalGame.countCells() - generalGame.getCells();
+        if (delta == 0 || gameIndex.get(generalGame.getGameId()) != generalGame) {
+            return;
+        }
+        while (delta > 0 && usedCells.get() + delta > maxCells) {
+            if (!evictLeastRecentlyUsed()) {
+                break;
+            }
+        }
+        if (gameIndex.get(generalGame.getGameId()) != generalGame) {
+            return;
+        }
+        usedCells.addAndGet(delta);
+        generalGame.setCells(generalGame.getCells() + delta);
+        // восстановленное после сжатия поле снова ждет сжатия
+        if (delta > 0) {
+            scheduleCompaction(generalGame);
+        }
+    }
+
+    public void addGameListener(GameListener gameListener) {
+        gameListeners.add(gameListener);
+    }
+
+    public void setColdStore(GameColdStore coldStore) {
+        this.coldStore = coldStore;
     }
 
     public GeneralGame getGame(String gameId) {
-        return gameHashMap.get(gameId);
+        GeneralGame generalGame = gameIndex.get(gameId);
+        GameColdStore gameColdStore = coldStore;
+        if (generalGame != null || gameColdStore == null) {
+            return generalGame;
+        }
+        return loadGame(gameColdStore, gameId);
+    }
+
+    /**
+     * Игра все еще в хранилище: не выгружена, не вытеснена и не удалена. Проверяется под монитором игры перед
+     * ходом, иначе ход, ждавший монитор во время выгрузки, применился бы к отсоединенной копии и потерялся.
+     */
+    public boolean isStored(GeneralGame generalGame) {
+        return gameIndex.get(generalGame.getGameId()) == generalGame;
+    }
+
+    // возврат игры из холодного хранилища, загрузки идут по одной, повторная проверка индекса исключает двойную загрузку
+    private GeneralGame loadGame(GameColdStore gameColdStore, String gameId) {
+        synchronized (gameColdStore) {
+            GeneralGame generalGame = gameIndex.get(gameId);
+            if (generalGame != null) {
+                return generalGame;
+            }
+            GameInfo gameInfo = gameColdStore.read(gameId);
+            if (gameInfo == null) {
+                return null;
+            }
+            // к игре обращаются для хода, поле восстанавливается из зерна сразу
+            gameInfo.expand();
+            generalGame = new GeneralGame(gameInfo);
+            addGame(generalGame);
+            try {
+                gameColdStore.remove(gameId);
+            } catch (IOException e) {
+                // устаревшая копия останется на диске и перезапишется при следующей выгрузке
+                log.warn(String.format("Игра с id %s: не удалена из холодного хранилища", gameId), e);
+            }
+            gameMetrics.gameLoaded();
+            return generalGame;
+        }
+    }
+
+    // продление жизни игры при ходе
+    public void touchGame(GeneralGame generalGame) {
+        generalGame.setExpiresAt(System.nanoTime() + ttlNanos);
     }
 
     public void deleteGame() {
-        gameHashMap.values().removeIf(value ->
-                ChronoUnit.MINUTES.between(value.getLocalDateTime(), LocalDateTime.now()) >= MINUTES_GAME_TO_DELETE);
+        deleteGame(System.nanoTime());
+    }
+
+    public void deleteGame(long now) {
+        long start = System.nanoTime();
+        // выгрузка берет монитор игры, поэтому идет вне монитора хранилища: ход держит их в обратном порядке
+        for (GeneralGame generalGame : expireGames(now)) {
+            spillGame(generalGame, now);
+        }
+        if (offHeapMemory != null) {
+            offHeapMemory.reclaim();
+        }
+        gameMetrics.recordCleanup(System.nanoTime() - start);
+    }
+
+    // устаревшие игры удаляются, а игры для выгрузки в холодное хранилище возвращаются
+    private synchronized List<GeneralGame> expireGames(long now) {
+        List<GeneralGame> toSpill = new ArrayList<>();
+        long targetTick = (now - origin) / tickNanos;
+        long fromTick = Math.max(currentTick + 1, targetTick - wheel.length + 1);
+        for (long tick = fromTick; tick <= targetTick; tick++) {
+            currentTick = tick;
+            ConcurrentLinkedQueue<GeneralGame> bucket = wheel[(int) (tick & wheelMask)];
+            GeneralGame generalGame;
+            while ((generalGame = bucket.poll()) != null) {
+                expireOrReschedule(generalGame, now, toSpill);
+            }
+        }
+        return toSpill;
+    }
+
+    private void expireOrReschedule(GeneralGame generalGame, long now, List<GeneralGame> toSpill) {
+        String gameId = generalGame.getGameId();
+        if (gameIndex.get(gameId) != generalGame) {
+            return;
+        }
+        if (generalGame.getExpiresAt() - now <= 0) {
+            if (coldStore != null && !generalGame.isChunked()) {
+                toSpill.add(generalGame);
+            } else if (removeGame(generalGame)) {
+                gameMetrics.gameExpired();
+                notifyListeners(GameListener::gameExpired, generalGame);
+            }
+        } else {
+            schedule(generalGame);
+        }
+    }
+
+    // игра сжимается до зерна и масок, записывается на диск и только потом удаляется из памяти
+    private void spillGame(GeneralGame generalGame, long now) {
+        synchronized (generalGame) {
+            if (gameIndex.get(generalGame.getGameId()) != generalGame) {
+                return;
+            }
+            // ход успел продлить игру
+            if (generalGame.getExpiresAt() - now > 0) {
+                schedule(generalGame);
+                return;
+            }
+            try {
+                generalGame.getGameInfo().compact();
+                coldStore.write(generalGame.getGameInfo());
+            } catch (IOException e) {
+                log.error(String.format("Игра с id %s: не выгружена в холодное хранилище и удалена",
+                        generalGame.getGameId()), e);
+                if (removeGame(generalGame)) {
+                    gameMetrics.gameExpired();
+                    notifyListeners(GameListener::gameExpired, generalGame);
+                }
+                return;
+            }
+            if (removeGame(generalGame)) {
+                gameMetrics.gameSpilled();
+                notifyListeners(GameListener::gameSpilled, generalGame);
+            }
+        }
+    }
+
+    public void compactIdleGames() {
+        compactIdleGames(System.nanoTime());
+    }
+
+    // сжатие полей игр без ходов дольше compactAfter, поле восстанавливается из зерна при следующем ходе
+    public void compactIdleGames(long now) {
+        for (GeneralGame generalGame : idleGames(now)) {
+            synchronized (generalGame) {
+                if (generalGame.getGameInfo().isCompacted()) {
+                    continue;
+                }
+                // ход успел продлить игру
+                if (compactAt(generalGame) - now > 0) {
+                    scheduleCompaction(generalGame);
+                    continue;
+                }
+                generalGame.getGameInfo().compact();
+            }
+            resizeGame(generalGame);
+            gameMetrics.gameCompacted();
+        }
+    }
+
+    // игры из наступивших ячеек колеса сжатия, срок которых не продлевался ходом
+    private synchronized List<GeneralGame> idleGames(long now) {
+        List<GeneralGame> idle = new ArrayList<>();
+        long targetTick = (now - origin) / tickNanos;
+        long fromTick = Math.max(compactTick + 1, targetTick - compactWheel.length + 1);
+        for (long tick = fromTick; tick <= targetTick; tick++) {
+            compactTick = tick;
+            ConcurrentLinkedQueue<GeneralGame> bucket = compactWheel[(int) (tick & compactWheelMask)];
+            GeneralGame generalGame;
+            while ((generalGame = bucket.poll()) != null) {
+                if (gameIndex.get(generalGame.getGameId()) != generalGame) {
+                    continue;
+                }
+                if (compactAt(generalGame) - now <= 0) {
+                    idle.add(generalGame);
+                } else {
+                    scheduleCompaction(generalGame);
+                }
+            }
+        }
+        return idle;
+    }
+
+    public long getMaxCells() {
+        return maxCells;
+    }
+
+    // одно поле дополнительно ограничено максимальным размером массива
+    public long getMaxBoardCells() {
+        return Math.min(maxCells, Integer.MAX_VALUE - 8);
+    }
+
+    public long getUsedCells() {
+        return usedCells.get();
+    }
+
+    public Collection<GeneralGame> getGames() {
+        return gameIndex.values();
+    }
+
+    public int getGameCount() {
+        return gameIndex.size();
+    }
+
+    // память вне кучи, занятая плитами полей
+    public long getOffHeapBytes() {
+        return offHeapMemory == null ? 0 : offHeapMemory.getReservedBytes();
+    }
+
+    private void reserveCells(long cells) {
+        while (true) {
+            long used = usedCells.get();
+            if (used + cells <= maxCells) {
+                if (usedCells.compareAndSet(used, used + cells)) {
+                    return;
+                }
+            } else if (!evictLeastRecentlyUsed()) {
+                throw new GameStoreFullException();
+            }
+        }
+    }
+
+    // обход колеса от ближайшего срока: первая игра, срок которой не продлевался, используется давнее всех
+    private synchronized boolean evictLeastRecentlyUsed() {
+        long fromTick = currentTick + 1;
+        for (long tick = fromTick; tick < fromTick + wheel.length; tick++) {
+            Iterator<GeneralGame> iterator = wheel[(int) (tick & wheelMask)].iterator();
+            while (iterator.hasNext()) {
+                GeneralGame generalGame = iterator.next();
+                if (gameIndex.get(generalGame.getGameId()) != generalGame) {
+                    iterator.remove();
+                } else if (tickOf(generalGame) <= tick) {
+                    iterator.remove();
+                    if (removeGame(generalGame)) {
+                        gameMetrics.gameEvicted();
+                        notifyListeners(GameListener::gameEvicted, generalGame);
+                        log.info(String.format("Игра с id %s: вытеснена из-за лимита памяти",
+                                generalGame.getGameId()));
+                        return true;
+                    }
+                } else {
+                    iterator.remove();
+                    schedule(generalGame);
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean removeGame(GeneralGame generalGame) {
+        if (gameIndex.remove(generalGame.getGameId(), generalGame)) {
+            usedCells.addAndGet(-generalGame.getCells());
+            releaseBoard(generalGame);
+            return true;
+        }
+        return false;
+    }
+
+    private void notifyListeners(BiConsumer<GameListener, GeneralGame> event, GeneralGame generalGame) {
+        if (gameListeners.isEmpty()) {
+            return;
+        }
+        listenerExecutor.execute(() -> {
+            for (GameListener gameListener : gameListeners) {
+                try {
+                    event.accept(gameListener, generalGame);
+                } catch (RuntimeException e) {
+                    log.error(String.format("Игра с id %s: ошибка подписчика на удаление игры",
+                            generalGame.getGameId()), e);
+                }
+            }
+        });
+    }
+
+    private long tickOf(GeneralGame generalGame) {
+        long deadline = generalGame.getExpiresAt() - origin;
+        return Math.floorDiv(deadline + tickNanos - 1, tickNanos);
+    }
+
+    private void schedule(GeneralGame generalGame) {
+        long tick = Math.max(tickOf(generalGame), currentTick + 1);
+        wheel[(int) (tick & wheelMask)].offer(generalGame);
+    }
+
+    // срок сжатия отсчитывается от последнего хода, который продлил игру
+    private long compactAt(GeneralGame generalGame) {
+        return generalGame.getExpiresAt() - ttlNanos + compactAfterNanos;
+    }
+
+    private void scheduleCompaction(GeneralGame generalGame) {
+        if (generalGame.isChunked()) {
+            return;
+        }
+        long tick = Math.max(Math.floorDiv(compactAt(generalGame) - origin + tickNanos - 1, tickNanos), compactTick + 1);
+        compactWheel[(int) (tick & compactWheelMask)].offer(generalGame);
+    }
+
+    // один поток сохраняет порядок событий и завершается, пока событий нет
+    private static ThreadPoolExecutor newListenerExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "game-listener");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ConcurrentLinkedQueue<GeneralGame>[] newWheel(long ticks) {
+        int wheelSize = Integer.highestOneBit((int) Math.min(ticks, 1 << 20)) << 1;
+        ConcurrentLinkedQueue<GeneralGame>[] wheel = new ConcurrentLinkedQueue[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        return wheel;
     }
 }
@@ -0,0 +1,22 @@
+package test.minesweeper.component;
+
+import test.minesweeper.dto.GeneralGame;
+
+import java.util.Collection;
+
+/**
+ * Индекс живых игр по идентификатору.
+ */
+interface GameIndex {
+    GeneralGame get(String gameId);
+
+    // возвращает замененную игру с тем же идентификатором
+    GeneralGame put(String gameId, GeneralGame generalGame);
+
+    // удаляет, только если по идентификатору лежит именно эта игра
+    boolean remove(String gameId, GeneralGame generalGame);
+
+    Collection<GeneralGame> values();
+
+    int size();
+}
@@ -0,0 +1,403 @@
+package test.minesweeper.component;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import test.minesweeper.configuration.JournalProperties;
+import test.minesweeper.dto.GameInfo;
+import test.minesweeper.dto.GeneralGame;
+import test.minesweeper.enums.TurnActionEnum;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал событий игр (создание игры с зерном, ходы) и периодические снимки всех живых игр.
+ * <p>
+ * Потоки запросов только кодируют событие и кладут его в очередь. Отдельный поток записи
+ * забирает накопившиеся события пачкой, пишет их одной операцией в текущий сегмент журнала
+ * через {@link FileChannel} и делает один fsync на пачку.
+ * <p>
+ * Перед снимком журнал переключается на новый сегмент, поэтому все события, не попавшие в снимок,
+ * лежат в сегментах с номером не меньше номера снимка. При восстановлении загружается последний
+ * снимок и проигрываются эти сегменты; повтор уже учтенного в снимке хода ничего не меняет.
+ */
+@Slf4j
+@Component
+public class GameJournal {
+    private static final byte GAME_CREATED = 1;
+    private static final byte TURN = 2;
+    // ход с действием, отличным от открытия клетки
+    private static final byte TURN_ACTION = 3;
+    private static final int RECORD_HEADER = 8;
+    // границы длины данных записи: тип, длина идентификатора, идентификатор и поля события
+    private static final int MIN_RECORD_LENGTH = 1 + 2 + 4 + 4;
+    private static final int MAX_RECORD_LENGTH = 1 + 2 + 0xFFFF + 4 + 4 + 4 + 8;
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    public interface RecoveryHandler {
+        void restoreGame(GameInfo gameInfo);
+
+        void replayTurn(String gameId, int row, int col, TurnActionEnum action);
+    }
+
+    private static final Object STOP = new Object();
+
+    private static final class Rotation {
+        private final CompletableFuture<Long> segment = new CompletableFuture<>();
+    }
+
+    private final JournalProperties journalProperties;
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+    private volatile boolean running;
+    private Thread writer;
+    private Path dir;
+    // текущий сегмент, используется только потоком записи после открытия журнала
+    private FileChannel channel;
+    private long segment;
+
+    public GameJournal(JournalProperties journalProperties) {
+        this.journalProperties = journalProperties;
+    }
+
+    public boolean isEnabled() {
+        return journalProperties.isEnabled();
+    }
+
+    /**
+     * Восстанавливает игры из последнего снимка и хвоста журнала, затем открывает новый сегмент для записи.
+     */
+    public synchronized void open(RecoveryHandler recoveryHandler) {
+        if (!isEnabled() || running) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            dir = Paths.get(journalProperties.getDir());
+            Files.createDirectories(dir);
+            long snapshot = lastNumber(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+            int games = 0;
+            if (snapshot >= 0) {
+                games = readSnapshot(file(SNAPSHOT_PREFIX, snapshot, SNAPSHOT_SUFFIX), recoveryHandler);
+            }
+            long lastSegment = snapshot;
+            int events = 0;
+            for (long number : numbers(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+                if (number >= snapshot) {
+                    events += replaySegment(file(SEGMENT_PREFIX, number, SEGMENT_SUFFIX), recoveryHandler);
+                }
+                lastSegment = Math.max(lastSegment, number);
+            }
+            log.info(String.format("Восстановлено игр из снимка: %d, событий из журнала: %d за %d мс",
+                    games, events, (System.nanoTime() - start) / 1_000_000));
+
+            segment = lastSegment + 1;
+            channel = openSegment(segment);
+            running = true;
+            writer = new Thread(this::writeLoop, "game-journal-writer");
+            writer.setDaemon(true);
+            writer.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("не удалось открыть журнал игр", e);
+        }
+    }
+
+    public void gameCreated(GameInfo gameInfo) {
+        if (!running) {
+            return;
+        }
+        byte[] gameId = gameInfo.getGame_id().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = record(GAME_CREATED, gameId, 4 + 4 + 4 + 8);
+        buffer.putInt(gameInfo.getWidth());
+        buffer.putInt(gameInfo.getHeight());
+        buffer.putInt(gameInfo.getMinesCount());
+        buffer.putLong(gameInfo.getSeed());
+        append(buffer);
+    }
+
+    public void turn(String gameId, int row, int col, TurnActionEnum action) {
+        if (!running) {
+            return;
+        }
+        byte[] id = gameId.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = action == TurnActionEnum.OPEN
+                ? record(TURN, id, 4 + 4)
+                : record(TURN_ACTION, id, 4 + 4 + 1);
+        buffer.putInt(row);
+        buffer.putInt(col);
+        if (action != TurnActionEnum.OPEN) {
+            buffer.put((byte) action.ordinal());
+        }
+        append(buffer);
+    }
+
+    /**
+     * Записывает снимок игр. Состояние каждой игры читается под ее монитором, как и при ходе.
+     */
+    public void writeSnapshot(Collection<GeneralGame> generalGames) {
+        if (!running) {
+            return;
+        }
+        Rotation rotation = new Rotation();
+        queue.add(rotation);
+        long snapshot = rotation.segment.join();
+        Path target = file(SNAPSHOT_PREFIX, snapshot, SNAPSHOT_SUFFIX);
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            int games = 0;
+            try (FileChannel snapshotChannel = FileChannel.open(tmp,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 DataOutputStream out = new DataOutputStream(
+                         new BufferedOutputStream(Channels.newOutputStream(snapshotChannel), 1 << 16))) {
+                for (GeneralGame generalGame : generalGames) {
+                    // игры на полях из плиток не журналируются
+                    if (generalGame.isChunked()) {
+                        continue;
+                    }
+                    synchronized (generalGame) {
+                        out.writeBoolean(true);
+                        generalGame.getGameInfo().writeTo(out);
+                    }
+                    games++;
+                }
+                out.writeBoolean(false);
+                out.flush();
+                snapshotChannel.force(true);
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            deleteBefore(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX, snapshot);
+            deleteBefore(SEGMENT_PREFIX, SEGMENT_SUFFIX, snapshot);
+            log.info(String.format("Записан снимок %d игр", games));
+        } catch (IOException e) {
+            log.error("Не удалось записать снимок игр", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        queue.add(STOP);
+        writer.join();
+    }
+
+    private ByteBuffer record(byte type, byte[] gameId, int fieldsLength) {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER + 1 + 2 + gameId.length + fieldsLength);
+        buffer.position(RECORD_HEADER);
+        buffer.put(type);
+        buffer.putShort((short) gameId.length);
+        buffer.put(gameId);
+        return buffer;
+    }
+
+    // заголовок записи: длина и CRC32 данных, чтобы при восстановлении отбросить недописанный хвост
+    private void append(ByteBuffer buffer) {
+        int length = buffer.position() - RECORD_HEADER;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), RECORD_HEADER, length);
+        buffer.putInt(0, length);
+        buffer.putInt(4, (int) crc.getValue());
+        buffer.flip();
+        queue.add(buffer);
+    }
+
+    private void writeLoop() {
+        List<Object> batch = new ArrayList<>();
+        boolean stopped = false;
+        while (!stopped) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(batch);
+            stopped = writeBatch(batch);
+            batch.clear();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.error("Не удалось закрыть журнал игр", e);
+        }
+    }
+
+    private boolean writeBatch(List<Object> batch) {
+        List<ByteBuffer> buffers = new ArrayList<>(batch.size());
+        for (Object item : batch) {
+            if (item instanceof ByteBuffer buffer) {
+                buffers.add(buffer);
+            } else if (item instanceof Rotation rotation) {
+                flush(buffers);
+                rotate(rotation);
+            } else if (item == STOP) {
+                flush(buffers);
+                return true;
+            }
+        }
+        flush(buffers);
+        return false;
+    }
+
+    private void flush(List<ByteBuffer> buffers) {
+        if (buffers.isEmpty()) {
+            return;
+        }
+        try {
+            ByteBuffer[] array = buffers.toArray(new ByteBuffer[0]);
+            ByteBuffer last = array[array.length - 1];
+            while (last.hasRemaining()) {
+                channel.write(array);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            log.error("Не удалось записать события в журнал игр", e);
+        }
+        buffers.clear();
+    }
+
+    private void rotate(Rotation rotation) {
+        try {
+            channel.force(false);
+            channel.close();
+            segment++;
+            channel = openSegment(segment);
+            rotation.segment.complete(segment);
+        } catch (IOException e) {
+            rotation.segment.completeExceptionally(e);
+        }
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        return FileChannel.open(file(SEGMENT_PREFIX, number, SEGMENT_SUFFIX),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private int readSnapshot(Path path, RecoveryHandler recoveryHandler) throws IOException {
+        int games = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            while (in.readBoolean()) {
+                GameInfo gameInfo = GameInfo.readFrom(in);
+                recoveryHandler.restoreGame(gameInfo);
+                games++;
+            }
+        }
+        return games;
+    }
+
+    private int replaySegment(Path path, RecoveryHandler recoveryHandler) throws IOException {
+        int events = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            while (true) {
+                byte[] payload;
+                int crcValue;
+                try {
+                    int length = in.readInt();
+                    crcValue = in.readInt();
+                    // заполненный нулями или мусором хвост после сбоя питания
+                    if (length < MIN_RECORD_LENGTH || length > MAX_RECORD_LENGTH) {
+                        log.warn(String.format("Журнал %s: недопустимая длина записи %d, дальнейшие события пропущены",
+                                path, length));
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    break;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != crcValue) {
+                    log.warn(String.format("Журнал %s: поврежденная запись, дальнейшие события пропущены", path));
+                    break;
+                }
+                if (!replayEvent(ByteBuffer.wrap(payload), recoveryHandler)) {
+                    log.warn(String.format("Журнал %s: запись не разбирается, дальнейшие события пропущены", path));
+                    break;
+                }
+                events++;
+            }
+        }
+        return events;
+    }
+
+    // false, если запись не разбирается: такой хвост журнала считается недописанным
+    private boolean replayEvent(ByteBuffer buffer, RecoveryHandler recoveryHandler) {
+        byte type;
+        String id;
+        GameInfo gameInfo = null;
+        int row = 0;
+        int col = 0;
+        TurnActionEnum action = TurnActionEnum.OPEN;
+        try {
+            type = buffer.get();
+            byte[] gameId = new byte[buffer.getShort()];
+            buffer.get(gameId);
+            id = new String(gameId, StandardCharsets.UTF_8);
+            if (type == GAME_CREATED) {
+                gameInfo = new GameInfo(id, buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getLong());
+            } else if (type == TURN || type == TURN_ACTION) {
+                row = buffer.getInt();
+                col = buffer.getInt();
+                if (type == TURN_ACTION) {
+                    action = TurnActionEnum.values()[buffer.get()];
+                }
+            }
+        } catch (RuntimeException e) {
+            return false;
+        }
+        if (buffer.hasRemaining()) {
+            return false;
+        }
+        if (gameInfo != null) {
+            recoveryHandler.restoreGame(gameInfo);
+        } else if (type == TURN || type == TURN_ACTION) {
+            recoveryHandler.replayTurn(id, row, col, action);
+        }
+        return true;
+    }
+
+    private Path file(String prefix, long number, String suffix) {
+        return dir.resolve(String.format("%s%019d%s", prefix, number, suffix));
+    }
+
+    private long lastNumber(String prefix, String suffix) throws IOException {
+        List<Long> numbers = numbers(prefix, suffix);
+        return numbers.isEmpty() ? -1 : numbers.get(numbers.size() - 1);
+    }
+
+    private List<Long> numbers(String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .map(name -> Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private void deleteBefore(String prefix, String suffix, long number) throws IOException {
+        for (long existing : numbers(prefix, suffix)) {
+            if (existing < number) {
+                Files.deleteIfExists(file(prefix, existing, suffix));
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package test.minesweeper.component;
+
+import test.minesweeper.dto.GeneralGame;
+
+/**
+ * Подписчик на удаление игр из памяти хранилища. Вызывается в отдельном потоке хранилища после удаления
+ * игры, без его мониторов и мониторов игр, события приходят в порядке удаления.
+ */
+public interface GameListener {
+
+    default void gameExpired(GeneralGame generalGame) {
+    }
+
+    default void gameEvicted(GeneralGame generalGame) {
+    }
+
+    // игра выгружена в холодное хранилище и вернется в память при следующем обращении
+    default void gameSpilled(GeneralGame generalGame) {
+    }
+}
@@ -0,0 +1,160 @@
+package test.minesweeper.component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Метрики игр: длительность ходов по типам, создание, удаление и завершение игр,
+ * размер хранилища, длительность очистки устаревших игр и попадания в пул готовых полей.
+ */
+@Component
+public class GameMetrics {
+    private final MeterRegistry meterRegistry;
+
+    private final Timer firstTurnTimer;
+    private final Timer floodFillTimer;
+    private final Timer revealTimer;
+    private final Timer cleanupTimer;
+    private final Counter createdCounter;
+    private final Counter expiredCounter;
+    private final Counter evictedCounter;
+    private final Counter wonCounter;
+    private final Counter lostCounter;
+    private final Counter compactedCounter;
+    private final Counter poolHitCounter;
+    private final Counter poolMissCounter;
+    private final Counter spilledCounter;
+    private final Counter loadedCounter;
+    private final Counter retiredCounter;
+
+    public GameMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.firstTurnTimer = turnTimer("first_turn");
+        this.floodFillTimer = turnTimer("flood_fill");
+        this.revealTimer = turnTimer("reveal");
+        this.cleanupTimer = Timer.builder("minesweeper.games.cleanup")
+                .description("Длительность очистки устаревших игр")
+                .register(meterRegistry);
+        this.createdCounter = Counter.builder("minesweeper.games.created").register(meterRegistry);
+        this.expiredCounter = removedCounter("expired");
+        this.evictedCounter = removedCounter("evicted");
+        this.wonCounter = completedCounter("won");
+        this.lostCounter = completedCounter("lost");
+        this.compactedCounter = Counter.builder("minesweeper.games.compacted").register(meterRegistry);
+        this.poolHitCounter = poolCounter("hit");
+        this.poolMissCounter = poolCounter("miss");
+        this.spilledCounter = removedCounter("spilled");
+        this.loadedCounter = Counter.builder("minesweeper.cold.loaded").register(meterRegistry);
+        this.retiredCounter = Counter.builder("minesweeper.cold.retired").register(meterRegistry);
+    }
+
+    public void registerStore(GameComponent gameComponent) {
+        Gauge.builder("minesweeper.games.live", gameComponent, GameComponent::getGameCount)
+                .description("Количество живых игр")
+                .register(meterRegistry);
+        Gauge.builder("minesweeper.games.cells", gameComponent, GameComponent::getUsedCells)
+                .description("Суммарное количество клеток живых игр")
+                .register(meterRegistry);
+        Gauge.builder("minesweeper.games.offheap.bytes", gameComponent, GameComponent::getOffHeapBytes)
+                .description("Память вне кучи под поля игр")
+                .register(meterRegistry);
+    }
+
+    public void registerColdStore(GameColdStore gameColdStore) {
+        Gauge.builder("minesweeper.cold.games", gameColdStore, GameColdStore::getGameCount)
+                .description("Количество игр в холодном хранилище на диске")
+                .register(meterRegistry);
+        Gauge.builder("minesweeper.cold.segments", gameColdStore, GameColdStore::getSegmentCount)
+                .description("Количество сегментов холодного хранилища")
+                .register(meterRegistry);
+    }
+
+    // тип хода: первый ход с генерацией поля, заливка пустой области или открытие одной клетки
+    public void recordTurn(boolean firstTurn, int revealedCells, long nanos) {
+        Timer timer = firstTurn ? firstTurnTimer : revealedCells > 1 ? floodFillTimer : revealTimer;
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordCleanup(long nanos) {
+        cleanupTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // пересылка запроса узлу-владельцу игры, outcome=failed - узел не ответил
+    public void recordForward(String node, boolean success, long nanos) {
+        Timer.builder("minesweeper.cluster.forwards")
+                .description("Длительность пересылки запроса узлу-владельцу игры")
+                .tag("node", node)
+                .tag("outcome", success ? "success" : "failed")
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void gameCreated() {
+        createdCounter.increment();
+    }
+
+    public void gameExpired() {
+        expiredCounter.increment();
+    }
+
+    public void gameEvicted() {
+        evictedCounter.increment();
+    }
+
+    public void gameCompacted() {
+        compactedCounter.increment();
+    }
+
+    public void gameSpilled() {
+        spilledCounter.increment();
+    }
+
+    public void gameLoaded() {
+        loadedCounter.increment();
+    }
+
+    public void gamesRetired(int count) {
+        retiredCounter.increment(count);
+    }
+
+    public void poolHit() {
+        poolHitCounter.increment();
+    }
+
+    public void poolMissed() {
+        poolMissCounter.increment();
+    }
+
+    public void gameWon() {
+        wonCounter.increment();
+    }
+
+    public void gameLost() {
+        lostCounter.increment();
+    }
+
+    private Timer turnTimer(String type) {
+        return Timer.builder("minesweeper.turn")
+                .description("Длительность хода")
+                .tag("type", type)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private Counter removedCounter(String reason) {
+        return Counter.builder("minesweeper.games.removed").tag("reason", reason).register(meterRegistry);
+    }
+
+    private Counter completedCounter(String result) {
+        return Counter.builder("minesweeper.games.completed").tag("result", result).register(meterRegistry);
+    }
+
+    private Counter poolCounter(String result) {
+        return Counter.builder("minesweeper.pool.requests").tag("result", result).register(meterRegistry);
+    }
+}
@@ -0,0 +1,160 @@
+package test.minesweeper.component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import test.minesweeper.configuration.GameProperties;
+import test.minesweeper.dto.GameBoard;
+import test.minesweeper.dto.GameInfo;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Пул заранее сгенерированных полей для стандартных конфигураций ("9x9/10", "16x16/40", "30x16/99").
+ * <p>
+ * Отдельный поток генерирует расстановки мин из случайных зерен и держит очередь каждой конфигурации
+ * заполненной до {@link GameProperties#getPoolSize()}. Игра, созданная из пула, получает зерно вместе
+ * с готовым полем, поэтому журнал и восстановление сжатого поля работают так же, как для обычной игры,
+ * а первому ходу остается только убрать мину из выбранной клетки.
+ */
+@Slf4j
+@Component
+public class GamePool {
+
+    public static final class Layout {
+        private final long seed;
+        private final GameBoard board;
+
+        private Layout(long seed, GameBoard board) {
+            this.seed = seed;
+            this.board = board;
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        public GameBoard getBoard() {
+            return board;
+        }
+    }
+
+    private final GameMetrics gameMetrics;
+    private final int poolSize;
+    // ключ - упакованные ширина, высота и количество мин
+    private final Map<Long, BlockingQueue<Layout>> layouts;
+    // разрешения на пополнение: выдаются при каждом взятии поля из пула
+    private final Semaphore refill = new Semaphore(0);
+    private volatile boolean running;
+    private Thread filler;
+
+    public GamePool(GameProperties gameProperties, GameMetrics gameMetrics) {
+        this.gameMetrics = gameMetrics;
+        this.poolSize = gameProperties.getPoolSize();
+        Map<Long, BlockingQueue<Layout>> layouts = new HashMap<>();
+        if (poolSize > 0) {
+            for (String configuration : gameProperties.getPooledBoards()) {
+                layouts.put(parseConfiguration(configuration), new ArrayBlockingQueue<>(poolSize));
+            }
+        }
+        this.layouts = Collections.unmodifiableMap(layouts);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (layouts.isEmpty()) {
+            return;
+        }
+        running = true;
+        filler = new Thread(this::fill, "game-pool-filler");
+        filler.setDaemon(true);
+        filler.start();
+        String message = String.format("Пул полей запущен для %d конфигураций по %d полей", layouts.size(), poolSize);
+        log.info(message);
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        refill.release();
+        filler.join();
+    }
+
+    /**
+     * Забирает готовое поле заданной конфигурации.
+     *
+     * @return null, если конфигурация не стандартная или пул временно пуст
+     */
+    public Layout poll(int width, int height, int minesCount) {
+        BlockingQueue<Layout> queue = layouts.get(key(width, height, minesCount));
+        if (queue == null) {
+            return null;
+        }
+        Layout layout = queue.poll();
+        if (layout == null) {
+            gameMetrics.poolMissed();
+        } else {
+            gameMetrics.poolHit();
+        }
+        refill.release();
+        return layout;
+    }
+
+    public int getAvailable(int width, int height, int minesCount) {
+        BlockingQueue<Layout> queue = layouts.get(key(width, height, minesCount));
+        return queue == null ? 0 : queue.size();
+    }
+
+    private void fill() {
+        while (running) {
+            for (Map.Entry<Long, BlockingQueue<Layout>> entry : layouts.entrySet()) {
+                long key = entry.getKey();
+                int width = (int) (key >>> 42);
+                int height = (int) (key >>> 21) & 0x1FFFFF;
+                int minesCount = (int) key & 0x1FFFFF;
+                BlockingQueue<Layout> queue = entry.getValue();
+                while (running && queue.remainingCapacity() > 0) {
+                    long seed = ThreadLocalRandom.current().nextLong();
+                    queue.offer(new Layout(seed, GameInfo.generateBoard(width, height, minesCount, seed)));
+                }
+            }
+            // ждем, пока из пула не заберут хотя бы одно поле; накопившиеся разрешения покрываются одним проходом
+            refill.acquireUninterruptibly();
+            refill.drainPermits();
+        }
+    }
+
+    // конфигурация в виде "<ширина>x<высота>/<мины>"
+    private static long parseConfiguration(String configuration) {
+        String[] sizeAndMines = configuration.trim().split("/");
+        String[] size = sizeAndMines[0].split("x");
+        if (sizeAndMines.length != 2 || size.length != 2) {
+            throw new IllegalArgumentException(String.format("некорректная конфигурация поля %s", configuration));
+        }
+        int width = Integer.parseInt(size[0].trim());
+        int height = Integer.parseInt(size[1].trim());
+        int minesCount = Integer.parseInt(sizeAndMines[1].trim());
+        if (width < 1 || height < 1 || minesCount < 0 || minesCount > (long) width * height - 1
+                || key(width, height, minesCount) < 0) {
+            throw new IllegalArgumentException(String.format("некорректная конфигурация поля %s", configuration));
+        }
+        return key(width, height, minesCount);
+    }
+
+    private static long key(int width, int height, int minesCount) {
+        if (width > 0x1FFFFF || height > 0x1FFFFF || minesCount > 0x1FFFFF) {
+            return -1;
+        }
+        return ((long) width << 42) | ((long) height << 21) | minesCount;
+    }
+}
@@ -6,13 +6,35 @@ import org.springframework.stereotype.Component;
 @Component
 public class GameScheduleTask {
     private final GameComponent gameComponent;
+    private final GameJournal gameJournal;
+    private final GameColdStore gameColdStore;
 
-    public GameScheduleTask(GameComponent gameComponent) {
+    public GameScheduleTask(GameComponent gameComponent, GameJournal gameJournal, GameColdStore gameColdStore) {
         this.gameComponent = gameComponent;
+        this.gameJournal = gameJournal;
+        this.gameColdStore = gameColdStore;
     }
 
-    @Scheduled(fixedRate = 10000)
+    @Scheduled(fixedRateString = "#{@gameProperties.expiryTick.toMillis()}")
     public void deleteGame() {
         gameComponent.deleteGame();
     }
+
+    @Scheduled(fixedRateString = "#{@gameProperties.compactInterval.toMillis()}",
+            initialDelayString = "#{@gameProperties.compactInterval.toMillis()}")
+    public void compactGames() {
+        gameComponent.compactIdleGames();
+    }
+
+    @Scheduled(fixedRateString = "#{@journalProperties.snapshotInterval.toMillis()}",
+            initialDelayString = "#{@journalProperties.snapshotInterval.toMillis()}")
+    public void snapshotGames() {
+        gameJournal.writeSnapshot(gameComponent.getGames());
+    }
+
+    @Scheduled(fixedRateString = "#{@coldStoreProperties.cleanupInterval.toMillis()}",
+            initialDelayString = "#{@coldStoreProperties.cleanupInterval.toMillis()}")
+    public void deleteColdGames() {
+        gameColdStore.deleteExpired();
+    }
 }
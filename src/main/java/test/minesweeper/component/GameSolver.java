@@ -0,0 +1,612 @@
+package test.minesweeper.component;
+
+import org.springframework.stereotype.Component;
+import test.minesweeper.configuration.GameProperties;
+import test.minesweeper.dto.GameBoard;
+
+import java.util.Arrays;
+
+/**
+ * Решатель по открытой части поля: для каждой закрытой клетки границы (соседней с открытым числом)
+ * вычисляется вероятность мины.
+ * <p>
+ * Сначала ограничения "среди этих клеток ровно N мин" упрощаются распространением: тривиальные ограничения
+ * (0 мин или все клетки - мины) помечают клетки в битовых масках известных мин и безопасных клеток,
+ * ограничение, клетки которого целиком входят в другое, вычитается из него. Оставшиеся неизвестные клетки
+ * разбиваются на независимые компоненты, каждая перебирается с отсечениями, а результаты компонент
+ * сворачиваются по числу мин с учетом числа сочетаний мин во внутренних закрытых клетках.
+ * Перебор ограничен по времени, при превышении вероятности оцениваются по ограничениям.
+ */
+@Component
+public class GameSolver {
+    // компоненты больше этого размера не перебираются: глубина рекурсии перебора равна размеру компоненты
+    private static final int MAX_COMPONENT_CELLS = 2048;
+    private static final int TIME_CHECK_MASK = 1023;
+
+    public static final class Solution {
+        private final int[] cells;
+        private final double[] probabilities;
+        private final int otherCells;
+        private final double otherProbability;
+        private final boolean exact;
+        // клетки границы, безопасность которых доказана распространением ограничений
+        private final long[] provedSafe;
+
+        private Solution(int[] cells, double[] probabilities, int otherCells, double otherProbability, boolean exact,
+                         long[] provedSafe) {
+            this.cells = cells;
+            this.probabilities = probabilities;
+            this.otherCells = otherCells;
+            this.otherProbability = otherProbability;
+            this.exact = exact;
+            this.provedSafe = provedSafe;
+        }
+
+        // индексы закрытых клеток границы на поле
+        public int[] getCells() {
+            return cells;
+        }
+
+        public double[] getProbabilities() {
+            return probabilities;
+        }
+
+        // количество закрытых клеток вне границы, вероятность мины у них одинаковая
+        public int getOtherCells() {
+            return otherCells;
+        }
+
+        public double getOtherProbability() {
+            return otherProbability;
+        }
+
+        // false, если перебор не уложился в лимит времени и вероятности оценены приближенно
+        public boolean isExact() {
+            return exact;
+        }
+
+        // клетка границы с номером i безопасна наверняка: доказана распространением или точным перебором,
+        // нулевая оценка после превышения лимита времени доказательством не считается
+        public boolean isSafe(int i) {
+            return probabilities[i] == 0 && (exact || isSet(provedSafe, i));
+        }
+    }
+
+    private final long timeLimitNanos;
+
+    public GameSolver(GameProperties gameProperties) {
+        this.timeLimitNanos = gameProperties.getSolverTimeLimit().toNanos();
+    }
+
+    public Solution solve(GameBoard board, int minesCount) {
+        return new Run(board, minesCount, System.nanoTime() + timeLimitNanos).solve();
+    }
+
+    // состояние одного решения, не разделяется между потоками
+    private static final class Run {
+        private final GameBoard board;
+        private final int minesCount;
+        private final long deadline;
+
+        private int[] cells = new int[64];
+        private int frontierSize;
+        private int closedCells;
+        private int[][] constraintCells = new int[64][];
+        private int[] constraintMines = new int[64];
+        private int constraintsCount;
+        private long[] knownMines;
+        private long[] knownSafe;
+
+        // номера ограничений внутри перебираемой компоненты, -1 вне ее
+        private int[] localIds;
+        private boolean aborted;
+        private long nodes;
+
+        private Run(GameBoard board, int minesCount, long deadline) {
+            this.board = board;
+            this.minesCount = minesCount;
+            this.deadline = deadline;
+        }
+
+        private Solution solve() {
+            collectConstraints();
+            knownMines = new long[(frontierSize + 63) >>> 6];
+            knownSafe = new long[knownMines.length];
+            propagate();
+
+            int otherCells = closedCells - frontierSize;
+            int remainingMines = minesCount - countBits(knownMines);
+            double[] probabilities = new double[frontierSize];
+            double otherProbability = enumerate(remainingMines, otherCells, probabilities);
+            if (aborted) {
+                otherProbability = estimate(remainingMines, otherCells, probabilities);
+            }
+            for (int i = 0; i < frontierSize; i++) {
+                if (isSet(knownMines, i)) {
+                    probabilities[i] = 1;
+                } else if (isSet(knownSafe, i)) {
+                    probabilities[i] = 0;
+                }
+            }
+            return new Solution(Arrays.copyOf(cells, frontierSize), probabilities, otherCells, otherProbability, !aborted,
+                    knownSafe);
+        }
+
+        // ограничение на каждую открытую клетку с закрытыми соседями, флаги игрока не учитываются
+        private void collectConstraints() {
+            int width = board.getWidth();
+            int height = board.getHeight();
+            // номер клетки границы + 1, 0 - клетка не на границе
+            int[] frontierIds = new int[board.size()];
+            int[] neighbours = new int[8];
+            for (int index = 0; index < board.size(); index++) {
+                if (!board.isRevealed(index)) {
+                    closedCells++;
+                    continue;
+                }
+                int row = index / width;
+                int col = index - row * width;
+                int closed = 0;
+                for (int i = Math.max(row - 1, 0); i <= Math.min(row + 1, height - 1); i++) {
+                    for (int j = Math.max(col - 1, 0); j <= Math.min(col + 1, width - 1); j++) {
+                        int neighbour = i * width + j;
+                        if (board.isRevealed(neighbour)) {
+                            continue;
+                        }
+                        if (frontierIds[neighbour] == 0) {
+                            if (frontierSize == cells.length) {
+                                cells = Arrays.copyOf(cells, cells.length * 2);
+                            }
+                            cells[frontierSize++] = neighbour;
+                            frontierIds[neighbour] = frontierSize;
+                        }
+                        closed = insertSorted(neighbours, closed, frontierIds[neighbour] - 1);
+                    }
+                }
+                if (closed > 0) {
+                    addConstraint(Arrays.copyOf(neighbours, closed), board.getValue(index));
+                }
+            }
+        }
+
+        private void addConstraint(int[] vars, int mines) {
+            if (constraintsCount == constraintCells.length) {
+                constraintCells = Arrays.copyOf(constraintCells, constraintsCount * 2);
+                constraintMines = Arrays.copyOf(constraintMines, constraintsCount * 2);
+            }
+            constraintCells[constraintsCount] = vars;
+            constraintMines[constraintsCount] = mines;
+            constraintsCount++;
+        }
+
+        // распространение до неподвижной точки; снятое ограничение обнуляется
+        private void propagate() {
+            boolean changed = true;
+            while (changed) {
+                changed = simplify();
+                if (!changed) {
+                    changed = reduceSubsets();
+                }
+            }
+        }
+
+        private boolean simplify() {
+            boolean changed = false;
+            for (int c = 0; c < constraintsCount; c++) {
+                int[] vars = constraintCells[c];
+                if (vars == null) {
+                    continue;
+                }
+                int mines = constraintMines[c];
+                int unknown = 0;
+                for (int var : vars) {
+                    if (isSet(knownMines, var)) {
+                        mines--;
+                    } else if (!isSet(knownSafe, var)) {
+                        vars[unknown++] = var;
+                    }
+                }
+                if (unknown == 0) {
+                    constraintCells[c] = null;
+                    continue;
+                }
+                if (unknown < vars.length) {
+                    vars = Arrays.copyOf(vars, unknown);
+                }
+                constraintCells[c] = vars;
+                constraintMines[c] = mines;
+                if (mines == 0 || mines == unknown) {
+                    long[] known = mines == 0 ? knownSafe : knownMines;
+                    for (int var : vars) {
+                        set(known, var);
+                    }
+                    constraintCells[c] = null;
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        // ограничение A, клетки которого входят в B, заменяет B на B \ A с разностью мин
+        private boolean reduceSubsets() {
+            int[][] varConstraints = buildVarConstraints();
+            boolean changed = false;
+            for (int a = 0; a < constraintsCount; a++) {
+                int[] subset = constraintCells[a];
+                if (subset == null) {
+                    continue;
+                }
+                for (int b : varConstraints[subset[0]]) {
+                    int[] superset = constraintCells[b];
+                    if (b == a || superset == null || superset.length < subset.length
+                            || !containsAll(superset, subset)) {
+                        continue;
+                    }
+                    constraintCells[b] = superset.length == subset.length ? null : difference(superset, subset);
+                    constraintMines[b] -= constraintMines[a];
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        private int[][] buildVarConstraints() {
+            int[] degrees = new int[frontierSize];
+            for (int c = 0; c < constraintsCount; c++) {
+                if (constraintCells[c] != null) {
+                    for (int var : constraintCells[c]) {
+                        degrees[var]++;
+                    }
+                }
+            }
+            int[][] varConstraints = new int[frontierSize][];
+            for (int var = 0; var < frontierSize; var++) {
+                varConstraints[var] = new int[degrees[var]];
+                degrees[var] = 0;
+            }
+            for (int c = 0; c < constraintsCount; c++) {
+                if (constraintCells[c] != null) {
+                    for (int var : constraintCells[c]) {
+                        varConstraints[var][degrees[var]++] = c;
+                    }
+                }
+            }
+            return varConstraints;
+        }
+
+        /**
+         * Точные вероятности перебором компонент. Вес каждого числа мин на границе m умножается
+         * на число сочетаний C(otherCells, remainingMines - m) для внутренних клеток.
+         *
+         * @return вероятность мины во внутренней клетке
+         */
+        private double enumerate(int remainingMines, int otherCells, double[] probabilities) {
+            int[][] varConstraints = buildVarConstraints();
+            int[] componentIds = new int[frontierSize];
+            Arrays.fill(componentIds, -1);
+            int[][] components = new int[8][];
+            int componentsCount = 0;
+            for (int var = 0; var < frontierSize; var++) {
+                if (componentIds[var] >= 0 || isSet(knownMines, var) || isSet(knownSafe, var)) {
+                    continue;
+                }
+                if (componentsCount == components.length) {
+                    components = Arrays.copyOf(components, componentsCount * 2);
+                }
+                components[componentsCount] = collectComponent(var, componentsCount, componentIds, varConstraints);
+                componentsCount++;
+            }
+
+            // решения каждой компоненты по числу мин в ней
+            double[][] ways = new double[componentsCount][];
+            double[][][] cellMines = new double[componentsCount][][];
+            for (int c = 0; c < componentsCount; c++) {
+                if (components[c].length > MAX_COMPONENT_CELLS) {
+                    aborted = true;
+                    return 0;
+                }
+                Enumeration component = new Enumeration(components[c], varConstraints, remainingMines);
+                component.enumerate(0, 0);
+                if (aborted) {
+                    return 0;
+                }
+                ways[c] = component.ways;
+                cellMines[c] = component.cellMines;
+            }
+
+            double[] weights = combinationWeights(remainingMines, otherCells);
+            // свертки компонент слева и справа от каждой для вероятностей внутри компоненты
+            double[][] prefix = new double[componentsCount + 1][];
+            prefix[0] = new double[]{1};
+            for (int c = 0; c < componentsCount; c++) {
+                if (System.nanoTime() > deadline) {
+                    aborted = true;
+                    return 0;
+                }
+                prefix[c + 1] = convolve(prefix[c], ways[c], remainingMines);
+            }
+            double[] suffix = new double[]{1};
+            for (int c = componentsCount - 1; c >= 0; c--) {
+                if (System.nanoTime() > deadline) {
+                    aborted = true;
+                    return 0;
+                }
+                double[] others = convolve(prefix[c], suffix, remainingMines);
+                double[] componentWeights = new double[ways[c].length];
+                double total = 0;
+                for (int k = 0; k < ways[c].length; k++) {
+                    for (int m = 0; m < others.length && k + m <= remainingMines; m++) {
+                        componentWeights[k] += others[m] * weights[k + m];
+                    }
+                    total += ways[c][k] * componentWeights[k];
+                }
+                if (!(total > 0)) {
+                    aborted = true;
+                    return 0;
+                }
+                int[] vars = components[c];
+                for (int i = 0; i < vars.length; i++) {
+                    double mine = 0;
+                    for (int k = 0; k < componentWeights.length; k++) {
+                        mine += cellMines[c][i][k] * componentWeights[k];
+                    }
+                    probabilities[vars[i]] = mine / total;
+                }
+                suffix = convolve(suffix, ways[c], remainingMines);
+            }
+
+            if (otherCells == 0) {
+                return 0;
+            }
+            double[] all = prefix[componentsCount];
+            double total = 0;
+            double otherMines = 0;
+            for (int m = 0; m < all.length; m++) {
+                double weight = all[m] * weights[m];
+                total += weight;
+                otherMines += weight * (remainingMines - m);
+            }
+            if (!(total > 0)) {
+                aborted = true;
+                return 0;
+            }
+            return otherMines / total / otherCells;
+        }
+
+        private int[] collectComponent(int start, int componentId, int[] componentIds, int[][] varConstraints) {
+            int[] vars = new int[8];
+            int size = 0;
+            vars[size++] = start;
+            componentIds[start] = componentId;
+            // обход в ширину: соседние в порядке перебора клетки чаще входят в одно ограничение
+            for (int head = 0; head < size; head++) {
+                for (int c : varConstraints[vars[head]]) {
+                    for (int var : constraintCells[c]) {
+                        if (componentIds[var] < 0) {
+                            if (size == vars.length) {
+                                vars = Arrays.copyOf(vars, size * 2);
+                            }
+                            vars[size++] = var;
+                            componentIds[var] = componentId;
+                        }
+                    }
+                }
+            }
+            return Arrays.copyOf(vars, size);
+        }
+
+        // относительные веса C(otherCells, remainingMines - m), максимальный вес равен 1
+        private double[] combinationWeights(int remainingMines, int otherCells) {
+            double[] logWeights = new double[Math.max(remainingMines, 0) + 1];
+            double max = Double.NEGATIVE_INFINITY;
+            double logCombinations = 0;
+            for (int m = Math.max(remainingMines - otherCells, 0); m <= remainingMines; m++) {
+                int inside = remainingMines - m;
+                logWeights[m] = logCombinations;
+                max = Math.max(max, logCombinations);
+                // переход от C(n, k) к C(n, k - 1)
+                logCombinations += Math.log(inside) - Math.log(otherCells - inside + 1);
+            }
+            double[] weights = new double[logWeights.length];
+            for (int m = Math.max(remainingMines - otherCells, 0); m <= remainingMines; m++) {
+                weights[m] = Math.exp(logWeights[m] - max);
+            }
+            return weights;
+        }
+
+        // свертка количеств решений по числу мин, нормированная для защиты от переполнения
+        private static double[] convolve(double[] left, double[] right, int maxMines) {
+            int length = Math.max(Math.min(left.length + right.length - 1, maxMines + 1), 1);
+            double[] result = new double[length];
+            double max = 0;
+            for (int i = 0; i < left.length && i < length; i++) {
+                if (left[i] == 0) {
+                    continue;
+                }
+                for (int j = 0; j < right.length && i + j < length; j++) {
+                    result[i + j] += left[i] * right[j];
+                }
+            }
+            for (double value : result) {
+                max = Math.max(max, value);
+            }
+            if (max > 0) {
+                for (int i = 0; i < length; i++) {
+                    result[i] /= max;
+                }
+            }
+            return result;
+        }
+
+        // оценка без перебора: максимальная плотность мин среди ограничений клетки
+        private double estimate(int remainingMines, int otherCells, double[] probabilities) {
+            int[][] varConstraints = buildVarConstraints();
+            int unknown = otherCells;
+            for (int var = 0; var < frontierSize; var++) {
+                if (!isSet(knownMines, var) && !isSet(knownSafe, var)) {
+                    unknown++;
+                }
+            }
+            double density = unknown == 0 ? 0 : Math.min(1, Math.max(0, (double) remainingMines / unknown));
+            for (int var = 0; var < frontierSize; var++) {
+                double probability = density;
+                if (varConstraints[var].length > 0) {
+                    probability = 0;
+                    for (int c : varConstraints[var]) {
+                        probability = Math.max(probability, (double) constraintMines[c] / constraintCells[c].length);
+                    }
+                }
+                probabilities[var] = probability;
+            }
+            return density;
+        }
+
+        private boolean timeIsOver() {
+            return (++nodes & TIME_CHECK_MASK) == 0 && System.nanoTime() > deadline;
+        }
+
+        // перебор одной компоненты: счетчики мин и незаполненных клеток по каждому ограничению
+        private final class Enumeration {
+            private final int[] vars;
+            private final int[][] cellConstraints;
+            private final int[] constraintLimits;
+            private final int[] assignedMines;
+            private final int[] unassigned;
+            private final boolean[] mines;
+            private final int maxMines;
+            private final double[] ways;
+            private final double[][] cellMines;
+
+            private Enumeration(int[] vars, int[][] varConstraints, int remainingMines) {
+                this.vars = vars;
+                if (localIds == null) {
+                    localIds = new int[constraintsCount];
+                    Arrays.fill(localIds, -1);
+                }
+                int[] globalIds = new int[8];
+                int localCount = 0;
+                cellConstraints = new int[vars.length][];
+                for (int i = 0; i < vars.length; i++) {
+                    int[] constraints = varConstraints[vars[i]];
+                    cellConstraints[i] = new int[constraints.length];
+                    for (int j = 0; j < constraints.length; j++) {
+                        int c = constraints[j];
+                        if (localIds[c] < 0) {
+                            if (localCount == globalIds.length) {
+                                globalIds = Arrays.copyOf(globalIds, localCount * 2);
+                            }
+                            globalIds[localCount] = c;
+                            localIds[c] = localCount++;
+                        }
+                        cellConstraints[i][j] = localIds[c];
+                    }
+                }
+                constraintLimits = new int[localCount];
+                unassigned = new int[localCount];
+                for (int local = 0; local < localCount; local++) {
+                    int c = globalIds[local];
+                    constraintLimits[local] = constraintMines[c];
+                    unassigned[local] = constraintCells[c].length;
+                    // массив переиспользуется следующей компонентой
+                    localIds[c] = -1;
+                }
+                assignedMines = new int[localCount];
+                mines = new boolean[vars.length];
+                maxMines = Math.min(vars.length, Math.max(remainingMines, 0));
+                ways = new double[maxMines + 1];
+                cellMines = new double[vars.length][maxMines + 1];
+            }
+
+            private void enumerate(int position, int placed) {
+                if (aborted || timeIsOver()) {
+                    aborted = true;
+                    return;
+                }
+                if (position == vars.length) {
+                    ways[placed]++;
+                    for (int i = 0; i < vars.length; i++) {
+                        if (mines[i]) {
+                            cellMines[i][placed]++;
+                        }
+                    }
+                    return;
+                }
+                for (int mine = 0; mine <= 1; mine++) {
+                    if (placed + mine > maxMines) {
+                        break;
+                    }
+                    boolean consistent = true;
+                    for (int c : cellConstraints[position]) {
+                        assignedMines[c] += mine;
+                        unassigned[c]--;
+                        if (assignedMines[c] > constraintLimits[c]
+                                || assignedMines[c] + unassigned[c] < constraintLimits[c]) {
+                            consistent = false;
+                        }
+                    }
+                    if (consistent) {
+                        mines[position] = mine == 1;
+                        enumerate(position + 1, placed + mine);
+                        mines[position] = false;
+                    }
+                    for (int c : cellConstraints[position]) {
+                        assignedMines[c] -= mine;
+                        unassigned[c]++;
+                    }
+                }
+            }
+        }
+    }
+
+    private static int insertSorted(int[] values, int size, int value) {
+        int i = size;
+        while (i > 0 && values[i - 1] > value) {
+            values[i] = values[i - 1];
+            i--;
+        }
+        values[i] = value;
+        return size + 1;
+    }
+
+    private static boolean containsAll(int[] superset, int[] subset) {
+        int j = 0;
+        for (int i = 0; i < superset.length && j < subset.length; i++) {
+            if (superset[i] == subset[j]) {
+                j++;
+            } else if (superset[i] > subset[j]) {
+                return false;
+            }
+        }
+        return j == subset.length;
+    }
+
+    private static int[] difference(int[] superset, int[] subset) {
+        int[] result = new int[superset.length - subset.length];
+        int size = 0;
+        int j = 0;
+        for (int value : superset) {
+            if (j < subset.length && subset[j] == value) {
+                j++;
+            } else {
+                result[size++] = value;
+            }
+        }
+        return result;
+    }
+
+    private static boolean isSet(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    private static int countBits(long[] bits) {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+}
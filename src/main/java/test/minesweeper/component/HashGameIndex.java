@@ -0,0 +1,36 @@
+package test.minesweeper.component;
+
+import test.minesweeper.dto.GeneralGame;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+
+class HashGameIndex implements GameIndex {
+    private final ConcurrentHashMap<String, GeneralGame> games = new ConcurrentHashMap<>();
+
+    @Override
+    public GeneralGame get(String gameId) {
+        return games.get(gameId);
+    }
+
+    @Override
+    public GeneralGame put(String gameId, GeneralGame generalGame) {
+        return games.put(gameId, generalGame);
+    }
+
+    @Override
+    public boolean remove(String gameId, GeneralGame generalGame) {
+        return games.remove(gameId, generalGame);
+    }
+
+    @Override
+    public Collection<GeneralGame> values() {
+        return Collections.unmodifiableCollection(games.values());
+    }
+
+    @Override
+    public int size() {
+        return games.size();
+    }
+}
@@ -0,0 +1,184 @@
+package test.minesweeper.component;
+
+import test.minesweeper.dto.GameIds;
+import test.minesweeper.dto.GeneralGame;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Индекс с открытой адресацией и линейным пробированием по 64-битному ключу идентификатора
+ * ({@link GameIds#key}): два параллельных массива вместо узла хеш-таблицы на каждую игру.
+ * <p>
+ * Чтение идет без блокировки по оптимистичной метке {@link StampedLock} и повторяется под блокировкой чтения,
+ * только если таблицу изменили во время поиска. Изменения выполняются под блокировкой записи, удаление
+ * сдвигает следующие элементы цепочки назад, поэтому надгробий в таблице нет.
+ */
+class LongGameIndex implements GameIndex {
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    private static final class Table {
+        private final long[] keys;
+        // null - свободная ячейка
+        private final GeneralGame[] games;
+
+        private Table(int capacity) {
+            this.keys = new long[capacity];
+            this.games = new GeneralGame[capacity];
+        }
+    }
+
+    private final StampedLock lock = new StampedLock();
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+    private int size;
+
+    @Override
+    public GeneralGame get(String gameId) {
+        long key = GameIds.key(gameId);
+        long stamp = lock.tryOptimisticRead();
+        GeneralGame generalGame = find(table, key, gameId);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                generalGame = find(table, key, gameId);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return generalGame;
+    }
+
+    @Override
+    public GeneralGame put(String gameId, GeneralGame generalGame) {
+        long key = GameIds.key(gameId);
+        long stamp = lock.writeLock();
+        try {
+            Table current = table;
+            int mask = current.keys.length - 1;
+            int slot = slot(key, mask);
+            // одинаковый ключ у разных строк допустим: игры различаются по идентификатору
+            while (current.games[slot] != null) {
+                if (current.keys[slot] == key && gameId.equals(current.games[slot].getGameId())) {
+                    GeneralGame previous = current.games[slot];
+                    current.games[slot] = generalGame;
+                    return previous;
+                }
+                slot = (slot + 1) & mask;
+            }
+            current.keys[slot] = key;
+            current.games[slot] = generalGame;
+            size++;
+            // заполнение не выше половины держит цепочки пробирования короткими
+            if (size > current.keys.length >>> 1) {
+                table = resize(current);
+            }
+            return null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean remove(String gameId, GeneralGame generalGame) {
+        long key = GameIds.key(gameId);
+        long stamp = lock.writeLock();
+        try {
+            Table current = table;
+            int mask = current.keys.length - 1;
+            int hole = slot(key, mask);
+            while (current.games[hole] != generalGame) {
+                if (current.games[hole] == null) {
+                    return false;
+                }
+                hole = (hole + 1) & mask;
+            }
+            current.games[hole] = null;
+            for (int slot = (hole + 1) & mask; current.games[slot] != null; slot = (slot + 1) & mask) {
+                int home = slot(current.keys[slot], mask);
+                // элемент переносится в дыру, если она лежит между его домашней ячейкой и текущей
+                if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                    current.keys[hole] = current.keys[slot];
+                    current.games[hole] = current.games[slot];
+                    current.games[slot] = null;
+                    hole = slot;
+                }
+            }
+            size--;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Collection<GeneralGame> values() {
+        long stamp = lock.readLock();
+        try {
+            List<GeneralGame> games = new ArrayList<>(size);
+            for (GeneralGame generalGame : table.games) {
+                if (generalGame != null) {
+                    games.add(generalGame);
+                }
+            }
+            return Collections.unmodifiableList(games);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public int size() {
+        long stamp = lock.tryOptimisticRead();
+        int current = size;
+        return lock.validate(stamp) ? current : readSize();
+    }
+
+    private int readSize() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static GeneralGame find(Table current, long key, String gameId) {
+        int mask = current.keys.length - 1;
+        for (int slot = slot(key, mask), probes = 0; probes <= mask; slot = (slot + 1) & mask, probes++) {
+            GeneralGame generalGame = current.games[slot];
+            if (generalGame == null) {
+                return null;
+            }
+            if (current.keys[slot] == key && gameId.equals(generalGame.getGameId())) {
+                return generalGame;
+            }
+        }
+        return null;
+    }
+
+    private static Table resize(Table current) {
+        Table resized = new Table(current.keys.length << 1);
+        int mask = resized.keys.length - 1;
+        for (int i = 0; i < current.keys.length; i++) {
+            if (current.games[i] != null) {
+                int slot = slot(current.keys[i], mask);
+                while (resized.games[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                resized.keys[slot] = current.keys[i];
+                resized.games[slot] = current.games[i];
+            }
+        }
+        return resized;
+    }
+
+    private static int slot(long key, int mask) {
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+}
@@ -0,0 +1,25 @@
+package test.minesweeper.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "minesweeper.cluster")
+public class ClusterProperties {
+    // кластерный режим: игры распределяются по узлам кольцом согласованного хеширования
+    private boolean enabled = false;
+    // идентификатор этого узла, один из ключей nodes
+    private String nodeId = "";
+    // статический состав кластера: идентификатор узла -> адрес API с context-path, например http://localhost:9500/api
+    private Map<String, String> nodes = new LinkedHashMap<>();
+    // точек каждого узла на кольце, чем больше, тем равномернее делятся шарды
+    private int virtualNodes = 128;
+    // таймаут пересылки запроса узлу-владельцу игры
+    private Duration forwardTimeout = Duration.ofSeconds(5);
+}
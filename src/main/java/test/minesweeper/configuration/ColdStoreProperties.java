@@ -0,0 +1,23 @@
+package test.minesweeper.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "minesweeper.cold")
+public class ColdStoreProperties {
+    // игры без ходов дольше minesweeper.game.ttl выгружаются на диск вместо удаления
+    private boolean enabled = false;
+    private String dir = "data/cold";
+    // срок хранения выгруженной игры, после него игра удаляется окончательно
+    private Duration retention = Duration.ofDays(7);
+    // размер отображаемого в память файла сегмента
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+    // период удаления сегментов старше срока хранения
+    private Duration cleanupInterval = Duration.ofMinutes(10);
+}
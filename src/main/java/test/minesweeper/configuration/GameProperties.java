@@ -0,0 +1,33 @@
+package test.minesweeper.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import test.minesweeper.enums.GameStoreEnum;
+
+import java.time.Duration;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "minesweeper.game")
+public class GameProperties {
+    // хранилище игр: heap или off-heap (поля вне кучи, примитивный индекс по 64-битному идентификатору)
+    private GameStoreEnum store = GameStoreEnum.HEAP;
+    // время жизни игры без ходов
+    private Duration ttl = Duration.ofMinutes(2);
+    // шаг колеса таймеров, по которому удаляются устаревшие игры
+    private Duration expiryTick = Duration.ofSeconds(1);
+    // суммарный лимит клеток всех живых игр, при превышении вытесняются давно не использованные игры
+    private long maxCells = 100_000_000L;
+    // время без ходов, после которого скрытое поле игры сжимается до зерна и масок открытых и помеченных клеток
+    private Duration compactAfter = Duration.ofSeconds(30);
+    // период поиска игр для сжатия
+    private Duration compactInterval = Duration.ofSeconds(10);
+    // стандартные конфигурации "<ширина>x<высота>/<мины>", поля для которых генерируются заранее в фоне
+    private List<String> pooledBoards = List.of("9x9/10", "16x16/40", "30x16/99");
+    // сколько готовых полей держать для каждой конфигурации, 0 отключает пул
+    private int poolSize = 256;
+    // лимит времени перебора решателя, после него вероятности оцениваются приближенно
+    private Duration solverTimeLimit = Duration.ofNanos(500_000);
+}
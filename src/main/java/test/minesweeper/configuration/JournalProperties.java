@@ -0,0 +1,17 @@
+package test.minesweeper.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "minesweeper.journal")
+public class JournalProperties {
+    // журнал и снимки игр, по которым игры восстанавливаются после перезапуска
+    private boolean enabled = false;
+    private String dir = "data/journal";
+    private Duration snapshotInterval = Duration.ofMinutes(1);
+}
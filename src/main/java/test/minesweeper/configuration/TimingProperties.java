@@ -0,0 +1,20 @@
+package test.minesweeper.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "minesweeper.timing")
+public class TimingProperties {
+    // замер фаз запросов и заголовок Server-Timing
+    private boolean enabled = false;
+    // запросы дольше порога пишутся в журнал с временем по фазам
+    private Duration slowThreshold = Duration.ofMillis(100);
+    // тело ответа до этого размера в байтах придерживается, чтобы заголовок учел сериализацию,
+    // тело больше отправляется потоком с заголовком, снятым до отправки
+    private int bufferLimit = 64 * 1024;
+}
@@ -0,0 +1,20 @@
+package test.minesweeper.configuration;
+
+import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import test.minesweeper.controller.MinesweeperWebSocketHandler;
+
+@Configuration
+@EnableWebSocket
+@AllArgsConstructor
+public class WebSocketConfiguration implements WebSocketConfigurer {
+    private final MinesweeperWebSocketHandler minesweeperWebSocketHandler;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(minesweeperWebSocketHandler, "/v1/ws").setAllowedOrigins("*");
+    }
+}
@@ -0,0 +1,58 @@
+package test.minesweeper.controller;
+
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.validation.Valid;
+import lombok.AllArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+import test.minesweeper.dto.ChunkedGameInfoResponse;
+import test.minesweeper.dto.ChunkedGameNewRequest;
+import test.minesweeper.dto.ChunkedRegionResponse;
+import test.minesweeper.dto.ErrorResponse;
+import test.minesweeper.dto.GameTurnDeltaResponse;
+import test.minesweeper.dto.GameTurnRequest;
+import test.minesweeper.service.ChunkedGameService;
+
+@RestController
+@RequestMapping(value = "/v1/chunked")
+@AllArgsConstructor
+public class ChunkedGameController {
+
+    private final ChunkedGameService chunkedGameService;
+
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "400", description = "Ошибка запроса или некорректное действие", content =
+                    { @Content(mediaType = "application/json", schema =
+                    @Schema(implementation = ErrorResponse.class)) }) })
+    @PostMapping(value = "/new")
+    public ChunkedGameInfoResponse createNewGame(@RequestBody @Valid ChunkedGameNewRequest newGameRequest) {
+        return chunkedGameService.createNewGame(newGameRequest);
+    }
+
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK, только открытые этим ходом клетки"),
+            @ApiResponse(responseCode = "400", description = "Ошибка запроса или некорректное действие", content =
+                    { @Content(mediaType = "application/json", schema =
+                    @Schema(implementation = ErrorResponse.class)) }) })
+    @PostMapping(value = "/turn")
+    public GameTurnDeltaResponse turn(@RequestBody @Valid GameTurnRequest gameTurnRequest) {
+        return chunkedGameService.turnGame(gameTurnRequest);
+    }
+
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK, строки области поля"),
+            @ApiResponse(responseCode = "400", description = "Ошибка запроса или некорректное действие", content =
+                    { @Content(mediaType = "application/json", schema =
+                    @Schema(implementation = ErrorResponse.class)) }) })
+    @GetMapping(value = "/region")
+    public ChunkedRegionResponse region(@RequestParam("game_id") String gameId,
+                                        @RequestParam("row") int row,
+                                        @RequestParam("col") int col,
+                                        @RequestParam("height") int height,
+                                        @RequestParam("width") int width) {
+        return chunkedGameService.getRegion(gameId, row, col, height, width);
+    }
+}
@@ -0,0 +1,232 @@
+package test.minesweeper.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import test.minesweeper.component.ClusterRing;
+import test.minesweeper.component.GameMetrics;
+import test.minesweeper.configuration.ClusterProperties;
+import test.minesweeper.dto.ErrorResponse;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Пересылает запросы по чужим играм узлу-владельцу шарда игры.
+ * <p>
+ * Идентификатор игры берется из параметра game_id или из поля game_id тела запроса. Пакет ходов
+ * пересылается целиком, если все его игры принадлежат одному узлу, иначе выполняется здесь, и ходы
+ * чужих игр получают ответ "игра не найдена". Создание игр всегда локальное. Пересланный запрос
+ * помечается заголовком {@link #FORWARDED_HEADER} и дальше не пересылается, поэтому расхождение
+ * конфигураций узлов не приводит к циклу.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "minesweeper.cluster", name = "enabled", havingValue = "true")
+public class ClusterForwardingFilter extends OncePerRequestFilter {
+    public static final String FORWARDED_HEADER = "X-Minesweeper-Forwarded-By";
+
+    private final ClusterRing clusterRing;
+    private final GameMetrics gameMetrics;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+    private final Duration forwardTimeout;
+
+    public ClusterForwardingFilter(ClusterRing clusterRing, GameMetrics gameMetrics, ObjectMapper objectMapper,
+                                   ClusterProperties clusterProperties) {
+        this.clusterRing = clusterRing;
+        this.gameMetrics = gameMetrics;
+        this.objectMapper = objectMapper;
+        this.forwardTimeout = clusterProperties.getForwardTimeout();
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(forwardTimeout)
+                .build();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = path(request);
+        return request.getHeader(FORWARDED_HEADER) != null || !path.startsWith("/v1/") || path.endsWith("/new");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        byte[] body = null;
+        String gameId;
+        if ("POST".equals(request.getMethod())) {
+            body = request.getInputStream().readAllBytes();
+            gameId = findGameId(body);
+        } else {
+            gameId = request.getParameter("game_id");
+        }
+        if (gameId == null || clusterRing.isLocal(gameId)) {
+            chain.doFilter(body == null ? request : new CachedBodyRequest(request, body), response);
+            return;
+        }
+        forward(request, response, body, gameId);
+    }
+
+    // игра, по которой выбирается узел, или null, если запрос выполняется локально
+    private String findGameId(byte[] body) {
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(body);
+        } catch (IOException e) {
+            // ошибку разбора вернет контроллер
+            return null;
+        }
+        if (root == null) {
+            return null;
+        }
+        JsonNode gameId = root.get("game_id");
+        if (gameId != null) {
+            return gameId.isTextual() ? gameId.asText() : null;
+        }
+        JsonNode turns = root.get("turns");
+        if (turns == null || !turns.isArray() || turns.isEmpty()) {
+            return null;
+        }
+        String first = null;
+        for (JsonNode turn : turns) {
+            JsonNode turnGameId = turn.get("game_id");
+            if (turnGameId == null || !turnGameId.isTextual()) {
+                return null;
+            }
+            if (first == null) {
+                first = turnGameId.asText();
+            } else if (!Objects.equals(clusterRing.getOwner(first), clusterRing.getOwner(turnGameId.asText()))) {
+                return null;
+            }
+        }
+        return first;
+    }
+
+    private void forward(HttpServletRequest request, HttpServletResponse response, byte[] body, String gameId)
+            throws IOException {
+        String owner = clusterRing.getOwner(gameId);
+        String query = request.getQueryString();
+        URI uri = URI.create(clusterRing.getOwnerUrl(gameId) + path(request) + (query == null ? "" : "?" + query));
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(forwardTimeout)
+                .header(FORWARDED_HEADER, clusterRing.getNodeId())
+                .method(request.getMethod(), body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body));
+        copyHeader(request, builder, HttpHeaders.CONTENT_TYPE);
+        copyHeader(request, builder, HttpHeaders.ACCEPT);
+        long start = System.nanoTime();
+        HttpResponse<byte[]> ownerResponse;
+        try {
+            ownerResponse = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException | InterruptedException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            gameMetrics.recordForward(owner, false, System.nanoTime() - start);
+            String message = String.format("Узел %s, владеющий игрой %s, недоступен", owner, gameId);
+            log.warn(message, e);
+            ErrorResponse errorResponse = new ErrorResponse();
+            errorResponse.setError(message);
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), errorResponse);
+            return;
+        }
+        gameMetrics.recordForward(owner, true, System.nanoTime() - start);
+        response.setStatus(ownerResponse.statusCode());
+        ownerResponse.headers().firstValue(HttpHeaders.CONTENT_TYPE).ifPresent(response::setContentType);
+        response.setContentLength(ownerResponse.body().length);
+        response.getOutputStream().write(ownerResponse.body());
+    }
+
+    private static void copyHeader(HttpServletRequest request, HttpRequest.Builder builder, String name) {
+        String value = request.getHeader(name);
+        if (value != null) {
+            builder.header(name, value);
+        }
+    }
+
+    // путь запроса без context-path
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    // тело, прочитанное для поиска игры, отдается контроллеру повторно
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // тело уже в памяти, поэтому слушатель сразу получает все данные
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    Objects.requireNonNull(readListener);
+                    try {
+                        readListener.onDataAvailable();
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            Charset charset = getCharacterEncoding() == null ? StandardCharsets.UTF_8
+                    : Charset.forName(getCharacterEncoding());
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
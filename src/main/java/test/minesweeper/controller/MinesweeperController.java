@@ -8,16 +8,27 @@ import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 import test.minesweeper.dto.ErrorResponse;
+import test.minesweeper.dto.GameInfoCompactResponse;
 import test.minesweeper.dto.GameInfoResponse;
+import test.minesweeper.dto.GameTurnDeltaResponse;
 import test.minesweeper.dto.GameTurnRequest;
 import test.minesweeper.dto.GameNewRequest;
+import test.minesweeper.dto.GameTurnsRequest;
+import test.minesweeper.dto.GameTurnsResponse;
+import test.minesweeper.dto.HintResponse;
+import test.minesweeper.dto.ProbabilitiesResponse;
+import test.minesweeper.enums.FieldFormatEnum;
 import test.minesweeper.service.MinesweeperService;
+import test.minesweeper.service.SolverService;
 
 @RestController
 @RequestMapping(value = "/v1")
 @AllArgsConstructor
 public class MinesweeperController {
+    public static final String DELTA_MEDIA_TYPE = "application/vnd.minesweeper.delta+json";
+
     private final MinesweeperService minesweeperService;
+    private final SolverService solverService;
 
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "OK"),
@@ -29,6 +40,19 @@ public class MinesweeperController {
         return minesweeperService.createNewGame(newGameRequest);
     }
 
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK, поле в компактном формате rows или rle"),
+            @ApiResponse(responseCode = "400", description = "Ошибка запроса или некорректное действие", content =
+                    { @Content(mediaType = "application/json", schema =
+                      @Schema(implementation = ErrorResponse.class)) }) })
+    @PostMapping(value = "/new", params = "format")
+    public GameInfoCompactResponse createNewGameCompact(@RequestBody @Valid GameNewRequest newGameRequest,
+                                                        @RequestParam("format") String format) {
+        // формат проверяется до создания игры
+        FieldFormatEnum fieldFormat = FieldFormatEnum.fromValue(format);
+        return new GameInfoCompactResponse(minesweeperService.createNewGame(newGameRequest), fieldFormat);
+    }
+
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "OK"),
             @ApiResponse(responseCode = "400", description = "Ошибка запроса или некорректное действие", content =
@@ -38,4 +62,62 @@ public class MinesweeperController {
     public GameInfoResponse turn(@RequestBody @Valid GameTurnRequest gameTurnRequest) {
         return minesweeperService.turnGame(gameTurnRequest);
     }
+
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK, только открытые этим ходом клетки"),
+            @ApiResponse(responseCode = "400", description = "Ошибка запроса или некорректное действие", content =
+                    { @Content(mediaType = "application/json", schema =
+                    @Schema(implementation = ErrorResponse.class)) }) })
+    @PostMapping(value = "/turn", params = {"delta=true", "!format"})
+    public GameTurnDeltaResponse turnDelta(@RequestBody @Valid GameTurnRequest gameTurnRequest) {
+        return minesweeperService.turnGameDelta(gameTurnRequest);
+    }
+
+    @PostMapping(value = "/turn", produces = DELTA_MEDIA_TYPE)
+    public GameTurnDeltaResponse turnDeltaByAccept(@RequestBody @Valid GameTurnRequest gameTurnRequest) {
+        return minesweeperService.turnGameDelta(gameTurnRequest);
+    }
+
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK, поле в компактном формате rows или rle"),
+            @ApiResponse(responseCode = "400", description = "Ошибка запроса или некорректное действие", content =
+                    { @Content(mediaType = "application/json", schema =
+                    @Schema(implementation = ErrorResponse.class)) }) })
+    @PostMapping(value = "/turn", params = "format")
+    public GameInfoCompactResponse turnCompact(@RequestBody @Valid GameTurnRequest gameTurnRequest,
+                                               @RequestParam("format") String format) {
+        // формат проверяется до выполнения хода
+        FieldFormatEnum fieldFormat = FieldFormatEnum.fromValue(format);
+        return new GameInfoCompactResponse(minesweeperService.turnGame(gameTurnRequest), fieldFormat);
+    }
+
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK, результат каждого хода и открытые пакетом клетки"),
+            @ApiResponse(responseCode = "400", description = "Ошибка запроса", content =
+                    { @Content(mediaType = "application/json", schema =
+                    @Schema(implementation = ErrorResponse.class)) }) })
+    @PostMapping(value = "/turns")
+    public GameTurnsResponse turns(@RequestBody @Valid GameTurnsRequest gameTurnsRequest) {
+        return minesweeperService.turnGames(gameTurnsRequest);
+    }
+
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK, безопасная клетка или клетка с наименьшей вероятностью мины"),
+            @ApiResponse(responseCode = "400", description = "Ошибка запроса или игра завершена", content =
+                    { @Content(mediaType = "application/json", schema =
+                    @Schema(implementation = ErrorResponse.class)) }) })
+    @GetMapping(value = "/hint")
+    public HintResponse hint(@RequestParam("game_id") String gameId) {
+        return solverService.hint(gameId);
+    }
+
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK, вероятности мин в закрытых клетках"),
+            @ApiResponse(responseCode = "400", description = "Ошибка запроса или игра завершена", content =
+                    { @Content(mediaType = "application/json", schema =
+                    @Schema(implementation = ErrorResponse.class)) }) })
+    @GetMapping(value = "/probabilities")
+    public ProbabilitiesResponse probabilities(@RequestParam("game_id") String gameId) {
+        return solverService.probabilities(gameId);
+    }
 }
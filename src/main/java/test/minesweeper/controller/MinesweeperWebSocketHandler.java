@@ -0,0 +1,187 @@
+package test.minesweeper.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import test.minesweeper.component.GameComponent;
+import test.minesweeper.component.GameListener;
+import test.minesweeper.dto.GameEventResponse;
+import test.minesweeper.dto.GameSocketRequest;
+import test.minesweeper.dto.GameTurnDeltaResponse;
+import test.minesweeper.dto.GameTurnRequest;
+import test.minesweeper.dto.GeneralGame;
+import test.minesweeper.enums.GameEventEnum;
+import test.minesweeper.exception.GameNotFoundException;
+import test.minesweeper.service.MinesweeperService;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ходы по постоянному WebSocket соединению. Клиент присылает ходы, в ответ всем подписчикам игры
+ * отправляются только открытые ходом клетки, а при удалении игры из памяти - событие устаревания,
+ * вытеснения или выгрузки на диск, после которого подписка на игру снимается. Ход по игре подписывает
+ * соединение на ее события.
+ */
+@Slf4j
+@Component
+public class MinesweeperWebSocketHandler extends TextWebSocketHandler implements GameListener {
+    private static final String TURN = "turn";
+    private static final String SUBSCRIBE = "subscribe";
+    private static final String GAME_IDS = "gameIds";
+    private static final int SEND_TIME_LIMIT = 5_000;
+    private static final int BUFFER_SIZE_LIMIT = 1 << 20;
+
+    private final MinesweeperService minesweeperService;
+    private final GameComponent gameComponent;
+    private final ObjectMapper objectMapper;
+
+    // отправка в одно соединение из разных потоков идет через потокобезопасную обертку сессии
+    private final ConcurrentHashMap<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<WebSocketSession>> gameSessions = new ConcurrentHashMap<>();
+
+    public MinesweeperWebSocketHandler(MinesweeperService minesweeperService, GameComponent gameComponent,
+                                       ObjectMapper objectMapper) {
+        this.minesweeperService = minesweeperService;
+        this.gameComponent = gameComponent;
+        this.objectMapper = objectMapper;
+        gameComponent.addGameListener(this);
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        session.getAttributes().put(GAME_IDS, ConcurrentHashMap.newKeySet());
+        sessions.put(session.getId(),
+                new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT, BUFFER_SIZE_LIMIT));
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        WebSocketSession sessionDecorator = sessions.get(session.getId());
+        GameSocketRequest gameSocketRequest;
+        try {
+            gameSocketRequest = objectMapper.readValue(message.getPayload(), GameSocketRequest.class);
+        } catch (JsonProcessingException e) {
+            send(sessionDecorator, errorEvent(null, "некорректное сообщение"));
+            return;
+        }
+        String gameId = gameSocketRequest.getGame_id();
+        try {
+            if (Objects.isNull(gameId)) {
+                throw new IllegalArgumentException("в сообщении должен быть заполнен game_id");
+            }
+            if (TURN.equals(gameSocketRequest.getType())) {
+                turn(sessionDecorator, gameSocketRequest);
+            } else if (SUBSCRIBE.equals(gameSocketRequest.getType())) {
+                if (Objects.isNull(gameComponent.getGame(gameId))) {
+                    throw new GameNotFoundException(gameId);
+                }
+                subscribe(sessionDecorator, gameId);
+            } else {
+                throw new IllegalArgumentException(String.format("неизвестный тип сообщения %s, допустимы %s и %s",
+                        gameSocketRequest.getType(), TURN, SUBSCRIBE));
+            }
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            send(sessionDecorator, errorEvent(gameId, e.getMessage()));
+        }
+    }
+
+    private void turn(WebSocketSession session, GameSocketRequest gameSocketRequest) {
+        if (Objects.isNull(gameSocketRequest.getRow()) || Objects.isNull(gameSocketRequest.getCol())) {
+            throw new IllegalArgumentException("в сообщении хода должны быть заполнены row и col");
+        }
+        GameTurnRequest gameTurnRequest = new GameTurnRequest();
+        gameTurnRequest.setGame_id(gameSocketRequest.getGame_id());
+        gameTurnRequest.setRow(gameSocketRequest.getRow());
+        gameTurnRequest.setCol(gameSocketRequest.getCol());
+        gameTurnRequest.setAction(gameSocketRequest.getAction());
+        GameTurnDeltaResponse gameTurnDeltaResponse = minesweeperService.turnGameDelta(gameTurnRequest);
+
+        // порядок ответов разных соединений одной игры восстанавливается клиентом по version
+        subscribe(session, gameTurnRequest.getGame_id());
+        broadcast(gameTurnRequest.getGame_id(), new GameEventResponse(GameEventEnum.DELTA.getValue(),
+                gameTurnRequest.getGame_id(), gameTurnDeltaResponse, null));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void subscribe(WebSocketSession session, String gameId) {
+        gameSessions.compute(gameId, (id, subscribers) -> {
+            Set<WebSocketSession> gameSubscribers = subscribers != null ? subscribers : ConcurrentHashMap.newKeySet();
+            gameSubscribers.add(session);
+            return gameSubscribers;
+        });
+        ((Set<String>) session.getAttributes().get(GAME_IDS)).add(gameId);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        WebSocketSession sessionDecorator = sessions.remove(session.getId());
+        for (String gameId : (Set<String>) session.getAttributes().get(GAME_IDS)) {
+            gameSessions.computeIfPresent(gameId, (id, subscribers) -> {
+                subscribers.remove(sessionDecorator);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+        }
+    }
+
+    @Override
+    public void gameExpired(GeneralGame generalGame) {
+        String gameId = generalGame.getGameId();
+        notifyRemoved(gameId, new GameEventResponse(GameEventEnum.EXPIRED.getValue(), gameId, null, null));
+    }
+
+    @Override
+    public void gameEvicted(GeneralGame generalGame) {
+        String gameId = generalGame.getGameId();
+        notifyRemoved(gameId, new GameEventResponse(GameEventEnum.EVICTED.getValue(), gameId, null, null));
+    }
+
+    @Override
+    public void gameSpilled(GeneralGame generalGame) {
+        String gameId = generalGame.getGameId();
+        notifyRemoved(gameId, new GameEventResponse(GameEventEnum.SPILLED.getValue(), gameId, null, null));
+    }
+
+    private void notifyRemoved(String gameId, GameEventResponse gameEventResponse) {
+        Set<WebSocketSession> subscribers = gameSessions.remove(gameId);
+        if (Objects.isNull(subscribers)) {
+            return;
+        }
+        for (WebSocketSession session : subscribers) {
+            send(session, gameEventResponse);
+        }
+    }
+
+    private void broadcast(String gameId, GameEventResponse gameEventResponse) {
+        for (WebSocketSession session : gameSessions.getOrDefault(gameId, Collections.emptySet())) {
+            send(session, gameEventResponse);
+        }
+    }
+
+    private GameEventResponse errorEvent(String gameId, String error) {
+        return new GameEventResponse(GameEventEnum.ERROR.getValue(), gameId, null, error);
+    }
+
+    private void send(WebSocketSession session, GameEventResponse gameEventResponse) {
+        if (Objects.isNull(session) || !session.isOpen()) {
+            return;
+        }
+        try {
+            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(gameEventResponse)));
+        } catch (IOException | SessionLimitExceededException e) {
+            log.warn(String.format("Соединение %s: не удалось отправить событие %s, %s",
+                    session.getId(), gameEventResponse.getType(), e.getMessage()));
+        }
+    }
+}
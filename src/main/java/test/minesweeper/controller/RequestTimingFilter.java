@@ -0,0 +1,249 @@
+package test.minesweeper.controller;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import test.minesweeper.configuration.TimingProperties;
+import test.minesweeper.dto.RequestTiming;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+/**
+ * Замер фаз запросов API: время по фазам отдается в заголовке Server-Timing, запросы дольше порога
+ * пишутся в журнал.
+ * <p>
+ * Тело ответа до minesweeper.timing.buffer-limit придерживается до конца замера, и заголовок включает
+ * сериализацию. Большее тело (полное поле большой игры) не копируется: при переполнении ставится заголовок
+ * с фазами до этого момента, и тело дальше идет потоком, как без замера. WebSocket-соединение /v1/ws
+ * не замеряется. Без minesweeper.timing.enabled фильтр не создается.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "minesweeper.timing", name = "enabled", havingValue = "true")
+public class RequestTimingFilter extends OncePerRequestFilter {
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private final long slowThresholdNanos;
+    private final int bufferLimit;
+
+    public RequestTimingFilter(TimingProperties timingProperties) {
+        this.slowThresholdNanos = timingProperties.getSlowThreshold().toNanos();
+        this.bufferLimit = timingProperties.getBufferLimit();
+        RequestTiming.setEnabled(true);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String api = request.getContextPath() + "/v1/";
+        String uri = request.getRequestURI();
+        return !uri.startsWith(api) || uri.startsWith(api + "ws");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTiming timing = RequestTiming.begin();
+        TimingResponse timingResponse = new TimingResponse(response, timing, bufferLimit);
+        try {
+            chain.doFilter(request, timingResponse);
+        } finally {
+            timing.finish();
+            timingResponse.complete();
+            if (timing.getTotal() > slowThresholdNanos) {
+                log.warn(String.format("Медленный запрос: method=%s uri=%s status=%d %s", request.getMethod(),
+                        request.getRequestURI(), response.getStatus(), timing.toLogFields()));
+            }
+        }
+    }
+
+    // ответ, тело которого придерживается до лимита, а после него пишется в ответ контейнера напрямую
+    private static class TimingResponse extends HttpServletResponseWrapper {
+        private final RequestTiming timing;
+        private final int bufferLimit;
+        private TimingOutputStream outputStream;
+        private PrintWriter writer;
+
+        private TimingResponse(HttpServletResponse response, RequestTiming timing, int bufferLimit) {
+            super(response);
+            this.timing = timing;
+            this.bufferLimit = bufferLimit;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() уже вызван для этого ответа");
+            }
+            return stream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                if (outputStream != null) {
+                    throw new IllegalStateException("getOutputStream() уже вызван для этого ответа");
+                }
+                writer = new PrintWriter(new OutputStreamWriter(stream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        // пока тело придерживается, сброс ничего не отправляет, иначе заголовок уже не заменить
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (outputStream == null || outputStream.isStreaming()) {
+                super.flushBuffer();
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            if (outputStream != null) {
+                outputStream.reset();
+            }
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            if (outputStream != null) {
+                outputStream.reset();
+            }
+        }
+
+        private TimingOutputStream stream() {
+            if (outputStream == null) {
+                outputStream = new TimingOutputStream(this);
+            }
+            return outputStream;
+        }
+
+        private void setTimingHeader() {
+            if (!isCommitted()) {
+                setHeader(SERVER_TIMING_HEADER, timing.toHeader());
+            }
+        }
+
+        // полный заголовок и придержанное тело после завершения замера
+        private void complete() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (outputStream == null || !outputStream.isStreaming()) {
+                setTimingHeader();
+            }
+            if (outputStream != null) {
+                outputStream.complete();
+            }
+        }
+    }
+
+    private static class TimingOutputStream extends ServletOutputStream {
+        private final TimingResponse response;
+        private byte[] buffer = new byte[256];
+        private int count;
+        // поток контейнера после превышения лимита
+        private ServletOutputStream out;
+
+        private TimingOutputStream(TimingResponse response) {
+            this.response = response;
+        }
+
+        private boolean isStreaming() {
+            return out != null;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (out == null && count == response.bufferLimit) {
+                startStreaming();
+            }
+            if (out != null) {
+                out.write(b);
+                return;
+            }
+            ensureCapacity(count + 1);
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (out == null && count + len > response.bufferLimit) {
+                startStreaming();
+            }
+            if (out != null) {
+                out.write(b, off, len);
+                return;
+            }
+            ensureCapacity(count + len);
+            System.arraycopy(b, off, buffer, count, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (out != null) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return out == null || out.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            try {
+                response.getResponse().getOutputStream().setWriteListener(writeListener);
+            } catch (IOException e) {
+                writeListener.onError(e);
+            }
+        }
+
+        private void reset() {
+            if (out == null) {
+                count = 0;
+            }
+        }
+
+        // тело больше лимита: заголовок с фазами до сериализации и отправка без копирования
+        private void startStreaming() throws IOException {
+            response.setTimingHeader();
+            out = response.getResponse().getOutputStream();
+            out.write(buffer, 0, count);
+            buffer = null;
+            count = 0;
+        }
+
+        private void complete() throws IOException {
+            if (out == null && count > 0) {
+                if (!response.isCommitted()) {
+                    response.setContentLength(count);
+                }
+                response.getResponse().getOutputStream().write(buffer, 0, count);
+            }
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.min(Math.max(capacity, 2 * buffer.length), response.bufferLimit));
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package test.minesweeper.dto;
+
+import lombok.Data;
+
+@Data
+public class CellProbabilityResponse {
+    private final Integer row;
+    private final Integer col;
+    private final Double probability;
+}
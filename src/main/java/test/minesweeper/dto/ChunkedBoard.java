@@ -0,0 +1,304 @@
+package test.minesweeper.dto;
+
+import test.minesweeper.enums.FieldEnum;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Поле из плиток 64x64 для очень больших и неограниченных игр. Мины плитки расставляются при первом
+ * обращении к ней из зерна игры и координат плитки с одинаковой долей мин, поэтому в памяти хранятся
+ * только затронутые плитки. Байт клетки устроен как в {@link GameBoard}, сгенерированная мина хранится
+ * отдельным битом, а число мин вокруг считается при открытии клетки.
+ * Неограниченное поле (нулевые размеры) занимает весь диапазон int по обеим координатам.
+ */
+public class ChunkedBoard {
+    public static final int TILE_SHIFT = 6;
+    public static final int TILE_SIZE = 1 << TILE_SHIFT;
+    public static final int TILE_CELLS = TILE_SIZE * TILE_SIZE;
+    private static final int TILE_MASK = TILE_SIZE - 1;
+
+    private static final int VALUE_MASK = 0x0F;
+    private static final int REVEALED = 0x10;
+    private static final int FLAGGED = 0x20;
+    private static final int MINE = 0x40;
+
+    private static final long TILE_ROW_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final long TILE_COL_GAMMA = 0xC2B2AE3D27D4EB4FL;
+
+    private static final FieldEnum[] VALUES = {
+            FieldEnum.ZERO, FieldEnum.ONE, FieldEnum.TWO, FieldEnum.THREE, FieldEnum.FOUR,
+            FieldEnum.FIVE, FieldEnum.SIX, FieldEnum.SEVEN, FieldEnum.EIGHT
+    };
+
+    private final int height;
+    private final int width;
+    private final double minesDensity;
+    private final long seed;
+    private final HashMap<Long, byte[]> tiles = new HashMap<>();
+    // клетка первого хода и ее соседи не содержат мин, мины в них при подсчете общего числа вычитаются
+    private boolean safeZone;
+    private int safeRow;
+    private int safeCol;
+    private int suppressedMines;
+
+    public ChunkedBoard(int height, int width, double minesDensity, long seed) {
+        this.height = height;
+        this.width = width;
+        this.minesDensity = minesDensity;
+        this.seed = seed;
+    }
+
+    public boolean isBounded() {
+        return height > 0 && width > 0;
+    }
+
+    public boolean contains(long row, long col) {
+        if (!isBounded()) {
+            return row >= Integer.MIN_VALUE && row <= Integer.MAX_VALUE
+                    && col >= Integer.MIN_VALUE && col <= Integer.MAX_VALUE;
+        }
+        return row >= 0 && col >= 0 && row < height && col < width;
+    }
+
+    public int getTileCount() {
+        return tiles.size();
+    }
+
+    public long getCellsCount() {
+        return (long) height * width;
+    }
+
+    // общее число мин ограниченного поля по размерам плиток, без генерации самих плиток
+    public long getMinesCount() {
+        int fullRows = height >> TILE_SHIFT;
+        int restRows = height & TILE_MASK;
+        int fullCols = width >> TILE_SHIFT;
+        int restCols = width & TILE_MASK;
+        return (long) fullRows * fullCols * minesInArea(TILE_CELLS)
+                + (long) fullRows * minesInArea(TILE_SIZE * restCols)
+                + (long) fullCols * minesInArea(restRows * TILE_SIZE)
+                + minesInArea(restRows * restCols)
+                - suppressedMines;
+    }
+
+    public void setSafeZone(int row, int col) {
+        for (long i = row - 1L; i <= row + 1L; i++) {
+            for (long j = col - 1L; j <= col + 1L; j++) {
+                if (contains(i, j) && (cell((int) i, (int) j) & MINE) != 0) {
+                    suppressedMines++;
+                }
+            }
+        }
+        safeZone = true;
+        safeRow = row;
+        safeCol = col;
+    }
+
+    public boolean isMine(int row, int col) {
+        if (safeZone && Math.abs((long) row - safeRow) <= 1 && Math.abs((long) col - safeCol) <= 1) {
+            return false;
+        }
+        return (cell(row, col) & MINE) != 0;
+    }
+
+    public boolean isRevealed(int row, int col) {
+        return (cell(row, col) & REVEALED) != 0;
+    }
+
+    public boolean isFlagged(int row, int col) {
+        return (cell(row, col) & FLAGGED) != 0;
+    }
+
+    public void setFlagged(int row, int col, boolean flagged) {
+        byte[] tile = tile(row, col);
+        int local = local(row, col);
+        tile[local] = (byte) (flagged ? tile[local] | FLAGGED : tile[local] & ~FLAGGED);
+    }
+
+    public int getValue(int row, int col) {
+        return cell(row, col) & VALUE_MASK;
+    }
+
+    /**
+     * Открывает клетку и связную область пустых клеток вместе с ее границей, как {@link GameBoard#revealArea}.
+     *
+     * @param cells если не null, в него добавляются открытые клетки
+     * @return количество открытых этим ходом клеток
+     */
+    public int revealArea(int row, int col, List<CellResponse> cells) {
+        if (isRevealed(row, col)) {
+            return 0;
+        }
+        if (reveal(row, col, cells) != 0) {
+            return 1;
+        }
+
+        int revealed = 1;
+        long[] queue = new long[64];
+        int head = 0;
+        int size = 0;
+        queue[size++] = pack(row, col);
+        while (size > 0) {
+            long current = queue[head];
+            head = (head + 1) % queue.length;
+            size--;
+            int currentRow = (int) (current >> 32);
+            int currentCol = (int) current;
+            for (long i = currentRow - 1L; i <= currentRow + 1L; i++) {
+                for (long j = currentCol - 1L; j <= currentCol + 1L; j++) {
+                    if (!contains(i, j)) {
+                        continue;
+                    }
+                    int neighbourRow = (int) i;
+                    int neighbourCol = (int) j;
+                    if ((cell(neighbourRow, neighbourCol) & (REVEALED | FLAGGED)) != 0
+                            || isMine(neighbourRow, neighbourCol)) {
+                        continue;
+                    }
+                    revealed++;
+                    if (reveal(neighbourRow, neighbourCol, cells) == 0) {
+                        if (size == queue.length) {
+                            queue = growQueue(queue, head, size);
+                            head = 0;
+                        }
+                        queue[(head + size) % queue.length] = pack(neighbourRow, neighbourCol);
+                        size++;
+                    }
+                }
+            }
+        }
+        return revealed;
+    }
+
+    public int countFlaggedNeighbours(int row, int col) {
+        int flagged = 0;
+        for (long i = row - 1L; i <= row + 1L; i++) {
+            for (long j = col - 1L; j <= col + 1L; j++) {
+                if ((i != row || j != col) && contains(i, j) && isFlagged((int) i, (int) j)) {
+                    flagged++;
+                }
+            }
+        }
+        return flagged;
+    }
+
+    public boolean hasUnflaggedMineAround(int row, int col) {
+        for (long i = row - 1L; i <= row + 1L; i++) {
+            for (long j = col - 1L; j <= col + 1L; j++) {
+                if (contains(i, j) && !isRevealed((int) i, (int) j) && !isFlagged((int) i, (int) j)
+                        && isMine((int) i, (int) j)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public int revealNeighbours(int row, int col, List<CellResponse> cells) {
+        int revealed = 0;
+        for (long i = row - 1L; i <= row + 1L; i++) {
+            for (long j = col - 1L; j <= col + 1L; j++) {
+                if (contains(i, j) && !isFlagged((int) i, (int) j)) {
+                    revealed += revealArea((int) i, (int) j, cells);
+                }
+            }
+        }
+        return revealed;
+    }
+
+    /**
+     * Клиентское значение клетки. Для незавершенной игры незатронутые плитки не создаются,
+     * для завершенной открываются все клетки, как в {@link GameBoard#getClientValue}.
+     */
+    public String getClientValue(int row, int col, boolean completed, boolean won) {
+        if (!completed) {
+            byte[] tile = tiles.get(key(row, col));
+            int cell = tile == null ? 0 : tile[local(row, col)];
+            if ((cell & REVEALED) == 0) {
+                return (cell & FLAGGED) != 0 ? FieldEnum.F.getValue() : FieldEnum.EMPTY.getValue();
+            }
+            return VALUES[cell & VALUE_MASK].getValue();
+        }
+        if (isMine(row, col)) {
+            return won ? FieldEnum.M.getValue() : FieldEnum.X.getValue();
+        }
+        return VALUES[isRevealed(row, col) ? getValue(row, col) : countMinesAround(row, col)].getValue();
+    }
+
+    private int reveal(int row, int col, List<CellResponse> cells) {
+        int value = countMinesAround(row, col);
+        byte[] tile = tile(row, col);
+        int local = local(row, col);
+        tile[local] = (byte) ((tile[local] & ~VALUE_MASK) | REVEALED | value);
+        if (cells != null) {
+            cells.add(new CellResponse(row, col, VALUES[value].getValue()));
+        }
+        return value;
+    }
+
+    private int countMinesAround(int row, int col) {
+        int mines = 0;
+        for (long i = row - 1L; i <= row + 1L; i++) {
+            for (long j = col - 1L; j <= col + 1L; j++) {
+                if ((i != row || j != col) && contains(i, j) && isMine((int) i, (int) j)) {
+                    mines++;
+                }
+            }
+        }
+        return mines;
+    }
+
+    private int cell(int row, int col) {
+        return tile(row, col)[local(row, col)];
+    }
+
+    private byte[] tile(int row, int col) {
+        return tiles.computeIfAbsent(key(row, col), key -> generateTile(row >> TILE_SHIFT, col >> TILE_SHIFT));
+    }
+
+    // расстановка мин плитки зависит только от зерна игры и координат плитки
+    private byte[] generateTile(int tileRow, int tileCol) {
+        byte[] tile = new byte[TILE_CELLS];
+        int rows = isBounded() ? Math.min(TILE_SIZE, height - (tileRow << TILE_SHIFT)) : TILE_SIZE;
+        int cols = isBounded() ? Math.min(TILE_SIZE, width - (tileCol << TILE_SHIFT)) : TILE_SIZE;
+        int area = rows * cols;
+        int toPlace = minesInArea(area);
+        SplittableRandom random = new SplittableRandom(
+                seed + tileRow * TILE_ROW_GAMMA + tileCol * TILE_COL_GAMMA);
+        while (toPlace > 0) {
+            int position = random.nextInt(area);
+            int local = (position / cols) << TILE_SHIFT | position % cols;
+            if ((tile[local] & MINE) == 0) {
+                tile[local] |= MINE;
+                toPlace--;
+            }
+        }
+        return tile;
+    }
+
+    private int minesInArea(int area) {
+        return (int) Math.round(area * minesDensity);
+    }
+
+    private static long key(int row, int col) {
+        return pack(row >> TILE_SHIFT, col >> TILE_SHIFT);
+    }
+
+    private static int local(int row, int col) {
+        return (row & TILE_MASK) << TILE_SHIFT | col & TILE_MASK;
+    }
+
+    private static long pack(int row, int col) {
+        return (long) row << 32 | col & 0xFFFFFFFFL;
+    }
+
+    private static long[] growQueue(long[] queue, int head, int size) {
+        long[] grown = new long[queue.length * 2];
+        for (int i = 0; i < size; i++) {
+            grown[i] = queue[(head + i) % queue.length];
+        }
+        return grown;
+    }
+}
@@ -0,0 +1,45 @@
+package test.minesweeper.dto;
+
+import lombok.Data;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+@Data
+public class ChunkedGameInfo {
+    private final String game_id;
+    private final Integer width;
+    private final Integer height;
+    private final Double minesDensity;
+    private final ChunkedBoard board;
+    private boolean completed;
+    private boolean won;
+    private boolean firstTurnDone;
+    private long revealedCells;
+    private long version;
+
+    public ChunkedGameInfo(ChunkedGameNewRequest newGameRequest) {
+        this(GameIds.newId(), newGameRequest);
+    }
+
+    public ChunkedGameInfo(String gameId, ChunkedGameNewRequest newGameRequest) {
+        boolean bounded = newGameRequest.getWidth() > 0 && newGameRequest.getHeight() > 0;
+        this.game_id = gameId;
+        this.width = bounded ? newGameRequest.getWidth() : 0;
+        this.height = bounded ? newGameRequest.getHeight() : 0;
+        this.minesDensity = newGameRequest.getMines_density();
+        this.board = new ChunkedBoard(height, width, minesDensity, ThreadLocalRandom.current().nextLong());
+    }
+
+    // неограниченное поле выиграть нельзя, игра заканчивается только попаданием на мину
+    public boolean checkWin() {
+        return board.isBounded() && board.getCellsCount() - board.getMinesCount() - revealedCells == 0;
+    }
+
+    public void addRevealedCells(int count) {
+        revealedCells += count;
+    }
+
+    public void incrementVersion() {
+        version++;
+    }
+}
@@ -0,0 +1,22 @@
+package test.minesweeper.dto;
+
+import lombok.Data;
+
+@Data
+public class ChunkedGameInfoResponse {
+    private final String game_id;
+    private final Integer width;
+    private final Integer height;
+    private final Double mines_density;
+    private final Integer tile_size;
+    private final Boolean completed;
+
+    public ChunkedGameInfoResponse(ChunkedGameInfo gameInfo) {
+        game_id = gameInfo.getGame_id();
+        width = gameInfo.getWidth();
+        height = gameInfo.getHeight();
+        mines_density = gameInfo.getMinesDensity();
+        tile_size = ChunkedBoard.TILE_SIZE;
+        completed = gameInfo.isCompleted();
+    }
+}
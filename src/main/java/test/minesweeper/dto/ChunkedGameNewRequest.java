@@ -0,0 +1,18 @@
+package test.minesweeper.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class ChunkedGameNewRequest {
+    // нулевой размер - неограниченное поле
+    @NotNull
+    @Min(0)
+    private Integer width;
+    @NotNull
+    @Min(0)
+    private Integer height;
+    @NotNull
+    private Double mines_density;
+}
@@ -0,0 +1,15 @@
+package test.minesweeper.dto;
+
+import lombok.Data;
+
+@Data
+public class ChunkedRegionResponse {
+    private final String game_id;
+    private final Integer row;
+    private final Integer col;
+    private final Integer height;
+    private final Integer width;
+    private final Boolean completed;
+    // строки области поля, по символу на клетку
+    private final String[] field;
+}
@@ -0,0 +1,428 @@
+package test.minesweeper.dto;
+
+import test.minesweeper.enums.FieldEnum;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Упакованное поле игры: один байт на клетку в плоском массиве (по строкам).
+ * Младшие 4 бита - скрытое значение клетки (0-8 мин вокруг или {@link #MINE}),
+ * старшие биты - состояние клетки (открыта / помечена флагом).
+ * <p>
+ * Поле давно не используемой игры можно сжать: остаются только битовые маски открытых и помеченных клеток,
+ * а значения клеток восстанавливаются из зерна игры при следующем ходе (см. {@link GameInfo#expand()}).
+ * <p>
+ * Клетки читаются и пишутся только через {@link #cell} и {@link #setCell}, поэтому хранилище вне кучи
+ * подменяет массив своим буфером в {@link OffHeapGameBoard}.
+ */
+public class GameBoard {
+    public static final int MINE = 9;
+
+    private static final int VALUE_MASK = 0x0F;
+    private static final int REVEALED = 0x10;
+    private static final int FLAGGED = 0x20;
+
+    private static final FieldEnum[] VALUES = {
+            FieldEnum.ZERO, FieldEnum.ONE, FieldEnum.TWO, FieldEnum.THREE, FieldEnum.FOUR,
+            FieldEnum.FIVE, FieldEnum.SIX, FieldEnum.SEVEN, FieldEnum.EIGHT, FieldEnum.X
+    };
+
+    private final int height;
+    private final int width;
+    final int cellsCount;
+    // null, пока поле сжато до масок состояний
+    byte[] cells;
+    long[] revealedBits;
+    long[] flaggedBits;
+
+    public GameBoard(int height, int width) {
+        this(height, width, true);
+    }
+
+    protected GameBoard(int height, int width, boolean allocate) {
+        this.height = height;
+        this.width = width;
+        this.cellsCount = height * width;
+        if (allocate) {
+            this.cells = new byte[cellsCount];
+        }
+    }
+
+    protected byte cell(int index) {
+        return cells[index];
+    }
+
+    protected void setCell(int index, int value) {
+        cells[index] = (byte) value;
+    }
+
+    protected boolean hasCells() {
+        return cells != null;
+    }
+
+    protected void allocateCells() {
+        cells = new byte[cellsCount];
+    }
+
+    protected void releaseCells() {
+        cells = null;
+    }
+
+    // копирует байты клеток несжатого поля в массив
+    protected void copyCells(byte[] target) {
+        System.arraycopy(cells, 0, target, 0, cellsCount);
+    }
+
+    // освобождение памяти поля удаленной игры, поле в куче собирает GC
+    public void release() {
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int size() {
+        return cellsCount;
+    }
+
+    public boolean isCompacted() {
+        return !hasCells();
+    }
+
+    // размер поля в памяти в байтах: одна клетка на байт или маски состояний сжатого поля
+    public long getResidentSize() {
+        if (!isCompacted()) {
+            return cellsCount;
+        }
+        return 8L * (revealedBits.length + (flaggedBits == null ? 0 : flaggedBits.length));
+    }
+
+    /**
+     * Копия поля в куче, которая не меняется последующими ходами. Снимается под монитором игры для ответа,
+     * сериализуемого после освобождения монитора.
+     */
+    public GameBoard copy() {
+        GameBoard copy = new GameBoard(height, width, false);
+        if (isCompacted()) {
+            copy.revealedBits = revealedBits.clone();
+            copy.flaggedBits = flaggedBits == null ? null : flaggedBits.clone();
+        } else {
+            copy.cells = new byte[cellsCount];
+            copyCells(copy.cells);
+        }
+        return copy;
+    }
+
+    /**
+     * Оставляет от поля только маски открытых и помеченных клеток. Маска флагов хранится, только если флаги есть.
+     */
+    public void compact() {
+        if (isCompacted()) {
+            return;
+        }
+        revealedBits = toBits(REVEALED);
+        long[] flagged = toBits(FLAGGED);
+        flaggedBits = isEmpty(flagged) ? null : flagged;
+        releaseCells();
+    }
+
+    /**
+     * Восстанавливает байты клеток с состояниями из масок, значения клеток остаются нулевыми.
+     */
+    public void expand() {
+        if (!isCompacted()) {
+            return;
+        }
+        allocateCells();
+        fromBits(revealedBits, REVEALED);
+        if (flaggedBits != null) {
+            fromBits(flaggedBits, FLAGGED);
+        }
+        revealedBits = null;
+        flaggedBits = null;
+    }
+
+    public void writeCompacted(DataOutput out) throws IOException {
+        writeBits(out, revealedBits);
+        out.writeBoolean(flaggedBits != null);
+        if (flaggedBits != null) {
+            writeBits(out, flaggedBits);
+        }
+    }
+
+    public void readCompacted(DataInput in) throws IOException {
+        revealedBits = readBits(in);
+        flaggedBits = in.readBoolean() ? readBits(in) : null;
+        releaseCells();
+    }
+
+    private long[] toBits(int state) {
+        long[] bits = new long[(cellsCount + 63) >>> 6];
+        for (int i = 0; i < cellsCount; i++) {
+            if ((cell(i) & state) != 0) {
+                bits[i >>> 6] |= 1L << i;
+            }
+        }
+        return bits;
+    }
+
+    private void fromBits(long[] bits, int state) {
+        for (int word = 0; word < bits.length; word++) {
+            long value = bits[word];
+            while (value != 0) {
+                int i = (word << 6) + Long.numberOfTrailingZeros(value);
+                setCell(i, cell(i) | state);
+                value &= value - 1;
+            }
+        }
+    }
+
+    private static boolean isEmpty(long[] bits) {
+        for (long word : bits) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeBits(DataOutput out, long[] bits) throws IOException {
+        for (long word : bits) {
+            out.writeLong(word);
+        }
+    }
+
+    private long[] readBits(DataInput in) throws IOException {
+        long[] bits = new long[(cellsCount + 63) >>> 6];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = in.readLong();
+        }
+        return bits;
+    }
+
+    public int index(int row, int col) {
+        return row * width + col;
+    }
+
+    public int getValue(int index) {
+        return cell(index) & VALUE_MASK;
+    }
+
+    public int getValue(int row, int col) {
+        return getValue(index(row, col));
+    }
+
+    public void setValue(int index, int value) {
+        setCell(index, (cell(index) & ~VALUE_MASK) | value);
+    }
+
+    public void setValue(int row, int col, int value) {
+        setValue(index(row, col), value);
+    }
+
+    public boolean isMine(int index) {
+        return getValue(index) == MINE;
+    }
+
+    public boolean isMine(int row, int col) {
+        return isMine(index(row, col));
+    }
+
+    public boolean isRevealed(int index) {
+        return (cell(index) & REVEALED) != 0;
+    }
+
+    public boolean isRevealed(int row, int col) {
+        return isRevealed(index(row, col));
+    }
+
+    public void reveal(int index) {
+        setCell(index, cell(index) | REVEALED);
+    }
+
+    public void reveal(int row, int col) {
+        reveal(index(row, col));
+    }
+
+    public boolean isFlagged(int index) {
+        return (cell(index) & FLAGGED) != 0;
+    }
+
+    public boolean isFlagged(int row, int col) {
+        return isFlagged(index(row, col));
+    }
+
+    public void setFlagged(int index, boolean flagged) {
+        setCell(index, flagged ? cell(index) | FLAGGED : cell(index) & ~FLAGGED);
+    }
+
+    public int countFlaggedNeighbours(int row, int col) {
+        int flagged = 0;
+        for (int i = Math.max(row - 1, 0); i <= Math.min(row + 1, height - 1); i++) {
+            for (int j = Math.max(col - 1, 0); j <= Math.min(col + 1, width - 1); j++) {
+                if ((i != row || j != col) && isFlagged(i * width + j)) {
+                    flagged++;
+                }
+            }
+        }
+        return flagged;
+    }
+
+    // есть ли среди закрытых непомеченных соседей мина, то есть флаги вокруг клетки стоят неверно
+    public boolean hasUnflaggedMineAround(int row, int col) {
+        for (int i = Math.max(row - 1, 0); i <= Math.min(row + 1, height - 1); i++) {
+            for (int j = Math.max(col - 1, 0); j <= Math.min(col + 1, width - 1); j++) {
+                int neighbour = i * width + j;
+                if (!isRevealed(neighbour) && !isFlagged(neighbour) && isMine(neighbour)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Открывает всех закрытых непомеченных соседей клетки, пустые соседи раскрываются заливкой {@link #revealArea}.
+     *
+     * @return количество открытых клеток
+     */
+    public int revealNeighbours(int row, int col, RevealedCells revealedCells) {
+        int revealed = 0;
+        for (int i = Math.max(row - 1, 0); i <= Math.min(row + 1, height - 1); i++) {
+            for (int j = Math.max(col - 1, 0); j <= Math.min(col + 1, width - 1); j++) {
+                if (!isFlagged(i * width + j)) {
+                    revealed += revealArea(i, j, revealedCells);
+                }
+            }
+        }
+        return revealed;
+    }
+
+    // сбрасывает значения клеток, сохраняя их состояния
+    public void clearValues() {
+        for (int i = 0; i < cellsCount; i++) {
+            setCell(i, cell(i) & ~VALUE_MASK);
+        }
+    }
+
+    public void writeCells(DataOutput out) throws IOException {
+        out.write(cells);
+    }
+
+    public void readCells(DataInput in) throws IOException {
+        in.readFully(cells);
+    }
+
+    /**
+     * Открывает клетку и, если вокруг нее нет мин, всю связную область пустых клеток вместе с ее границей.
+     * Обход в ширину по явной очереди индексов: каждая клетка посещается не более одного раза,
+     * глубина рекурсии не зависит от размера поля.
+     *
+     * @param revealedCells если не null, в него добавляются индексы открытых клеток
+     * @return количество открытых этим ходом клеток
+     */
+    public int revealArea(int row, int col, RevealedCells revealedCells) {
+        int start = index(row, col);
+        if (isRevealed(start)) {
+            return 0;
+        }
+        reveal(start);
+        if (revealedCells != null) {
+            revealedCells.add(start);
+        }
+        if (getValue(start) != 0) {
+            return 1;
+        }
+
+        int revealed = 1;
+        int[] queue = new int[Math.min(cellsCount, 64)];
+        int head = 0;
+        int size = 0;
+        queue[size++] = start;
+        while (size > 0) {
+            int current = queue[head];
+            head = (head + 1) % queue.length;
+            size--;
+            int currentRow = current / width;
+            int currentCol = current - currentRow * width;
+            int fromRow = Math.max(currentRow - 1, 0);
+            int toRow = Math.min(currentRow + 1, height - 1);
+            int fromCol = Math.max(currentCol - 1, 0);
+            int toCol = Math.min(currentCol + 1, width - 1);
+            for (int i = fromRow; i <= toRow; i++) {
+                for (int j = fromCol; j <= toCol; j++) {
+                    int neighbour = i * width + j;
+                    if (isRevealed(neighbour) || isFlagged(neighbour) || isMine(neighbour)) {
+                        continue;
+                    }
+                    reveal(neighbour);
+                    revealed++;
+                    if (revealedCells != null) {
+                        revealedCells.add(neighbour);
+                    }
+                    if (getValue(neighbour) == 0) {
+                        if (size == queue.length) {
+                            queue = growQueue(queue, head, size);
+                            head = 0;
+                        }
+                        queue[(head + size) % queue.length] = neighbour;
+                        size++;
+                    }
+                }
+            }
+        }
+        return revealed;
+    }
+
+    private int[] growQueue(int[] queue, int head, int size) {
+        int[] grown = new int[Math.min(Math.max(queue.length * 2, 1), cellsCount)];
+        for (int i = 0; i < size; i++) {
+            grown[i] = queue[(head + i) % queue.length];
+        }
+        return grown;
+    }
+
+    public FieldEnum getFieldEnum(int index) {
+        return VALUES[getValue(index)];
+    }
+
+    public FieldEnum getFieldEnum(int row, int col) {
+        return getFieldEnum(index(row, col));
+    }
+
+    /**
+     * Клиентское представление поля. Для завершенной игры открываются все клетки,
+     * мины показываются как "M" при выигрыше и как "X" при проигрыше, помеченные закрытые клетки - как "F".
+     */
+    public String[][] toClientField(boolean completed, boolean won) {
+        String[][] clientField = new String[height][width];
+        for (int i = 0; i < height; i++) {
+            String[] clientRow = clientField[i];
+            int rowIndex = i * width;
+            for (int j = 0; j < width; j++) {
+                clientRow[j] = getClientValue(rowIndex + j, completed, won);
+            }
+        }
+        return clientField;
+    }
+
+    public char getClientChar(int index, boolean completed, boolean won) {
+        return getClientValue(index, completed, won).charAt(0);
+    }
+
+    public String getClientValue(int index, boolean completed, boolean won) {
+        if (!completed && !isRevealed(index)) {
+            return isFlagged(index) ? FieldEnum.F.getValue() : FieldEnum.EMPTY.getValue();
+        }
+        if (won && isMine(index)) {
+            return FieldEnum.M.getValue();
+        }
+        return getFieldEnum(index).getValue();
+    }
+}
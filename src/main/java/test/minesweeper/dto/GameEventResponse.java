@@ -0,0 +1,13 @@
+package test.minesweeper.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class GameEventResponse {
+    private final String type;
+    private final String game_id;
+    private final GameTurnDeltaResponse delta;
+    private final String error;
+}
@@ -0,0 +1,104 @@
+package test.minesweeper.dto;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Идентификаторы игр: случайное 64-битное число, которое клиент видит как строку base62 из 11 символов.
+ * <p>
+ * Генератор свой у каждого потока: общий {@code SecureRandom} за {@code UUID.randomUUID()} сериализует
+ * создание игр на одной блокировке. По числу идентификатор находится в примитивном индексе хранилища
+ * без хранения и хеширования строк.
+ * <p>
+ * В кластере старшие {@link #SHARD_BITS} бит числа - шард игры, по которому любой узел находит
+ * владельца игры на кольце согласованного хеширования.
+ */
+public final class GameIds {
+    public static final int LENGTH = 11;
+    public static final int SHARD_BITS = 12;
+    public static final int SHARDS = 1 << SHARD_BITS;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+    private static final long BASE = ALPHABET.length;
+
+    private static final ThreadLocal<SecureRandom> RANDOM = ThreadLocal.withInitial(GameIds::newRandom);
+
+    private GameIds() {
+    }
+
+    public static String newId() {
+        return encode(RANDOM.get().nextLong());
+    }
+
+    // идентификатор игры заданного шарда
+    public static String newId(int shard) {
+        long random = RANDOM.get().nextLong() >>> SHARD_BITS;
+        return encode((long) shard << (Long.SIZE - SHARD_BITS) | random);
+    }
+
+    public static int shard(String gameId) {
+        return (int) (key(gameId) >>> (Long.SIZE - SHARD_BITS));
+    }
+
+    // беззнаковое 64-битное число в base62 с дополнением нулями слева до 11 символов
+    public static String encode(long id) {
+        char[] chars = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) Long.remainderUnsigned(id, BASE)];
+            id = Long.divideUnsigned(id, BASE);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Ключ идентификатора в индексе: число из base62 или, для идентификаторов другого вида
+     * (например UUID игр из старого журнала), перемешанный хеш строки.
+     */
+    public static long key(String gameId) {
+        long id = 0;
+        if (gameId.length() == LENGTH) {
+            for (int i = 0; i < LENGTH; i++) {
+                int digit = digit(gameId.charAt(i));
+                // переполнение беззнакового 64-битного числа
+                if (digit < 0 || Long.compareUnsigned(id, Long.divideUnsigned(-1L - digit, BASE)) > 0) {
+                    return mix(gameId);
+                }
+                id = id * BASE + digit;
+            }
+            return id;
+        }
+        return mix(gameId);
+    }
+
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 10;
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 36;
+        }
+        return -1;
+    }
+
+    private static long mix(String gameId) {
+        long hash = 1125899906842597L;
+        for (int i = 0; i < gameId.length(); i++) {
+            hash = 31 * hash + gameId.charAt(i);
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static SecureRandom newRandom() {
+        try {
+            return SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+}
@@ -1,134 +1,256 @@
 package test.minesweeper.dto;
 
 import lombok.Data;
-import test.minesweeper.enums.FieldEnum;
 
-import java.util.Random;
-import java.util.UUID;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Data
 public class GameInfo {
+    private static final long MOVE_MINE_MIX = 0x9E3779B97F4A7C15L;
+
     private final String game_id;
     private final Integer width;
     private final Integer height;
     private final Integer minesCount;
-    private final FieldEnum[][] field;
+    // заменяется копией вне кучи при добавлении игры в хранилище вне кучи
+    private GameBoard board;
+    // зерно генератора мин: расстановка однозначно определяется зерном и первым ходом
+    private final long seed;
+    // поле уже заполнено расстановкой из зерна, первому ходу остается только убрать мину из клетки хода
+    private boolean boardGenerated;
     private Boolean completed;
+    private boolean won;
+    // счетчики для проверки первого хода и выигрыша без обхода поля
+    private boolean firstTurnDone;
+    // клетка первого хода, вместе с зерном позволяет восстановить сжатое поле
+    private int firstTurnIndex;
+    private int revealedCells;
+    private long version;
 
     public GameInfo(GameNewRequest newGameRequest) {
-        game_id = UUID.randomUUID().toString();
-        width = newGameRequest.getWidth();
-        height = newGameRequest.getHeight();
-        minesCount = newGameRequest.getMines_count();
-        field = initFields(height, width);
+        this(GameIds.newId(), newGameRequest.getWidth(), newGameRequest.getHeight(),
+                newGameRequest.getMines_count(), ThreadLocalRandom.current().nextLong());
+    }
+
+    public GameInfo(String gameId, int width, int height, int minesCount, long seed) {
+        this(gameId, width, height, minesCount, seed, new GameBoard(height, width), false);
+    }
+
+    // игра на поле, заранее заполненном расстановкой из того же зерна (см. generateBoard)
+    public GameInfo(String gameId, int width, int height, int minesCount, long seed, GameBoard generatedBoard) {
+        this(gameId, width, height, minesCount, seed, generatedBoard, true);
+    }
+
+    private GameInfo(String gameId, int width, int height, int minesCount, long seed, GameBoard board,
+                     boolean boardGenerated) {
+        this.game_id = gameId;
+        this.width = width;
+        this.height = height;
+        this.minesCount = minesCount;
+        this.seed = seed;
+        this.board = board;
+        this.boardGenerated = boardGenerated;
+        this.completed = false;
+    }
+
+    public boolean isZeroFields() {
+        return !firstTurnDone;
+    }
+
+    public int getSafeCellsRemaining() {
+        return board.size() - minesCount - revealedCells;
+    }
+
+    public void addRevealedCells(int count) {
+        revealedCells += count;
+    }
+
+    public void incrementVersion() {
+        version++;
+    }
+
+    public boolean checkOpenField(int row, int col) {
+        return completed || board.isRevealed(row, col);
+    }
+
+    /**
+     * Расстановка мин из зерна без учета первого хода. Если в клетке первого хода оказалась мина,
+     * она переносится в случайную свободную клетку, выбранную по зерну и клетке хода (см. {@link #initFirstTurn}),
+     * поэтому поле можно сгенерировать заранее, еще до первого хода.
+     */
+    public static GameBoard generateBoard(int width, int height, int minesCount, long seed) {
+        GameBoard board = new GameBoard(height, width);
+        initBombs(board, minesCount, seed);
+        reInitFields(board);
+        return board;
     }
 
-    private FieldEnum[][] initFields(Integer height, Integer width) {
-        FieldEnum [][] fieldEnums = new FieldEnum[height][width];
-        initDefaultFields(fieldEnums);
-        return fieldEnums;
+    public void initFirstTurn(int row, int col) {
+        if (!boardGenerated) {
+            initBombs(board, minesCount, seed);
+            reInitFields(board);
+            boardGenerated = true;
+        }
+        firstTurnIndex = board.index(row, col);
+        if (board.isMine(firstTurnIndex)) {
+            moveMine(board, firstTurnIndex, seed);
+        }
+        firstTurnDone = true;
     }
 
-    private void initDefaultFields(FieldEnum[][] fieldEnums) {
-        for (int i = 0; i < height; i++) {
-            for (int j = 0; j < width; j++) {
-                fieldEnums[i][j] = FieldEnum.ZERO;
+    public boolean isCompacted() {
+        return board.isCompacted();
+    }
+
+    // скрытое поле не хранится, остаются зерно, клетка первого хода и маски состояний клеток
+    public void compact() {
+        board.compact();
+        boardGenerated = false;
+    }
+
+    // повторная генерация поля из зерна и клетки первого хода дает ту же расстановку мин
+    public void expand() {
+        if (!board.isCompacted()) {
+            return;
+        }
+        board.expand();
+        if (firstTurnDone) {
+            initBombs(board, minesCount, seed);
+            reInitFields(board);
+            if (board.isMine(firstTurnIndex)) {
+                moveMine(board, firstTurnIndex, seed);
             }
+            boardGenerated = true;
         }
     }
 
-    public boolean isZeroFields() {
-        boolean t = true;
-        for (int i = 0; i < height && t; i++) {
-            for (int j = 0; j < width; j++) {
-                if (!FieldEnum.ZERO.equals(field[i][j])) {
-                    t = false;
-                    break;
-                }
+    // состояние игры для снимка журнала и холодного хранилища
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeUTF(game_id);
+        out.writeInt(width);
+        out.writeInt(height);
+        out.writeInt(minesCount);
+        out.writeLong(seed);
+        out.writeBoolean(completed);
+        out.writeBoolean(won);
+        out.writeBoolean(firstTurnDone);
+        out.writeInt(revealedCells);
+        out.writeLong(version);
+        out.writeInt(firstTurnIndex);
+        // сжатая игра записывается масками состояний, поле восстановится из зерна при ходе
+        out.writeBoolean(isCompacted());
+        if (isCompacted()) {
+            board.writeCompacted(out);
+        } else {
+            board.writeCells(out);
+        }
+    }
+
+    public static GameInfo readFrom(DataInput in) throws IOException {
+        GameInfo gameInfo = new GameInfo(in.readUTF(), in.readInt(), in.readInt(), in.readInt(), in.readLong());
+        gameInfo.setCompleted(in.readBoolean());
+        gameInfo.setWon(in.readBoolean());
+        gameInfo.setFirstTurnDone(in.readBoolean());
+        gameInfo.setRevealedCells(in.readInt());
+        gameInfo.setVersion(in.readLong());
+        gameInfo.setFirstTurnIndex(in.readInt());
+        if (in.readBoolean()) {
+            gameInfo.getBoard().readCompacted(in);
+        } else {
+            gameInfo.getBoard().readCells(in);
+            // расстановка неначатой игры заново генерируется из зерна при первом ходе
+            if (!gameInfo.isFirstTurnDone()) {
+                gameInfo.getBoard().clearValues();
             }
+            gameInfo.setBoardGenerated(gameInfo.isFirstTurnDone());
         }
-        return t;
+        return gameInfo;
     }
 
-    public void initFirstTurn(int row, int col) {
-        initBombs(field, minesCount, row, col);
-        reInitFields(field);
-    }
-
-    private void initBombs(FieldEnum[][] fieldEnums, Integer minesCount, int row, int col) {
-        Random random = new Random();
-        int k = (int) Math.round(Math.sqrt(height * width));
-        while(minesCount > 0) {
-            for (int i = 0; i < height; i++) {
-                for (int j = 0; j < width; j++) {
-                    if (random.nextInt(k) == 0 && !FieldEnum.X.equals(fieldEnums[i][j]) && minesCount > 0
-                    && (i != row || j != col)) {
-                        fieldEnums[i][j] = FieldEnum.X;
-                        minesCount--;
-                    }
-                }
+    // равномерная расстановка мин выборкой с отказами: разыгрывается меньшее из количества мин и пустых клеток,
+    // поэтому ожидаемое число попыток не превышает двух на клетку даже для плотных полей
+    private static void initBombs(GameBoard board, int minesCount, long seed) {
+        int size = board.size();
+        boolean dense = minesCount > size / 2;
+        if (dense) {
+            for (int i = 0; i < size; i++) {
+                board.setValue(i, GameBoard.MINE);
             }
-            if (minesCount > 0 && k > 0) {
-                k--;
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        int toPlace = dense ? size - minesCount : minesCount;
+        while (toPlace > 0) {
+            int index = random.nextInt(size);
+            if (board.isMine(index) != dense) {
+                continue;
             }
+            board.setValue(index, dense ? 0 : GameBoard.MINE);
+            toPlace--;
         }
     }
 
-    private void reInitFields(FieldEnum[][] fieldEnums) {
-        for (int i = 0; i < height; i++) {
-            for (int j = 0; j < width; j++) {
-                if (!FieldEnum.X.equals(fieldEnums[i][j])) {
-                    reInitField(fieldEnums, i, j);
-                }
+    // перенос мины из клетки первого хода в равновероятно выбранную свободную клетку с пересчетом чисел только
+    // вокруг двух клеток; выбор зависит только от зерна и клетки хода, поэтому сжатое поле восстанавливается тем же
+    private static void moveMine(GameBoard board, int from, long seed) {
+        int free = 0;
+        for (int i = 0; i < board.size(); i++) {
+            if (!board.isMine(i)) {
+                free++;
             }
         }
+        // клетка хода перемешивается в зерно, чтобы не повторить последовательность расстановки мин
+        int skip = new SplittableRandom(seed ^ (from + 1) * MOVE_MINE_MIX).nextInt(free);
+        int to = 0;
+        for (; ; to++) {
+            if (!board.isMine(to) && skip-- == 0) {
+                break;
+            }
+        }
+        board.setValue(to, GameBoard.MINE);
+        addAround(board, to, 1);
+        board.setValue(from, 0);
+        addAround(board, from, -1);
+        board.setValue(from, countMinesAround(board, from));
     }
 
-    private void reInitField(FieldEnum[][] fieldEnums, int row, int col) {
-        int minesCount = 0;
-        for (int dx = -1; dx <= 1; dx++) {
-            for (int dy = -1; dy <= 1; dy++) {
-                if (dx != 0 || dy != 0) {
-                    int nx = row + dx, ny = col + dy;
-                    if (nx >= 0 && ny >= 0 && nx < height && ny < width) {
-                        if (FieldEnum.X.equals(fieldEnums[nx][ny])) {
-                            minesCount++;
-                        }
-                    }
-                }
+    // подсчет чисел от мин: каждая мина увеличивает значение соседних клеток без мин
+    private static void reInitFields(GameBoard board) {
+        for (int index = 0; index < board.size(); index++) {
+            if (board.isMine(index)) {
+                addAround(board, index, 1);
             }
         }
-        switch (minesCount) {
-            case 0:
-                fieldEnums[row][col] = FieldEnum.ZERO;
-                break;
-            case 1:
-                fieldEnums[row][col] = FieldEnum.ONE;
-                break;
-            case 2:
-                fieldEnums[row][col] = FieldEnum.TWO;
-                break;
-            case 3:
-                fieldEnums[row][col] = FieldEnum.THREE;
-                break;
-            case 4:
-                fieldEnums[row][col] = FieldEnum.FOUR;
-                break;
-            case 5:
-                fieldEnums[row][col] = FieldEnum.FIVE;
-                break;
-            case 6:
-                fieldEnums[row][col] = FieldEnum.SIX;
-                break;
-            case 7:
-                fieldEnums[row][col] = FieldEnum.SEVEN;
-                break;
-            case 8:
-                fieldEnums[row][col] = FieldEnum.EIGHT;
-                break;
-            default:
-                break;
+    }
+
+    private static void addAround(GameBoard board, int index, int delta) {
+        int width = board.getWidth();
+        int row = index / width;
+        int col = index % width;
+        for (int i = Math.max(row - 1, 0); i <= Math.min(row + 1, board.getHeight() - 1); i++) {
+            for (int j = Math.max(col - 1, 0); j <= Math.min(col + 1, width - 1); j++) {
+                if ((i != row || j != col) && !board.isMine(i, j)) {
+                    board.setValue(i, j, board.getValue(i, j) + delta);
+                }
+            }
         }
+    }
 
+    private static int countMinesAround(GameBoard board, int index) {
+        int width = board.getWidth();
+        int row = index / width;
+        int col = index % width;
+        int mines = 0;
+        for (int i = Math.max(row - 1, 0); i <= Math.min(row + 1, board.getHeight() - 1); i++) {
+            for (int j = Math.max(col - 1, 0); j <= Math.min(col + 1, width - 1); j++) {
+                if ((i != row || j != col) && board.isMine(i, j)) {
+                    mines++;
+                }
+            }
+        }
+        return mines;
     }
 }
@@ -0,0 +1,46 @@
+package test.minesweeper.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.Data;
+import test.minesweeper.enums.FieldFormatEnum;
+import test.minesweeper.serializer.CompactFieldSerializer;
+
+@Data
+@JsonPropertyOrder({"game_id", "width", "height", "mines_count", "field_format", "field", "completed"})
+public class GameInfoCompactResponse {
+    private final String game_id;
+    private final Integer width;
+    private final Integer height;
+    private final Integer mines_count;
+    private final Boolean completed;
+    @JsonIgnore
+    private final boolean won;
+    @JsonIgnore
+    private final GameBoard board;
+    @JsonIgnore
+    private final FieldFormatEnum fieldFormat;
+
+    // компактная форма снимка игры, снятого под ее монитором
+    public GameInfoCompactResponse(GameInfoResponse gameInfoResponse, FieldFormatEnum fieldFormat) {
+        game_id = gameInfoResponse.getGame_id();
+        width = gameInfoResponse.getWidth();
+        height = gameInfoResponse.getHeight();
+        mines_count = gameInfoResponse.getMines_count();
+        completed = gameInfoResponse.getCompleted();
+        won = gameInfoResponse.isWon();
+        board = gameInfoResponse.getBoard();
+        this.fieldFormat = fieldFormat;
+    }
+
+    public String getField_format() {
+        return fieldFormat.getValue();
+    }
+
+    // поле кодируется сериализатором напрямую из упакованного состояния игры
+    @JsonSerialize(using = CompactFieldSerializer.class)
+    public GameInfoCompactResponse getField() {
+        return this;
+    }
+}
@@ -1,37 +1,40 @@
 package test.minesweeper.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.Data;
-import test.minesweeper.enums.FieldEnum;
+import test.minesweeper.serializer.GameInfoResponseSerializer;
 
+// в JSON ответ пишется GameInfoResponseSerializer прямо из упакованного поля
 @Data
+@JsonSerialize(using = GameInfoResponseSerializer.class)
 public class GameInfoResponse {
     private final String game_id;
     private final Integer width;
     private final Integer height;
     private final Integer mines_count;
-    private String[][] field;
-    private Boolean completed;
+    private final Boolean completed;
+    @JsonIgnore
+    private final boolean won;
+    @JsonIgnore
+    private final long version;
+    @JsonIgnore
+    private final GameBoard board;
 
+    // снимок состояния игры: создается под монитором игры, последующие ходы его не меняют
     public GameInfoResponse(GameInfo gameInfo) {
         game_id = gameInfo.getGame_id();
         width = gameInfo.getWidth();
         height = gameInfo.getHeight();
         mines_count = gameInfo.getMinesCount();
-        field = initFields();
-        completed = false;
+        completed = gameInfo.getCompleted();
+        won = gameInfo.isWon();
+        version = gameInfo.getVersion();
+        board = gameInfo.getBoard().copy();
     }
 
-    private String[][] initFields() {
-        String[][] fieldEnums = new String[height][width];
-        for (int i = 0; i < height; i++) {
-            for (int j = 0; j < width; j++) {
-                fieldEnums[i][j] = FieldEnum.EMPTY.getValue();
-            }
-        }
-        return fieldEnums;
-    }
-
-    public boolean checkOpenField(int row, int col) {
-        return !FieldEnum.EMPTY.getValue().equals(field[row][col]);
+    // поле в виде массива строк для вызывающего кода, сериализатор его не строит
+    public String[][] getField() {
+        return board.toClientField(completed, won);
     }
 }
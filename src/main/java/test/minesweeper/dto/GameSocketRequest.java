@@ -0,0 +1,13 @@
+package test.minesweeper.dto;
+
+import lombok.Data;
+
+@Data
+public class GameSocketRequest {
+    // turn - ход, subscribe - подписка на события игры без хода
+    private String type;
+    private String game_id;
+    private Integer col;
+    private Integer row;
+    private String action;
+}
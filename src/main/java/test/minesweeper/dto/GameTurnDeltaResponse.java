@@ -0,0 +1,54 @@
+package test.minesweeper.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class GameTurnDeltaResponse {
+    private final String game_id;
+    private final Long version;
+    private final Boolean completed;
+    private final Boolean won;
+    private final List<CellResponse> cells;
+
+    public GameTurnDeltaResponse(GameInfo gameInfo, RevealedCells revealedCells) {
+        game_id = gameInfo.getGame_id();
+        version = gameInfo.getVersion();
+        completed = gameInfo.getCompleted();
+        won = gameInfo.isWon();
+        cells = initCells(gameInfo, revealedCells);
+    }
+
+    public GameTurnDeltaResponse(String game_id, long version, boolean completed, boolean won, List<CellResponse> cells) {
+        this.game_id = game_id;
+        this.version = version;
+        this.completed = completed;
+        this.won = won;
+        this.cells = cells;
+    }
+
+    // при завершении игры клиенту дополнительно отправляются все оставшиеся закрытыми клетки
+    private List<CellResponse> initCells(GameInfo gameInfo, RevealedCells revealedCells) {
+        GameBoard board = gameInfo.getBoard();
+        List<CellResponse> cellResponses = new ArrayList<>(revealedCells.size());
+        for (int i = 0; i < revealedCells.size(); i++) {
+            cellResponses.add(initCell(board, revealedCells.get(i)));
+        }
+        if (completed) {
+            for (int i = 0; i < board.size(); i++) {
+                if (!board.isRevealed(i)) {
+                    cellResponses.add(initCell(board, i));
+                }
+            }
+        }
+        return cellResponses;
+    }
+
+    private CellResponse initCell(GameBoard board, int index) {
+        int row = index / board.getWidth();
+        int col = index - row * board.getWidth();
+        return new CellResponse(row, col, board.getClientValue(index, completed, won));
+    }
+}
@@ -11,4 +11,6 @@ public class GameTurnRequest {
     private Integer col;
     @NotNull
     private Integer row;
+    // open (по умолчанию), flag, unflag или chord
+    private String action;
 }
@@ -0,0 +1,19 @@
+package test.minesweeper.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class GameTurnsRequest {
+    public static final int MAX_TURNS = 10_000;
+
+    // ходы применяются в порядке списка, в одном пакете могут быть ходы разных игр
+    @NotEmpty
+    @Size(max = MAX_TURNS)
+    private List<@Valid @NotNull GameTurnRequest> turns;
+}
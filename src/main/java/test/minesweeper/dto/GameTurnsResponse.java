@@ -0,0 +1,13 @@
+package test.minesweeper.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class GameTurnsResponse {
+    // результат каждого хода в порядке запроса
+    private final List<TurnResultResponse> results;
+    // итоговое состояние каждой игры пакета и все открытые пакетом клетки
+    private final List<GameTurnDeltaResponse> games;
+}
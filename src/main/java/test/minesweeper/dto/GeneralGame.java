@@ -2,17 +2,38 @@ package test.minesweeper.dto;
 
 import lombok.Data;
 
-import java.time.LocalDateTime;
+import java.util.Objects;
 
 @Data
 public class GeneralGame {
     private GameInfo gameInfo;
-    private GameInfoResponse gameInfoResponse;
-    private LocalDateTime localDateTime;
+    // игра на поле из плиток, для нее gameInfo не задан
+    private ChunkedGameInfo chunkedGameInfo;
+    // момент устаревания игры по System.nanoTime()
+    private volatile long expiresAt;
+    // клетки, учтенные в бюджете хранилища; меняются под монитором хранилища, а читаются на каждом ходе без него
+    private volatile long cells;
 
-    public GeneralGame (GameInfo gameInfo, GameInfoResponse gameInfoResponse) {
+    public GeneralGame (GameInfo gameInfo) {
         this.gameInfo = gameInfo;
-        this.gameInfoResponse = gameInfoResponse;
-        this.localDateTime = LocalDateTime.now();
+    }
+
+    public GeneralGame(ChunkedGameInfo chunkedGameInfo) {
+        this.chunkedGameInfo = chunkedGameInfo;
+    }
+
+    public boolean isChunked() {
+        return Objects.nonNull(chunkedGameInfo);
+    }
+
+    public String getGameId() {
+        return isChunked() ? chunkedGameInfo.getGame_id() : gameInfo.getGame_id();
+    }
+
+    // фактический размер поля в памяти: для поля из плиток растет с каждой новой плиткой
+    public long countCells() {
+        return isChunked()
+                ? (long) chunkedGameInfo.getBoard().getTileCount() * ChunkedBoard.TILE_CELLS
+                : gameInfo.getBoard().getResidentSize();
     }
 }
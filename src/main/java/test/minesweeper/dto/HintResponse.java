@@ -0,0 +1,13 @@
+package test.minesweeper.dto;
+
+import lombok.Data;
+
+@Data
+public class HintResponse {
+    private final String game_id;
+    private final Integer row;
+    private final Integer col;
+    private final Double probability;
+    // true, если клетка безопасна наверняка, иначе это клетка с наименьшей вероятностью мины
+    private final Boolean safe;
+}
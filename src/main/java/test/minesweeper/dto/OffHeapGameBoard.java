@@ -0,0 +1,119 @@
+package test.minesweeper.dto;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Поле, клетки которого лежат в блоке {@link OffHeapMemory} вместо массива в куче. Сжатие поля возвращает
+ * блок в память, восстановление выделяет новый. Выделение и освобождение блока синхронизированы на поле:
+ * удаление игры из хранилища идет без монитора игры.
+ * <p>
+ * В куче остаются объекты игры (GeneralGame, GameInfo) и срез буфера на каждое поле, поэтому вне кучи
+ * уходят байты клеток, а число объектов в куче по-прежнему растет с числом живых игр.
+ */
+public class OffHeapGameBoard extends GameBoard {
+    private static final int COPY_CHUNK = 1 << 16;
+
+    private final OffHeapMemory memory;
+    // null, пока поле сжато до масок состояний; после удаления игры - копия клеток в куче.
+    // Читается при каждом обращении к клетке, поэтому чтение, начатое до удаления, переходит на копию
+    private volatile ByteBuffer block;
+    private boolean released;
+
+    // копия поля из кучи вместе с состоянием сжатия
+    public OffHeapGameBoard(GameBoard source, OffHeapMemory memory) {
+        super(source.getHeight(), source.getWidth(), false);
+        this.memory = memory;
+        if (source.isCompacted()) {
+            revealedBits = source.revealedBits;
+            flaggedBits = source.flaggedBits;
+        } else {
+            block = memory.allocate(cellsCount);
+            for (int offset = 0; offset < cellsCount; offset += COPY_CHUNK) {
+                int length = Math.min(COPY_CHUNK, cellsCount - offset);
+                if (source.cells != null) {
+                    block.put(offset, source.cells, offset, length);
+                } else {
+                    for (int i = offset; i < offset + length; i++) {
+                        block.put(i, source.cell(i));
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    protected byte cell(int index) {
+        return block.get(index);
+    }
+
+    @Override
+    protected void setCell(int index, int value) {
+        block.put(index, (byte) value);
+    }
+
+    @Override
+    protected void copyCells(byte[] target) {
+        block.get(0, target, 0, cellsCount);
+    }
+
+    @Override
+    protected boolean hasCells() {
+        return block != null;
+    }
+
+    @Override
+    protected synchronized void allocateCells() {
+        // после удаления игры блок из памяти не выделяется, поле опоздавшего хода уходит в кучу
+        block = released ? ByteBuffer.allocate(cellsCount) : memory.allocate(cellsCount);
+    }
+
+    @Override
+    protected synchronized void releaseCells() {
+        if (block != null && !released) {
+            memory.release(block);
+        }
+        block = null;
+    }
+
+    /**
+     * Возвращает блок удаленной игры в память. Запрос, взявший игру до удаления (например, сериализация
+     * ответа), дальше читает и пишет копию клеток в куче, а не блок, который получит другая игра.
+     */
+    @Override
+    public synchronized void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        ByteBuffer offHeap = block;
+        if (offHeap != null) {
+            ByteBuffer detached = ByteBuffer.allocate(cellsCount);
+            detached.put(0, offHeap, 0, cellsCount);
+            block = detached;
+            memory.release(offHeap);
+        }
+    }
+
+    @Override
+    public void writeCells(DataOutput out) throws IOException {
+        byte[] chunk = new byte[Math.min(COPY_CHUNK, cellsCount)];
+        for (int offset = 0; offset < cellsCount; offset += chunk.length) {
+            int length = Math.min(chunk.length, cellsCount - offset);
+            block.get(offset, chunk, 0, length);
+            out.write(chunk, 0, length);
+        }
+    }
+
+    @Override
+    public void readCells(DataInput in) throws IOException {
+        byte[] chunk = new byte[Math.min(COPY_CHUNK, cellsCount)];
+        for (int offset = 0; offset < cellsCount; offset += chunk.length) {
+            int length = Math.min(chunk.length, cellsCount - offset);
+            in.readFully(chunk, 0, length);
+            block.put(offset, chunk, 0, length);
+        }
+    }
+}
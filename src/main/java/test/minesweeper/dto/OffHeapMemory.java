@@ -0,0 +1,122 @@
+package test.minesweeper.dto;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Память полей вне кучи: прямые буферы-плиты по {@link #SLAB_SIZE} байт, нарезанные на блоки размером
+ * в степень двойки. Освобожденные блоки одного размера переиспользуются, большие поля получают
+ * отдельный прямой буфер.
+ * <p>
+ * Поле удаленной игры переключается на копию клеток в куче до возврата блока (см.
+ * {@link OffHeapGameBoard#release()}). Освобожденный блок становится доступным для выделения через два вызова
+ * {@link #reclaim()}, чтобы завершилось обращение к клетке, которое прочитало ссылку на блок до переключения.
+ */
+public class OffHeapMemory {
+    public static final int SLAB_SIZE = 1 << 22;
+
+    private static final int MIN_BLOCK_SHIFT = 6;
+    private static final int MAX_BLOCK_SHIFT = 22;
+    private static final byte[] ZEROS = new byte[1 << 16];
+
+    private final ConcurrentLinkedQueue<ByteBuffer>[] freeBlocks;
+    private final ConcurrentLinkedQueue<ByteBuffer> released = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<ByteBuffer> cooling = new ConcurrentLinkedQueue<>();
+    private final AtomicLong reservedBytes = new AtomicLong();
+    private final AtomicLong usedBytes = new AtomicLong();
+    private ByteBuffer slab;
+
+    @SuppressWarnings("unchecked")
+    public OffHeapMemory() {
+        freeBlocks = new ConcurrentLinkedQueue[MAX_BLOCK_SHIFT + 1];
+        for (int i = MIN_BLOCK_SHIFT; i <= MAX_BLOCK_SHIFT; i++) {
+            freeBlocks[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    /**
+     * Обнуленный блок не меньше заданного размера.
+     */
+    public ByteBuffer allocate(int size) {
+        int shift = blockShift(size);
+        ByteBuffer block;
+        if (shift > MAX_BLOCK_SHIFT) {
+            block = ByteBuffer.allocateDirect(size);
+            reservedBytes.addAndGet(size);
+        } else {
+            block = freeBlocks[shift].poll();
+            if (block == null) {
+                block = carve(1 << shift);
+            } else {
+                clear(block);
+            }
+        }
+        usedBytes.addAndGet(block.capacity());
+        return block;
+    }
+
+    public void release(ByteBuffer block) {
+        usedBytes.addAndGet(-block.capacity());
+        released.offer(block);
+    }
+
+    // блоки, освобожденные до предыдущего вызова, возвращаются в списки свободных
+    public void reclaim() {
+        ByteBuffer block;
+        while ((block = cooling.poll()) != null) {
+            int shift = blockShift(block.capacity());
+            if (shift > MAX_BLOCK_SHIFT) {
+                // отдельный буфер освобождает GC вместе с объектом буфера
+                reservedBytes.addAndGet(-block.capacity());
+            } else {
+                freeBlocks[shift].offer(block);
+            }
+        }
+        while ((block = released.poll()) != null) {
+            cooling.offer(block);
+        }
+    }
+
+    // память, занятая плитами и отдельными буферами
+    public long getReservedBytes() {
+        return reservedBytes.get();
+    }
+
+    // память блоков живых полей
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    private synchronized ByteBuffer carve(int blockSize) {
+        if (slab == null || slab.remaining() < blockSize) {
+            // остаток старой плиты раздается блоками меньших размеров
+            if (slab != null) {
+                for (int shift = MAX_BLOCK_SHIFT; shift >= MIN_BLOCK_SHIFT; shift--) {
+                    while (slab.remaining() >= 1 << shift) {
+                        freeBlocks[shift].offer(slice(1 << shift));
+                    }
+                }
+            }
+            slab = ByteBuffer.allocateDirect(SLAB_SIZE);
+            reservedBytes.addAndGet(SLAB_SIZE);
+        }
+        return slice(blockSize);
+    }
+
+    private ByteBuffer slice(int blockSize) {
+        ByteBuffer block = slab.slice(slab.position(), blockSize);
+        slab.position(slab.position() + blockSize);
+        return block;
+    }
+
+    private static int blockShift(int size) {
+        return Math.max(MIN_BLOCK_SHIFT, 32 - Integer.numberOfLeadingZeros(Math.max(size, 1) - 1));
+    }
+
+    private static void clear(ByteBuffer block) {
+        for (int offset = 0; offset < block.capacity(); offset += ZEROS.length) {
+            block.put(offset, ZEROS, 0, Math.min(ZEROS.length, block.capacity() - offset));
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package test.minesweeper.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ProbabilitiesResponse {
+    private final String game_id;
+    // false, если решатель не уложился в лимит времени и вероятности оценены приближенно
+    private final Boolean exact;
+    // закрытые клетки, соседние с открытыми
+    private final List<CellProbabilityResponse> cells;
+    // вероятность мины в любой другой закрытой клетке
+    private final Double other_probability;
+}
@@ -0,0 +1,103 @@
+package test.minesweeper.dto;
+
+import test.minesweeper.enums.TimingPhaseEnum;
+
+import java.util.Locale;
+
+/**
+ * Время фаз одного запроса. Каждая отметка {@link #mark(TimingPhaseEnum)} относит к фазе время с предыдущей
+ * отметки, поэтому на фазу уходит один вызов {@link System#nanoTime()}. Замер привязан к потоку запроса:
+ * его начинает и завершает {@code RequestTimingFilter}, вызовы вне запроса (WebSocket, восстановление из
+ * журнала) ничего не записывают. Пока замер выключен, отметка - чтение одного статического поля.
+ */
+public class RequestTiming {
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+    private static final TimingPhaseEnum[] PHASES = TimingPhaseEnum.values();
+
+    // включается один раз при старте приложения до приема запросов
+    private static boolean enabled;
+
+    private final long start;
+    private final long[] durations = new long[PHASES.length];
+    private long last;
+    private long end;
+
+    private RequestTiming() {
+        start = System.nanoTime();
+        last = start;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        RequestTiming.enabled = enabled;
+    }
+
+    public static void mark(TimingPhaseEnum phase) {
+        if (enabled) {
+            RequestTiming timing = CURRENT.get();
+            if (timing != null) {
+                timing.record(phase);
+            }
+        }
+    }
+
+    public static RequestTiming begin() {
+        RequestTiming timing = new RequestTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    public static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    // время после последней отметки относится к сериализации ответа
+    public void finish() {
+        record(TimingPhaseEnum.SERIALIZE);
+        end = last;
+        CURRENT.remove();
+    }
+
+    public long getDuration(TimingPhaseEnum phase) {
+        return durations[phase.ordinal()];
+    }
+
+    public long getTotal() {
+        return (end == 0 ? System.nanoTime() : end) - start;
+    }
+
+    /**
+     * Значение заголовка Server-Timing: фазы с ненулевым временем и общее время в миллисекундах.
+     */
+    public String toHeader() {
+        StringBuilder header = new StringBuilder();
+        for (TimingPhaseEnum phase : PHASES) {
+            long duration = durations[phase.ordinal()];
+            if (duration > 0) {
+                appendMillis(header.append(phase.getValue()).append(";dur="), duration).append(", ");
+            }
+        }
+        return appendMillis(header.append("total;dur="), getTotal()).toString();
+    }
+
+    // фазы для журнала медленных запросов в виде ключ=значение
+    public String toLogFields() {
+        StringBuilder fields = appendMillis(new StringBuilder("total_ms="), getTotal());
+        for (TimingPhaseEnum phase : PHASES) {
+            long duration = durations[phase.ordinal()];
+            if (duration > 0) {
+                appendMillis(fields.append(' ').append(phase.getValue()).append("_ms="), duration);
+            }
+        }
+        return fields.toString();
+    }
+
+    private void record(TimingPhaseEnum phase) {
+        long now = System.nanoTime();
+        durations[phase.ordinal()] += now - last;
+        last = now;
+    }
+
+    private static StringBuilder appendMillis(StringBuilder builder, long nanos) {
+        return builder.append(String.format(Locale.ROOT, "%.3f", nanos / 1e6));
+    }
+}
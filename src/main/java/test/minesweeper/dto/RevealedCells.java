@@ -0,0 +1,26 @@
+package test.minesweeper.dto;
+
+/**
+ * Индексы клеток, открытых за один ход, в порядке открытия.
+ */
+public class RevealedCells {
+    private int[] indexes = new int[16];
+    private int size;
+
+    public void add(int index) {
+        if (size == indexes.length) {
+            int[] grown = new int[indexes.length * 2];
+            System.arraycopy(indexes, 0, grown, 0, size);
+            indexes = grown;
+        }
+        indexes[size++] = index;
+    }
+
+    public int get(int i) {
+        return indexes[i];
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,12 @@
+package test.minesweeper.dto;
+
+import lombok.Data;
+
+@Data
+public class TurnResultResponse {
+    private final String game_id;
+    private final Integer row;
+    private final Integer col;
+    private final String status;
+    private final Integer revealed;
+}
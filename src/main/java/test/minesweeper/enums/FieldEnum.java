@@ -15,7 +15,9 @@ public enum FieldEnum {
     SEVEN("7"),
     EIGHT("8"),
     M("M"),
-    X("X");
+    X("X"),
+    // закрытая клетка, помеченная флагом
+    F("F");
 
     private final String value;
 
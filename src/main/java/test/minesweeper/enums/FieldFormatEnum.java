@@ -0,0 +1,27 @@
+package test.minesweeper.enums;
+
+import lombok.Getter;
+import test.minesweeper.exception.FieldFormatException;
+
+@Getter
+public enum FieldFormatEnum {
+    // каждая строка поля - одна строка JSON
+    ROWS("rows"),
+    // все поле по строкам одной строкой длин серий: "<количество><символ>" через запятую
+    RLE("rle");
+
+    private final String value;
+
+    FieldFormatEnum(String value) {
+        this.value = value;
+    }
+
+    public static FieldFormatEnum fromValue(String value) {
+        for (FieldFormatEnum fieldFormat : values()) {
+            if (fieldFormat.value.equals(value)) {
+                return fieldFormat;
+            }
+        }
+        throw new FieldFormatException(value);
+    }
+}
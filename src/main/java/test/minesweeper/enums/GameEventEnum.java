@@ -0,0 +1,20 @@
+package test.minesweeper.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum GameEventEnum {
+    // клетки, открытые ходом, и состояние игры после хода
+    DELTA("delta"),
+    EXPIRED("expired"),
+    EVICTED("evicted"),
+    // игра выгружена на диск, подписка снимается и возобновляется следующим ходом или подпиской
+    SPILLED("spilled"),
+    ERROR("error");
+
+    private final String value;
+
+    GameEventEnum(String value) {
+        this.value = value;
+    }
+}
@@ -0,0 +1,17 @@
+package test.minesweeper.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum GameStoreEnum {
+    // поля в массивах в куче, индекс - ConcurrentHashMap по строковому идентификатору
+    HEAP("heap"),
+    // поля в прямых буферах вне кучи, индекс - открытая адресация по 64-битному идентификатору
+    OFF_HEAP("off-heap");
+
+    private final String value;
+
+    GameStoreEnum(String value) {
+        this.value = value;
+    }
+}
@@ -0,0 +1,33 @@
+package test.minesweeper.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum TimingPhaseEnum {
+    // разбор и проверка тела запроса до вызова сервиса
+    PARSE("parse"),
+    // поиск игры в хранилище, включая загрузку с диска
+    LOOKUP("lookup"),
+    // ожидание монитора игры
+    LOCK("lock"),
+    // проверка координат хода и восстановление сжатого поля
+    EXPAND("expand"),
+    // выбор поля из пула и создание игры
+    CREATE("create"),
+    // расстановка мин на первом ходе
+    INIT("init"),
+    // открытие клеток и заливка пустой области
+    REVEAL("reveal"),
+    // проверка выигрыша и завершение игры
+    WIN("win"),
+    // журнал, метрики и учет игры в хранилище
+    STORE("store"),
+    // сериализация ответа в JSON
+    SERIALIZE("serialize");
+
+    private final String value;
+
+    TimingPhaseEnum(String value) {
+        this.value = value;
+    }
+}
@@ -0,0 +1,34 @@
+package test.minesweeper.enums;
+
+import lombok.Getter;
+import test.minesweeper.exception.TurnActionException;
+
+import java.util.Objects;
+
+@Getter
+public enum TurnActionEnum {
+    OPEN("open"),
+    FLAG("flag"),
+    UNFLAG("unflag"),
+    // открытие всех непомеченных соседей открытой клетки с числом, равным количеству флагов вокруг нее
+    CHORD("chord");
+
+    private final String value;
+
+    TurnActionEnum(String value) {
+        this.value = value;
+    }
+
+    // действие не указано - обычное открытие клетки
+    public static TurnActionEnum fromValue(String value) {
+        if (Objects.isNull(value)) {
+            return OPEN;
+        }
+        for (TurnActionEnum turnAction : values()) {
+            if (turnAction.value.equals(value)) {
+                return turnAction;
+            }
+        }
+        throw new TurnActionException(value);
+    }
+}
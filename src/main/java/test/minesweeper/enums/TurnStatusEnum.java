@@ -0,0 +1,28 @@
+package test.minesweeper.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum TurnStatusEnum {
+    // ход открыл клетки, игра продолжается
+    OPENED("opened"),
+    // ход открыл последнюю безопасную клетку
+    WON("won"),
+    // ход попал на мину
+    MINE("mine"),
+    FLAGGED("flagged"),
+    UNFLAGGED("unflagged"),
+    // ход нарушает правила: открытие помеченной клетки, неверное открытие соседей или неизвестное действие
+    REJECTED("rejected"),
+    ALREADY_OPEN("already_open"),
+    INVALID_COORDINATES("invalid_coordinates"),
+    GAME_NOT_FOUND("game_not_found"),
+    // игра завершилась одним из предыдущих ходов пакета
+    SKIPPED("skipped");
+
+    private final String value;
+
+    TurnStatusEnum(String value) {
+        this.value = value;
+    }
+}
@@ -0,0 +1,11 @@
+package test.minesweeper.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public class FieldChordException extends IllegalArgumentException {
+    public FieldChordException() {
+        super("открыть соседей можно только у открытой клетки с числом, равным количеству флагов вокруг нее");
+    }
+}
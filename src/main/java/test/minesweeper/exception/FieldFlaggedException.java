@@ -0,0 +1,11 @@
+package test.minesweeper.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public class FieldFlaggedException extends IllegalArgumentException {
+    public FieldFlaggedException() {
+        super("ячейка помечена флагом");
+    }
+}
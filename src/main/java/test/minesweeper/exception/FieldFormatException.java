@@ -0,0 +1,11 @@
+package test.minesweeper.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public class FieldFormatException extends IllegalArgumentException {
+    public FieldFormatException(String format) {
+        super(String.format("неизвестный формат поля %s, допустимы rows и rle", format));
+    }
+}
@@ -0,0 +1,11 @@
+package test.minesweeper.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public class FieldSizeException extends IllegalArgumentException {
+    public FieldSizeException(long maxCells) {
+        super(String.format("размер поля должен быть не более %d клеток", maxCells));
+    }
+}
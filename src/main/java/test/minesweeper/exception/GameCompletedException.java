@@ -0,0 +1,11 @@
+package test.minesweeper.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public class GameCompletedException extends IllegalStateException {
+    public GameCompletedException(String gameId) {
+        super(String.format("игра с идентификатором %s уже завершена", gameId));
+    }
+}
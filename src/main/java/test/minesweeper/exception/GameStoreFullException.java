@@ -0,0 +1,11 @@
+package test.minesweeper.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+public class GameStoreFullException extends IllegalStateException {
+    public GameStoreFullException() {
+        super("превышен лимит памяти для игр, попробуйте позже");
+    }
+}
@@ -0,0 +1,11 @@
+package test.minesweeper.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public class MinesDensityException extends IllegalArgumentException {
+    public MinesDensityException(double minDensity, double maxDensity) {
+        super(String.format("доля мин должна быть не менее %s и не более %s", minDensity, maxDensity));
+    }
+}
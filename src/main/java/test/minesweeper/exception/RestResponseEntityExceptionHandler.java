@@ -22,4 +22,13 @@ public class RestResponseEntityExceptionHandler extends ResponseEntityExceptionH
         return handleExceptionInternal(ex, errorResponse,
                 new HttpHeaders(), HttpStatus.BAD_REQUEST, request);
     }
+
+    @ExceptionHandler(value = { GameStoreFullException.class })
+    protected ResponseEntity<Object> handleServiceUnavailable(RuntimeException ex, WebRequest request) {
+        ErrorResponse errorResponse = new ErrorResponse();
+        errorResponse.setError(ex.getMessage());
+        log.warn(ex.getMessage());
+        return handleExceptionInternal(ex, errorResponse,
+                new HttpHeaders(), HttpStatus.SERVICE_UNAVAILABLE, request);
+    }
 }
@@ -0,0 +1,11 @@
+package test.minesweeper.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public class TurnActionException extends IllegalArgumentException {
+    public TurnActionException(String action) {
+        super(String.format("неизвестное действие %s, допустимы open, flag, unflag и chord", action));
+    }
+}
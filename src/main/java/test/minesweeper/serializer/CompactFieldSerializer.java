@@ -0,0 +1,103 @@
+package test.minesweeper.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import test.minesweeper.dto.GameBoard;
+import test.minesweeper.dto.GameInfoCompactResponse;
+import test.minesweeper.enums.FieldFormatEnum;
+
+import java.io.IOException;
+
+/**
+ * Компактное представление поля: массив строк (по строке JSON на строку поля) или
+ * кодирование длин серий всего поля. Пишется из упакованного поля без промежуточного String[][],
+ * серии - кусками через переиспользуемый буфер, без сборки всей строки в памяти.
+ */
+public class CompactFieldSerializer extends StdSerializer<GameInfoCompactResponse> {
+    private static final int RLE_CHUNK = 4096;
+
+    public CompactFieldSerializer() {
+        super(GameInfoCompactResponse.class);
+    }
+
+    @Override
+    public void serialize(GameInfoCompactResponse response, JsonGenerator gen, SerializerProvider provider)
+            throws IOException {
+        boolean completed = response.getCompleted();
+        boolean won = response.isWon();
+        GameBoard board = response.getBoard();
+        if (response.getFieldFormat() == FieldFormatEnum.ROWS) {
+            writeRows(board, completed, won, gen);
+        } else {
+            writeRle(board, completed, won, gen);
+        }
+    }
+
+    private void writeRows(GameBoard board, boolean completed, boolean won, JsonGenerator gen) throws IOException {
+        int width = board.getWidth();
+        char[] row = new char[width];
+        gen.writeStartArray();
+        for (int i = 0; i < board.getHeight(); i++) {
+            int rowIndex = i * width;
+            for (int j = 0; j < width; j++) {
+                row[j] = board.getClientChar(rowIndex + j, completed, won);
+            }
+            gen.writeString(row, 0, width);
+        }
+        gen.writeEndArray();
+    }
+
+    // серии пишутся сырыми кусками одной строки JSON: символы клиента и разделители не требуют экранирования
+    private void writeRle(GameBoard board, boolean completed, boolean won, JsonGenerator gen) throws IOException {
+        char[] chunk = new char[RLE_CHUNK];
+        int length = 0;
+        boolean started = false;
+        chunk[length++] = '"';
+        char current = board.getClientChar(0, completed, won);
+        int count = 1;
+        for (int i = 1; i <= board.size(); i++) {
+            char next = i < board.size() ? board.getClientChar(i, completed, won) : 0;
+            if (next == current) {
+                count++;
+                continue;
+            }
+            // длина серии до 10 цифр, символ и запятая
+            if (length > chunk.length - 12) {
+                started = writeRaw(chunk, length, started, gen);
+                length = 0;
+            }
+            if (i > count) {
+                chunk[length++] = ',';
+            }
+            length = appendCount(chunk, length, count);
+            chunk[length++] = current;
+            current = next;
+            count = 1;
+        }
+        chunk[length++] = '"';
+        writeRaw(chunk, length, started, gen);
+    }
+
+    // первый кусок - значение поля, следующие дописываются к нему
+    private static boolean writeRaw(char[] chunk, int length, boolean started, JsonGenerator gen) throws IOException {
+        if (started) {
+            gen.writeRaw(chunk, 0, length);
+        } else {
+            gen.writeRawValue(chunk, 0, length);
+        }
+        return true;
+    }
+
+    private static int appendCount(char[] chunk, int length, int count) {
+        int digits = 1;
+        for (int rest = count / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = length + digits - 1; i >= length; i--) {
+            chunk[i] = (char) ('0' + count % 10);
+            count /= 10;
+        }
+        return length + digits;
+    }
+}
@@ -0,0 +1,82 @@
+package test.minesweeper.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import test.minesweeper.dto.GameBoard;
+import test.minesweeper.dto.GameInfoResponse;
+
+import java.io.IOException;
+
+/**
+ * Ответ с полным полем без рефлексии и без промежуточного String[][]: каждая строка поля кодируется
+ * в переиспользуемый буфер и пишется одним готовым JSON значением. Формат совпадает со стандартной
+ * сериализацией: поле - массив строк, строка - массив односимвольных строк.
+ */
+public class GameInfoResponseSerializer extends StdSerializer<GameInfoResponse> {
+    private static final SerializableString GAME_ID = new SerializedString("game_id");
+    private static final SerializableString WIDTH = new SerializedString("width");
+    private static final SerializableString HEIGHT = new SerializedString("height");
+    private static final SerializableString MINES_COUNT = new SerializedString("mines_count");
+    private static final SerializableString FIELD = new SerializedString("field");
+    private static final SerializableString COMPLETED = new SerializedString("completed");
+
+    public GameInfoResponseSerializer() {
+        super(GameInfoResponse.class);
+    }
+
+    @Override
+    public void serialize(GameInfoResponse response, JsonGenerator gen, SerializerProvider provider)
+            throws IOException {
+        boolean completed = response.getCompleted();
+        gen.writeStartObject(response);
+        gen.writeFieldName(GAME_ID);
+        gen.writeString(response.getGame_id());
+        gen.writeFieldName(WIDTH);
+        gen.writeNumber(response.getWidth());
+        gen.writeFieldName(HEIGHT);
+        gen.writeNumber(response.getHeight());
+        gen.writeFieldName(MINES_COUNT);
+        gen.writeNumber(response.getMines_count());
+        gen.writeFieldName(FIELD);
+        writeField(response.getBoard(), completed, response.isWon(), gen);
+        gen.writeFieldName(COMPLETED);
+        gen.writeBoolean(completed);
+        gen.writeEndObject();
+    }
+
+    private void writeField(GameBoard board, boolean completed, boolean won, JsonGenerator gen) throws IOException {
+        int width = board.getWidth();
+        gen.writeStartArray();
+        if (gen.getPrettyPrinter() != null) {
+            // форматированный вывод расставляет отступы сам, строки пишутся поэлементно
+            for (int i = 0; i < board.getHeight(); i++) {
+                gen.writeStartArray();
+                for (int j = 0; j < width; j++) {
+                    gen.writeString(board.getClientValue(i * width + j, completed, won));
+                }
+                gen.writeEndArray();
+            }
+        } else {
+            // строка поля целиком: ["c","c",...], по 4 символа на клетку
+            char[] row = new char[Math.max(4 * width + 1, 2)];
+            row[0] = '[';
+            for (int j = 0; j < width; j++) {
+                row[4 * j + 1] = '"';
+                row[4 * j + 3] = '"';
+                row[4 * j + 4] = ',';
+            }
+            row[row.length - 1] = ']';
+            for (int i = 0; i < board.getHeight(); i++) {
+                int rowIndex = i * width;
+                for (int j = 0; j < width; j++) {
+                    row[4 * j + 2] = board.getClientChar(rowIndex + j, completed, won);
+                }
+                gen.writeRawValue(row, 0, row.length);
+            }
+        }
+        gen.writeEndArray();
+    }
+}
@@ -0,0 +1,193 @@
+package test.minesweeper.service;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import test.minesweeper.component.ClusterRing;
+import test.minesweeper.component.GameComponent;
+import test.minesweeper.component.GameMetrics;
+import test.minesweeper.dto.*;
+import test.minesweeper.enums.FieldEnum;
+import test.minesweeper.enums.TurnActionEnum;
+import test.minesweeper.exception.FieldChordException;
+import test.minesweeper.exception.FieldCoordinatesException;
+import test.minesweeper.exception.FieldFlaggedException;
+import test.minesweeper.exception.FieldOpenException;
+import test.minesweeper.exception.FieldSizeException;
+import test.minesweeper.exception.GameNotFoundException;
+import test.minesweeper.exception.MinesDensityException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Игры на очень больших и неограниченных полях из лениво создаваемых плиток. Полное поле клиенту
+ * не отправляется: ход возвращает только открытые клетки, а произвольная область поля запрашивается отдельно.
+ */
+@Slf4j
+@Service
+@AllArgsConstructor
+public class ChunkedGameService {
+    // при меньшей доле мин области пустых клеток становятся слишком большими для заливки за один ход
+    public static final double MIN_DENSITY = 0.12;
+    public static final double MAX_DENSITY = 0.9;
+    public static final int MAX_REGION_CELLS = 1 << 16;
+
+    private final GameComponent gameComponent;
+    private final GameMetrics gameMetrics;
+    private final ClusterRing clusterRing;
+
+    public ChunkedGameInfoResponse createNewGame(ChunkedGameNewRequest newGameRequest) {
+        double minesDensity = newGameRequest.getMines_density();
+        if (!(minesDensity >= MIN_DENSITY && minesDensity <= MAX_DENSITY)) {
+            throw new MinesDensityException(MIN_DENSITY, MAX_DENSITY);
+        }
+        ChunkedGameInfo gameInfo = new ChunkedGameInfo(clusterRing.newGameId(), newGameRequest);
+        gameComponent.addGame(new GeneralGame(gameInfo));
+        gameMetrics.gameCreated();
+
+        String message = String.format("Создана игра на поле из плиток с id %s", gameInfo.getGame_id());
+        log.info(message);
+
+        return new ChunkedGameInfoResponse(gameInfo);
+    }
+
+    public GameTurnDeltaResponse turnGame(GameTurnRequest gameTurnRequest) {
+        TurnActionEnum turnAction = TurnActionEnum.fromValue(gameTurnRequest.getAction());
+        GeneralGame generalGame = findGame(gameTurnRequest.getGame_id());
+        ChunkedGameInfo gameInfo = generalGame.getChunkedGameInfo();
+        int row = gameTurnRequest.getRow();
+        int col = gameTurnRequest.getCol();
+        if (!gameInfo.getBoard().contains(row, col)) {
+            throw new FieldCoordinatesException(gameInfo.getHeight(), gameInfo.getWidth());
+        }
+        List<CellResponse> cells = new ArrayList<>();
+        synchronized (generalGame) {
+            // игру удалили, пока ход ждал монитор: поле из плиток не выгружается, поэтому вернуть ее нельзя
+            if (!gameComponent.isStored(generalGame)) {
+                throw new GameNotFoundException(gameInfo.getGame_id());
+            }
+            long start = System.nanoTime();
+            boolean firstTurn = !gameInfo.isFirstTurnDone();
+            int revealed = switch (turnAction) {
+                case OPEN -> openCell(gameInfo, row, col, cells);
+                case FLAG -> flagCell(gameInfo, row, col, true, cells);
+                case UNFLAG -> flagCell(gameInfo, row, col, false, cells);
+                case CHORD -> chordCells(gameInfo, row, col, cells);
+            };
+            gameInfo.incrementVersion();
+            if (gameInfo.isCompleted()) {
+                if (gameInfo.isWon()) {
+                    log.info(String.format("Игра с id %s: завершена выигрышем", gameInfo.getGame_id()));
+                    gameMetrics.gameWon();
+                } else {
+                    log.info(String.format("Игра с id %s: завершена проигрышем", gameInfo.getGame_id()));
+                    gameMetrics.gameLost();
+                }
+            }
+            gameMetrics.recordTurn(firstTurn, revealed, System.nanoTime() - start);
+            gameComponent.touchGame(generalGame);
+            gameComponent.resizeGame(generalGame);
+            return new GameTurnDeltaResponse(gameInfo.getGame_id(), gameInfo.getVersion(), gameInfo.isCompleted(),
+                    gameInfo.isWon(), cells);
+        }
+    }
+
+    public ChunkedRegionResponse getRegion(String gameId, int row, int col, int height, int width) {
+        if (height < 1 || width < 1 || (long) height * width > MAX_REGION_CELLS) {
+            throw new FieldSizeException(MAX_REGION_CELLS);
+        }
+        GeneralGame generalGame = findGame(gameId);
+        ChunkedGameInfo gameInfo = generalGame.getChunkedGameInfo();
+        ChunkedBoard board = gameInfo.getBoard();
+        if (!board.contains(row, col) || !board.contains((long) row + height - 1, (long) col + width - 1)) {
+            throw new FieldCoordinatesException(gameInfo.getHeight(), gameInfo.getWidth());
+        }
+        String[] field = new String[height];
+        synchronized (generalGame) {
+            StringBuilder fieldRow = new StringBuilder(width);
+            for (int i = 0; i < height; i++) {
+                fieldRow.setLength(0);
+                for (int j = 0; j < width; j++) {
+                    fieldRow.append(board.getClientValue(row + i, col + j, gameInfo.isCompleted(), gameInfo.isWon()));
+                }
+                field[i] = fieldRow.toString();
+            }
+            gameComponent.touchGame(generalGame);
+            gameComponent.resizeGame(generalGame);
+            return new ChunkedRegionResponse(gameId, row, col, height, width, gameInfo.isCompleted(), field);
+        }
+    }
+
+    private GeneralGame findGame(String gameId) {
+        GeneralGame generalGame = gameComponent.getGame(gameId);
+        if (Objects.isNull(generalGame) || !generalGame.isChunked()) {
+            throw new GameNotFoundException(gameId);
+        }
+        return generalGame;
+    }
+
+    // первый ход безопасен: клетка хода и ее соседи исключаются из расстановки мин
+    private int openCell(ChunkedGameInfo gameInfo, int row, int col, List<CellResponse> cells) {
+        ChunkedBoard board = gameInfo.getBoard();
+        if (gameInfo.isCompleted() || board.isRevealed(row, col)) {
+            throw new FieldOpenException();
+        }
+        if (board.isFlagged(row, col)) {
+            throw new FieldFlaggedException();
+        }
+        // безопасная зона ставится только принятым ходом
+        if (!gameInfo.isFirstTurnDone()) {
+            board.setSafeZone(row, col);
+            gameInfo.setFirstTurnDone(true);
+        }
+        if (board.isMine(row, col)) {
+            gameInfo.setCompleted(true);
+            cells.add(new CellResponse(row, col, FieldEnum.X.getValue()));
+            return 0;
+        }
+        int revealed = board.revealArea(row, col, cells);
+        gameInfo.addRevealedCells(revealed);
+        checkWinGame(gameInfo);
+        return revealed;
+    }
+
+    private int flagCell(ChunkedGameInfo gameInfo, int row, int col, boolean flagged, List<CellResponse> cells) {
+        ChunkedBoard board = gameInfo.getBoard();
+        if (gameInfo.isCompleted() || board.isRevealed(row, col)) {
+            throw new FieldOpenException();
+        }
+        if (board.isFlagged(row, col) != flagged) {
+            board.setFlagged(row, col, flagged);
+            cells.add(new CellResponse(row, col, board.getClientValue(row, col, false, false)));
+        }
+        return 0;
+    }
+
+    private int chordCells(ChunkedGameInfo gameInfo, int row, int col, List<CellResponse> cells) {
+        ChunkedBoard board = gameInfo.getBoard();
+        if (gameInfo.isCompleted()) {
+            throw new FieldOpenException();
+        }
+        if (!board.isRevealed(row, col) || board.getValue(row, col) == 0
+                || board.countFlaggedNeighbours(row, col) != board.getValue(row, col)) {
+            throw new FieldChordException();
+        }
+        if (board.hasUnflaggedMineAround(row, col)) {
+            gameInfo.setCompleted(true);
+            return 0;
+        }
+        int revealed = board.revealNeighbours(row, col, cells);
+        gameInfo.addRevealedCells(revealed);
+        checkWinGame(gameInfo);
+        return revealed;
+    }
+
+    private void checkWinGame(ChunkedGameInfo gameInfo) {
+        if (gameInfo.checkWin()) {
+            gameInfo.setWon(true);
+            gameInfo.setCompleted(true);
+        }
+    }
+}
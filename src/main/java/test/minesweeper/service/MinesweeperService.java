@@ -1,55 +1,220 @@
 package test.minesweeper.service;
 
+import jakarta.annotation.PostConstruct;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import test.minesweeper.component.ClusterRing;
 import test.minesweeper.component.GameComponent;
+import test.minesweeper.component.GameJournal;
+import test.minesweeper.component.GameMetrics;
+import test.minesweeper.component.GamePool;
 import test.minesweeper.dto.*;
-import test.minesweeper.enums.FieldEnum;
+import test.minesweeper.enums.TimingPhaseEnum;
+import test.minesweeper.enums.TurnActionEnum;
+import test.minesweeper.enums.TurnStatusEnum;
+import test.minesweeper.exception.FieldChordException;
 import test.minesweeper.exception.FieldCoordinatesException;
+import test.minesweeper.exception.FieldFlaggedException;
 import test.minesweeper.exception.FieldOpenException;
+import test.minesweeper.exception.FieldSizeException;
 import test.minesweeper.exception.GameNotFoundException;
+import test.minesweeper.exception.GameStoreFullException;
 import test.minesweeper.exception.MinesCountException;
+import test.minesweeper.exception.TurnActionException;
 
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Slf4j
 @Service
 @AllArgsConstructor
 public class MinesweeperService {
     private final GameComponent gameComponent;
+    private final GameMetrics gameMetrics;
+    private final GameJournal gameJournal;
+    private final GamePool gamePool;
+    private final ClusterRing clusterRing;
 
     public GameInfoResponse createNewGame(GameNewRequest newGameRequest) {
+        RequestTiming.mark(TimingPhaseEnum.PARSE);
         int width = newGameRequest.getWidth();
         int height = newGameRequest.getHeight();
         int minesCount = newGameRequest.getMines_count();
-        if (width < 1 || height < 1 || minesCount < 0 || minesCount > width * height - 1) {
+        long cells = (long) width * height;
+        if (width < 1 || height < 1 || minesCount < 0 || minesCount > cells - 1) {
             throw new MinesCountException(height, width);
         }
-        GameInfo gameInfo = new GameInfo(newGameRequest);
+        // проверка до выделения памяти под поле
+        if (cells > gameComponent.getMaxBoardCells()) {
+            throw new FieldSizeException(gameComponent.getMaxBoardCells());
+        }
+        // для стандартных конфигураций поле берется готовым из пула вместе с зерном
+        GamePool.Layout layout = gamePool.poll(width, height, minesCount);
+        // в кластере идентификатор несет шард этого узла
+        String gameId = clusterRing.newGameId();
+        GameInfo gameInfo = layout == null
+                ? new GameInfo(gameId, width, height, minesCount, ThreadLocalRandom.current().nextLong())
+                : new GameInfo(gameId, width, height, minesCount, layout.getSeed(), layout.getBoard());
+        // снимок снимается до публикации игры, пока ее не меняют ходы
         GameInfoResponse gameInfoResponse = new GameInfoResponse(gameInfo);
-        gameComponent.addGame(new GeneralGame(gameInfo, gameInfoResponse));
+        RequestTiming.mark(TimingPhaseEnum.CREATE);
+        gameComponent.addGame(new GeneralGame(gameInfo));
+        gameJournal.gameCreated(gameInfo);
+        gameMetrics.gameCreated();
 
         String message = String.format("Создана игра с id %s", gameInfo.getGame_id());
         log.info(message);
+        RequestTiming.mark(TimingPhaseEnum.STORE);
 
         return gameInfoResponse;
     }
 
+    // ходы одной игры выполняются последовательно под монитором самой игры, разные игры не блокируют друг друга;
+    // если пока ход ждал монитор, игру выгрузили или удалили, игра ищется заново.
+    // Ответ снимается под монитором: сериализуется он уже без него и не должен видеть следующие ходы
     public GameInfoResponse turnGame(GameTurnRequest gameTurnRequest) {
-        String gameTurnRequestGameId = gameTurnRequest.getGame_id();
-        Integer gameTurnRequestRow = gameTurnRequest.getRow();
-        Integer gameTurnRequestCol = gameTurnRequest.getCol();
+        RequestTiming.mark(TimingPhaseEnum.PARSE);
+        while (true) {
+            GeneralGame generalGame = findGame(gameTurnRequest.getGame_id());
+            RequestTiming.mark(TimingPhaseEnum.LOOKUP);
+            synchronized (generalGame) {
+                RequestTiming.mark(TimingPhaseEnum.LOCK);
+                if (!gameComponent.isStored(generalGame)) {
+                    continue;
+                }
+                applyTurn(generalGame, gameTurnRequest, null);
+                return new GameInfoResponse(generalGame.getGameInfo());
+            }
+        }
+    }
 
-        GeneralGame generalGame = gameComponent.getGame(gameTurnRequestGameId);
+    public GameTurnDeltaResponse turnGameDelta(GameTurnRequest gameTurnRequest) {
+        RequestTiming.mark(TimingPhaseEnum.PARSE);
+        while (true) {
+            GeneralGame generalGame = findGame(gameTurnRequest.getGame_id());
+            RevealedCells revealedCells = new RevealedCells();
+            RequestTiming.mark(TimingPhaseEnum.LOOKUP);
+            synchronized (generalGame) {
+                RequestTiming.mark(TimingPhaseEnum.LOCK);
+                if (!gameComponent.isStored(generalGame)) {
+                    continue;
+                }
+                applyTurn(generalGame, gameTurnRequest, revealedCells);
+                return new GameTurnDeltaResponse(generalGame.getGameInfo(), revealedCells);
+            }
+        }
+    }
+
+    // подряд идущие ходы одной игры применяются под одним захватом ее монитора,
+    // после завершения игры ее оставшиеся ходы пакета пропускаются
+    public GameTurnsResponse turnGames(GameTurnsRequest gameTurnsRequest) {
+        RequestTiming.mark(TimingPhaseEnum.PARSE);
+        List<GameTurnRequest> turns = gameTurnsRequest.getTurns();
+        List<TurnResultResponse> results = new ArrayList<>(turns.size());
+        Map<String, GeneralGame> games = new HashMap<>();
+        Map<String, RevealedCells> gamesRevealedCells = new LinkedHashMap<>();
+        int from = 0;
+        while (from < turns.size()) {
+            String gameId = turns.get(from).getGame_id();
+            int to = from + 1;
+            while (to < turns.size() && gameId.equals(turns.get(to).getGame_id())) {
+                to++;
+            }
+            GeneralGame generalGame = games.computeIfAbsent(gameId, this::getGame);
+            RequestTiming.mark(TimingPhaseEnum.LOOKUP);
+            if (Objects.isNull(generalGame)) {
+                for (int i = from; i < to; i++) {
+                    results.add(initTurnResult(turns.get(i), TurnStatusEnum.GAME_NOT_FOUND, 0));
+                }
+            } else {
+                RevealedCells revealedCells = gamesRevealedCells.computeIfAbsent(gameId, id -> new RevealedCells());
+                synchronized (generalGame) {
+                    RequestTiming.mark(TimingPhaseEnum.LOCK);
+                    // игру выгрузили или удалили до захвата монитора, ходы применяются к найденной заново
+                    if (!gameComponent.isStored(generalGame)) {
+                        games.remove(gameId);
+                        continue;
+                    }
+                    for (int i = from; i < to; i++) {
+                        results.add(applyBatchTurn(generalGame, turns.get(i), revealedCells));
+                    }
+                }
+            }
+            from = to;
+        }
+
+        List<GameTurnDeltaResponse> gameResponses = new ArrayList<>(gamesRevealedCells.size());
+        for (Map.Entry<String, RevealedCells> gameRevealedCells : gamesRevealedCells.entrySet()) {
+            GeneralGame generalGame = games.get(gameRevealedCells.getKey());
+            // игра удалена после выгрузки посреди пакета
+            if (Objects.isNull(generalGame)) {
+                continue;
+            }
+            synchronized (generalGame) {
+                gameResponses.add(new GameTurnDeltaResponse(generalGame.getGameInfo(), gameRevealedCells.getValue()));
+            }
+        }
+        return new GameTurnsResponse(results, gameResponses);
+    }
+
+    private TurnResultResponse applyBatchTurn(GeneralGame generalGame, GameTurnRequest gameTurnRequest,
+                                              RevealedCells revealedCells) {
+        GameInfo gameInfo = generalGame.getGameInfo();
+        if (gameInfo.getCompleted()) {
+            return initTurnResult(gameTurnRequest, TurnStatusEnum.SKIPPED, 0);
+        }
+        try {
+            int revealed = applyTurn(generalGame, gameTurnRequest, revealedCells);
+            if (!gameInfo.getCompleted()) {
+                return initTurnResult(gameTurnRequest, switch (TurnActionEnum.fromValue(gameTurnRequest.getAction())) {
+                    case FLAG -> TurnStatusEnum.FLAGGED;
+                    case UNFLAG -> TurnStatusEnum.UNFLAGGED;
+                    default -> TurnStatusEnum.OPENED;
+                }, revealed);
+            }
+            return initTurnResult(gameTurnRequest, gameInfo.isWon() ? TurnStatusEnum.WON : TurnStatusEnum.MINE, revealed);
+        } catch (FieldCoordinatesException e) {
+            return initTurnResult(gameTurnRequest, TurnStatusEnum.INVALID_COORDINATES, 0);
+        } catch (FieldOpenException e) {
+            return initTurnResult(gameTurnRequest, TurnStatusEnum.ALREADY_OPEN, 0);
+        } catch (FieldFlaggedException | FieldChordException | TurnActionException e) {
+            return initTurnResult(gameTurnRequest, TurnStatusEnum.REJECTED, 0);
+        }
+    }
+
+    private TurnResultResponse initTurnResult(GameTurnRequest gameTurnRequest, TurnStatusEnum status, int revealed) {
+        return new TurnResultResponse(gameTurnRequest.getGame_id(), gameTurnRequest.getRow(), gameTurnRequest.getCol(),
+                status.getValue(), revealed);
+    }
+
+    private GeneralGame findGame(String gameId) {
+        GeneralGame generalGame = getGame(gameId);
 
         // проверка, что игра существует
         if (Objects.isNull(generalGame)) {
-            throw new GameNotFoundException(gameTurnRequestGameId);
+            throw new GameNotFoundException(gameId);
         }
+        return generalGame;
+    }
+
+    // игры на полях из плиток обслуживаются ChunkedGameService
+    private GeneralGame getGame(String gameId) {
+        GeneralGame generalGame = gameComponent.getGame(gameId);
+        return Objects.nonNull(generalGame) && !generalGame.isChunked() ? generalGame : null;
+    }
+
+    private int applyTurn(GeneralGame generalGame, GameTurnRequest gameTurnRequest, RevealedCells revealedCells) {
+        String gameTurnRequestGameId = gameTurnRequest.getGame_id();
+        Integer gameTurnRequestRow = gameTurnRequest.getRow();
+        Integer gameTurnRequestCol = gameTurnRequest.getCol();
+        TurnActionEnum turnAction = TurnActionEnum.fromValue(gameTurnRequest.getAction());
         GameInfo gameInfo = generalGame.getGameInfo();
-        GameInfoResponse gameInfoResponse = generalGame.getGameInfoResponse();
 
         // проверка, что указанные координаты корректные
         if (!checkValidFieldCoordinates(gameInfo,
@@ -57,29 +222,110 @@ public class MinesweeperService {
                 gameTurnRequestCol)) {
             throw new FieldCoordinatesException(gameInfo.getHeight(), gameInfo.getWidth());
         }
-        // проверка на первый ход
-        if (gameInfo.isZeroFields()) {
-            gameInfo.initFirstTurn(gameTurnRequestRow, gameTurnRequestCol);
+        long start = System.nanoTime();
+        gameInfo.expand();
+        RequestTiming.mark(TimingPhaseEnum.EXPAND);
+        boolean firstTurn = gameInfo.isZeroFields();
+        int revealed = playTurn(gameInfo, gameTurnRequestRow, gameTurnRequestCol, turnAction, revealedCells);
+        if (gameInfo.getCompleted()) {
+            if (gameInfo.isWon()) {
+                log.info(String.format("Игра с id %s: завершена выигрышем", gameTurnRequestGameId));
+                gameMetrics.gameWon();
+            } else {
+                log.info(String.format("Игра с id %s: завершена проигрышем", gameTurnRequestGameId));
+                gameMetrics.gameLost();
+            }
         }
+
+        gameMetrics.recordTurn(firstTurn, revealed, System.nanoTime() - start);
+        gameJournal.turn(gameTurnRequestGameId, gameTurnRequestRow, gameTurnRequestCol, turnAction);
+        gameComponent.touchGame(generalGame);
+        gameComponent.resizeGame(generalGame);
+        RequestTiming.mark(TimingPhaseEnum.STORE);
+        return revealed;
+    }
+
+    // изменение состояния игры ходом, используется и при восстановлении игр из журнала
+    private int playTurn(GameInfo gameInfo, int row, int col, TurnActionEnum turnAction, RevealedCells revealedCells) {
+        int revealed = switch (turnAction) {
+            case OPEN -> openCell(gameInfo, row, col, revealedCells);
+            case FLAG -> flagCell(gameInfo, row, col, true, revealedCells);
+            case UNFLAG -> flagCell(gameInfo, row, col, false, revealedCells);
+            case CHORD -> chordCells(gameInfo, row, col, revealedCells);
+        };
+        gameInfo.incrementVersion();
+        return revealed;
+    }
+
+    private int openCell(GameInfo gameInfo, int row, int col, RevealedCells revealedCells) {
         // проверка на повторный вызов ячейки
-        if (gameInfoResponse.checkOpenField(gameTurnRequestRow, gameTurnRequestCol)){
+        if (gameInfo.checkOpenField(row, col)){
             throw new FieldOpenException();
         }
+        if (gameInfo.getBoard().isFlagged(row, col)) {
+            throw new FieldFlaggedException();
+        }
+        // проверка на первый ход: только после проверок, иначе отклоненный ход занял бы безопасную клетку
+        if (gameInfo.isZeroFields()) {
+            gameInfo.initFirstTurn(row, col);
+            RequestTiming.mark(TimingPhaseEnum.INIT);
+        }
+        int revealed = 0;
         // проверка, что игра програна
-        if (checkLostGame(gameInfo, gameTurnRequest.getRow(), gameTurnRequest.getCol())) {
-            log.info(String.format("Игра с id %s: завершена проигрышем", gameTurnRequestGameId));
-            lostGame(generalGame);
+        if (checkLostGame(gameInfo, row, col)) {
+            lostGame(gameInfo);
         } else {
-            repaintCells(generalGame, gameTurnRequest.getRow(), gameTurnRequest.getCol());
+            revealed = repaintCells(gameInfo, row, col, revealedCells);
+            gameInfo.addRevealedCells(revealed);
+            RequestTiming.mark(TimingPhaseEnum.REVEAL);
             // проверка, что игра выиграна
-            if (checkWinGame(generalGame)) {
-                log.info(String.format("Игра с id %s: завершена выигрышем", gameTurnRequestGameId));
-                winGame(generalGame);
+            if (checkWinGame(gameInfo)) {
+                winGame(gameInfo);
             }
         }
+        RequestTiming.mark(TimingPhaseEnum.WIN);
+        return revealed;
+    }
 
-        generalGame.setLocalDateTime(LocalDateTime.now());
-        return gameInfoResponse;
+    // флаги хранятся в состоянии клетки и не зависят от расстановки мин, поэтому возможны и до первого хода
+    private int flagCell(GameInfo gameInfo, int row, int col, boolean flagged, RevealedCells revealedCells) {
+        if (gameInfo.checkOpenField(row, col)) {
+            throw new FieldOpenException();
+        }
+        GameBoard board = gameInfo.getBoard();
+        int index = board.index(row, col);
+        if (board.isFlagged(index) != flagged) {
+            board.setFlagged(index, flagged);
+            if (revealedCells != null) {
+                revealedCells.add(index);
+            }
+        }
+        return 0;
+    }
+
+    // открытие соседей числа одним ходом, пустые соседи раскрываются той же заливкой, что и при открытии клетки
+    private int chordCells(GameInfo gameInfo, int row, int col, RevealedCells revealedCells) {
+        if (gameInfo.getCompleted()) {
+            throw new FieldOpenException();
+        }
+        GameBoard board = gameInfo.getBoard();
+        int value = board.getValue(row, col);
+        if (!board.isRevealed(row, col) || value == 0 || board.countFlaggedNeighbours(row, col) != value) {
+            throw new FieldChordException();
+        }
+        // флаг стоит не на мине, значит среди открываемых соседей есть мина
+        if (board.hasUnflaggedMineAround(row, col)) {
+            lostGame(gameInfo);
+            return 0;
+        }
+        int revealed = board.revealNeighbours(row, col, revealedCells);
+        gameInfo.addRevealedCells(revealed);
+        RequestTiming.mark(TimingPhaseEnum.REVEAL);
+        if (checkWinGame(gameInfo)) {
+            winGame(gameInfo);
+        }
+        RequestTiming.mark(TimingPhaseEnum.WIN);
+        return revealed;
     }
 
     private boolean checkValidFieldCoordinates(GameInfo gameServer, Integer row, Integer col) {
@@ -87,96 +333,67 @@ public class MinesweeperService {
     }
 
     private boolean checkLostGame(GameInfo gameServer, Integer row, Integer col) {
-        return FieldEnum.X.equals(gameServer.getField()[row][col]);
+        return gameServer.getBoard().isMine(row, col);
     }
 
-    private void lostGame(GeneralGame generalGame) {
-        GameInfo gameInfo = generalGame.getGameInfo();
-        GameInfoResponse gameInfoResponse = generalGame.getGameInfoResponse();
-        for (int i = 0; i < gameInfo.getHeight(); i++) {
-            for (int j = 0; j < gameInfoResponse.getWidth(); j++) {
-                gameInfoResponse.getField()[i][j] = gameInfo.getField()[i][j].getValue();
-            }
-        }
-        gameInfoResponse.setCompleted(true);
+    // все клетки открываются при сериализации завершенной игры, копирование поля не требуется
+    private void lostGame(GameInfo gameInfo) {
+        gameInfo.setCompleted(true);
     }
 
-    private void repaintCells(GeneralGame generalGame, Integer row, Integer col) {
-        GameInfo gameInfo = generalGame.getGameInfo();
-        GameInfoResponse gameInfoResponse = generalGame.getGameInfoResponse();
-        FieldEnum[][] serverFields = gameInfo.getField();
-        String[][] clientFields = gameInfoResponse.getField();
+    private int repaintCells(GameInfo gameInfo, int row, int col, RevealedCells revealedCells) {
+        return gameInfo.getBoard().revealArea(row, col, revealedCells);
+    }
 
-        if (!FieldEnum.ZERO.equals(serverFields[row][col])) {
-            clientFields[row][col] = serverFields[row][col].getValue();
-        } else {
-            paintZeroFields(serverFields, clientFields, gameInfo.getHeight(), gameInfo.getWidth(), row, col);
-        }
+    private boolean checkWinGame(GameInfo gameInfo) {
+        return gameInfo.getSafeCellsRemaining() == 0;
     }
 
-    private void paintZeroFields(FieldEnum[][] serverFields, String[][] clientFields, int height, int width, int row, int col) {
-        if (row < 0 || col < 0 || row >= height || col >= width) {
+    private void winGame(GameInfo gameInfo) {
+        gameInfo.setWon(true);
+        gameInfo.setCompleted(true);
+    }
+
+    private void restoreGame(GameInfo gameInfo) {
+        // игра из снимка уже восстановлена, событие создания в хвосте журнала пропускается
+        if (Objects.nonNull(gameComponent.getGame(gameInfo.getGame_id()))) {
             return;
         }
-        if (FieldEnum.ZERO.equals(serverFields[row][col]) &&
-                !Objects.equals(clientFields[row][col], serverFields[row][col].getValue())) {
-
-            clientFields[row][col] = serverFields[row][col].getValue();
-
-
-            for (int dx = -1; dx <= 1; dx++) {
-                for (int dy = -1; dy <= 1; dy++) {
-                    paintZeroFields(serverFields, clientFields, height, width, row + dx, col + dy);
-                    if (dx != 0 || dy != 0) {
-                        int nx = row + dx, ny = col + dy;
-                        if (nx >= 0 && ny >= 0 && nx < height && ny < width) {
-                            if (!FieldEnum.EMPTY.equals(serverFields[nx][ny]) &&
-                                    !FieldEnum.X.equals(serverFields[nx][ny]) &&
-                                    !FieldEnum.M.equals(serverFields[nx][ny]) &&
-                                    !FieldEnum.ZERO.equals(serverFields[nx][ny]))
-                                clientFields[nx][ny] = serverFields[nx][ny].getValue();
-                        }
-                    }
-                }
-            }
+        try {
+            gameComponent.addGame(new GeneralGame(gameInfo));
+        } catch (GameStoreFullException e) {
+            log.warn(String.format("Игра с id %s: не восстановлена из журнала, %s", gameInfo.getGame_id(), e.getMessage()));
         }
     }
 
-    private boolean checkWinGame(GeneralGame generalGame) {
-        GameInfo gameInfo = generalGame.getGameInfo();
-        GameInfoResponse gameInfoResponse = generalGame.getGameInfoResponse();
-        FieldEnum[][] serverFields = gameInfo.getField();
-        String[][] clientFields = gameInfoResponse.getField();
-        boolean t = true;
-
-        // можно перейти на счетчики, чтобы не итерироваться по массиву
-        for (int i = 0; i < gameInfo.getHeight() && t; i++) {
-            for (int j = 0; j < gameInfo.getWidth(); j++) {
-                if (FieldEnum.EMPTY.getValue().equals(clientFields[i][j]) && !FieldEnum.X.equals(serverFields[i][j])) {
-                    t = false;
-                    break;
-                }
+    private void replayTurn(String gameId, int row, int col, TurnActionEnum turnAction) {
+        GeneralGame generalGame = getGame(gameId);
+        if (Objects.isNull(generalGame) || !checkValidFieldCoordinates(generalGame.getGameInfo(), row, col)) {
+            return;
+        }
+        synchronized (generalGame) {
+            try {
+                generalGame.getGameInfo().expand();
+                playTurn(generalGame.getGameInfo(), row, col, turnAction, null);
+            } catch (FieldOpenException | FieldFlaggedException | FieldChordException e) {
+                // ход уже учтен в снимке
             }
         }
-
-        return t;
+        gameComponent.resizeGame(generalGame);
     }
 
-    private void winGame(GeneralGame generalGame) {
-        GameInfo gameInfo = generalGame.getGameInfo();
-        GameInfoResponse gameInfoResponse = generalGame.getGameInfoResponse();
-        FieldEnum[][] serverFields = gameInfo.getField();
-        String[][] clientFields = gameInfoResponse.getField();
-
-        for (int i = 0; i < gameInfo.getHeight(); i++) {
-            for (int j = 0; j < gameInfo.getWidth(); j++) {
-                clientFields[i][j] = serverFields[i][j].getValue();
-                if (FieldEnum.X.getValue().equals(clientFields[i][j])) {
-                    clientFields[i][j] = FieldEnum.M.getValue();
-                }
+    @PostConstruct
+    public void recoverGames() {
+        gameJournal.open(new GameJournal.RecoveryHandler() {
+            @Override
+            public void restoreGame(GameInfo gameInfo) {
+                MinesweeperService.this.restoreGame(gameInfo);
             }
-        }
 
-        gameInfoResponse.setCompleted(true);
+            @Override
+            public void replayTurn(String gameId, int row, int col, TurnActionEnum turnAction) {
+                MinesweeperService.this.replayTurn(gameId, row, col, turnAction);
+            }
+        });
     }
 }
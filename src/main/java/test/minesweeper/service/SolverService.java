@@ -0,0 +1,124 @@
+package test.minesweeper.service;
+
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+import test.minesweeper.component.GameComponent;
+import test.minesweeper.component.GameSolver;
+import test.minesweeper.dto.CellProbabilityResponse;
+import test.minesweeper.dto.GameBoard;
+import test.minesweeper.dto.GameInfo;
+import test.minesweeper.dto.GeneralGame;
+import test.minesweeper.dto.HintResponse;
+import test.minesweeper.dto.ProbabilitiesResponse;
+import test.minesweeper.exception.GameCompletedException;
+import test.minesweeper.exception.GameNotFoundException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiFunction;
+
+/**
+ * Подсказки и вероятности мин по текущему состоянию игры. Решатель работает под монитором игры,
+ * поэтому видит согласованное поле и не мешает ходам других игр.
+ */
+@Service
+@AllArgsConstructor
+public class SolverService {
+    private final GameComponent gameComponent;
+    private final GameSolver gameSolver;
+
+    public HintResponse hint(String gameId) {
+        return solve(gameId, (gameInfo, solution) -> {
+            GameBoard board = gameInfo.getBoard();
+            // первый ход всегда безопасен
+            if (solution == null) {
+                return new HintResponse(gameId, gameInfo.getHeight() / 2, gameInfo.getWidth() / 2, 0.0, true);
+            }
+            int[] cells = solution.getCells();
+            double[] probabilities = solution.getProbabilities();
+            int best = -1;
+            double bestProbability = 1;
+            boolean bestSafe = false;
+            for (int i = 0; i < cells.length; i++) {
+                if (board.isFlagged(cells[i])) {
+                    continue;
+                }
+                // доказанно безопасная клетка лучше клетки с такой же оценкой после превышения лимита времени
+                boolean safe = solution.isSafe(i);
+                if (best < 0 || probabilities[i] < bestProbability || (safe && !bestSafe)) {
+                    best = cells[i];
+                    bestProbability = probabilities[i];
+                    bestSafe = safe;
+                }
+            }
+            if (!bestSafe && solution.getOtherCells() > 0
+                    && (best < 0 || solution.getOtherProbability() < bestProbability)) {
+                int other = findOtherCell(board, cells);
+                if (other >= 0) {
+                    best = other;
+                    bestProbability = solution.getOtherProbability();
+                    bestSafe = bestProbability == 0 && solution.isExact();
+                }
+            }
+            if (best < 0) {
+                return new HintResponse(gameId, null, null, null, false);
+            }
+            return new HintResponse(gameId, best / gameInfo.getWidth(), best % gameInfo.getWidth(), bestProbability,
+                    bestSafe);
+        });
+    }
+
+    public ProbabilitiesResponse probabilities(String gameId) {
+        return solve(gameId, (gameInfo, solution) -> {
+            if (solution == null) {
+                return new ProbabilitiesResponse(gameId, true, List.of(), 0.0);
+            }
+            int[] cells = solution.getCells();
+            double[] probabilities = solution.getProbabilities();
+            List<CellProbabilityResponse> cellResponses = new ArrayList<>(cells.length);
+            for (int i = 0; i < cells.length; i++) {
+                cellResponses.add(new CellProbabilityResponse(cells[i] / gameInfo.getWidth(),
+                        cells[i] % gameInfo.getWidth(), probabilities[i]));
+            }
+            return new ProbabilitiesResponse(gameId, solution.isExact(), cellResponses,
+                    solution.getOtherProbability());
+        });
+    }
+
+    // решение до первого хода не строится: передается null
+    private <T> T solve(String gameId, BiFunction<GameInfo, GameSolver.Solution, T> response) {
+        GeneralGame generalGame = gameComponent.getGame(gameId);
+        if (Objects.isNull(generalGame) || generalGame.isChunked()) {
+            throw new GameNotFoundException(gameId);
+        }
+        T result;
+        synchronized (generalGame) {
+            GameInfo gameInfo = generalGame.getGameInfo();
+            if (gameInfo.getCompleted()) {
+                throw new GameCompletedException(gameId);
+            }
+            if (gameInfo.isZeroFields()) {
+                return response.apply(gameInfo, null);
+            }
+            gameInfo.expand();
+            result = response.apply(gameInfo, gameSolver.solve(gameInfo.getBoard(), gameInfo.getMinesCount()));
+        }
+        gameComponent.resizeGame(generalGame);
+        return result;
+    }
+
+    // закрытая непомеченная клетка вне границы
+    private int findOtherCell(GameBoard board, int[] frontierCells) {
+        boolean[] frontier = new boolean[board.size()];
+        for (int cell : frontierCells) {
+            frontier[cell] = true;
+        }
+        for (int i = 0; i < board.size(); i++) {
+            if (!frontier[i] && !board.isRevealed(i) && !board.isFlagged(i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
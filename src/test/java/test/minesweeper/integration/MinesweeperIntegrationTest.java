@@ -1,5 +1,6 @@
 package test.minesweeper.integration;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -8,9 +9,12 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import test.minesweeper.component.GameComponent;
+import test.minesweeper.configuration.GameProperties;
 import test.minesweeper.controller.MinesweeperController;
+import test.minesweeper.dto.CellResponse;
 import test.minesweeper.dto.GameInfoResponse;
 import test.minesweeper.dto.GameNewRequest;
+import test.minesweeper.dto.GameTurnDeltaResponse;
 import test.minesweeper.dto.GameTurnRequest;
 import test.minesweeper.enums.FieldEnum;
 import test.minesweeper.exception.FieldCoordinatesException;
@@ -19,8 +23,6 @@ import test.minesweeper.exception.GameNotFoundException;
 import test.minesweeper.exception.MinesCountException;
 import test.minesweeper.service.MinesweeperService;
 
-import java.time.LocalDateTime;
-
 @Slf4j
 @SpringBootTest
 public class MinesweeperIntegrationTest {
@@ -34,6 +36,12 @@ public class MinesweeperIntegrationTest {
     @Autowired
     private GameComponent gameComponent;
 
+    @Autowired
+    private GameProperties gameProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
     public void testCreateGame() {
         final int HEIGHT = 10;
@@ -208,8 +216,8 @@ public class MinesweeperIntegrationTest {
         gameTurnRequest.setCol(COL);
         gameTurnRequest.setRow(ROW);
 
-        gameComponent.getGame(gameInfoResponse.getGame_id()).setLocalDateTime(LocalDateTime.MIN);
-        gameComponent.deleteGame();
+        gameComponent.getGame(gameInfoResponse.getGame_id()).setExpiresAt(System.nanoTime());
+        gameComponent.deleteGame(System.nanoTime() + gameProperties.getTtl().toNanos() + gameProperties.getExpiryTick().toNanos());
 
         GameNotFoundException thrown = Assertions.assertThrows(
                 GameNotFoundException.class, () ->
@@ -249,4 +257,63 @@ public class MinesweeperIntegrationTest {
                 0, HEIGHT - 1,
                 0, WIDTH - 1), thrown.getMessage());
     }
+
+    @Test
+    public void testTurnDelta() {
+        final int HEIGHT = 10;
+        final int WIDTH = 10;
+        final int MINES_COUNT = 10;
+        final int COL = 4;
+        final int ROW = 4;
+
+        GameNewRequest gameRequest = new GameNewRequest();
+        gameRequest.setHeight(HEIGHT);
+        gameRequest.setWidth(WIDTH);
+        gameRequest.setMines_count(MINES_COUNT);
+        GameInfoResponse gameInfoResponse = minesweeperController.createNewGame(gameRequest);
+
+        GameTurnRequest gameTurnRequest = new GameTurnRequest();
+        gameTurnRequest.setGame_id(gameInfoResponse.getGame_id());
+        gameTurnRequest.setCol(COL);
+        gameTurnRequest.setRow(ROW);
+        GameTurnDeltaResponse gameTurnDeltaResponse = minesweeperController.turnDelta(gameTurnRequest);
+        // ответ создания игры - снимок до хода, поле после хода берется из хранилища
+        gameInfoResponse = new GameInfoResponse(gameComponent.getGame(gameInfoResponse.getGame_id()).getGameInfo());
+
+        Assertions.assertEquals(1L, gameTurnDeltaResponse.getVersion());
+        Assertions.assertEquals(ROW, gameTurnDeltaResponse.getCells().get(0).getRow());
+        Assertions.assertEquals(COL, gameTurnDeltaResponse.getCells().get(0).getCol());
+        Assertions.assertEquals(gameInfoResponse.getField()[ROW][COL], gameTurnDeltaResponse.getCells().get(0).getValue());
+        for (CellResponse cellResponse : gameTurnDeltaResponse.getCells()) {
+            Assertions.assertEquals(gameInfoResponse.getField()[cellResponse.getRow()][cellResponse.getCol()],
+                    cellResponse.getValue());
+        }
+    }
+
+    @Test
+    public void testTurnMetrics() {
+        final int HEIGHT = 10;
+        final int WIDTH = 10;
+        final int MINES_COUNT = 10;
+        final int COL = 4;
+        final int ROW = 4;
+        double created = meterRegistry.get("minesweeper.games.created").counter().count();
+        long firstTurns = meterRegistry.get("minesweeper.turn").tag("type", "first_turn").timer().count();
+
+        GameNewRequest gameRequest = new GameNewRequest();
+        gameRequest.setHeight(HEIGHT);
+        gameRequest.setWidth(WIDTH);
+        gameRequest.setMines_count(MINES_COUNT);
+        GameInfoResponse gameInfoResponse = minesweeperController.createNewGame(gameRequest);
+
+        GameTurnRequest gameTurnRequest = new GameTurnRequest();
+        gameTurnRequest.setGame_id(gameInfoResponse.getGame_id());
+        gameTurnRequest.setCol(COL);
+        gameTurnRequest.setRow(ROW);
+        minesweeperController.turn(gameTurnRequest);
+
+        Assertions.assertEquals(created + 1, meterRegistry.get("minesweeper.games.created").counter().count());
+        Assertions.assertEquals(firstTurns + 1, meterRegistry.get("minesweeper.turn").tag("type", "first_turn").timer().count());
+        Assertions.assertTrue(meterRegistry.get("minesweeper.games.live").gauge().value() >= 1);
+    }
 }
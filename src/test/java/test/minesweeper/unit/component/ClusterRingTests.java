@@ -0,0 +1,63 @@
+package test.minesweeper.unit.component;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import test.minesweeper.component.ClusterRing;
+import test.minesweeper.configuration.ClusterProperties;
+import test.minesweeper.dto.GameIds;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class ClusterRingTests {
+
+    @Test
+    public void ringShouldSplitShardsEvenlyAndMoveOnlyShardsOfAddedNode() {
+        ClusterRing node1 = ring("node1", 3);
+        ClusterRing node2 = ring("node2", 3);
+        ClusterRing node3 = ring("node3", 3);
+        for (ClusterRing ring : new ClusterRing[]{node1, node2, node3}) {
+            Assertions.assertTrue(ring.getLocalShardCount() > GameIds.SHARDS / 5);
+            Assertions.assertTrue(ring.getLocalShardCount() < GameIds.SHARDS / 2);
+        }
+
+        ClusterRing extended = ring("node4", 4);
+        int moved = 0;
+        for (int shard = 0; shard < GameIds.SHARDS; shard++) {
+            String gameId = GameIds.newId(shard);
+            Assertions.assertEquals(shard, GameIds.shard(gameId));
+            if (!node1.getOwner(gameId).equals(extended.getOwner(gameId))) {
+                Assertions.assertEquals("node4", extended.getOwner(gameId));
+                moved++;
+            }
+        }
+        Assertions.assertEquals(extended.getLocalShardCount(), moved);
+        Assertions.assertTrue(moved > GameIds.SHARDS / 6 && moved < GameIds.SHARDS / 3);
+    }
+
+    @Test
+    public void newGameIdShouldBeOwnedByCreatingNode() {
+        ClusterRing node1 = ring("node1", 3);
+        ClusterRing node2 = ring("node2", 3);
+        for (int i = 0; i < 100; i++) {
+            String gameId = node2.newGameId();
+            Assertions.assertTrue(node2.isLocal(gameId));
+            Assertions.assertFalse(node1.isLocal(gameId));
+            Assertions.assertEquals("http://localhost:9501/api", node1.getOwnerUrl(gameId));
+        }
+        Assertions.assertTrue(new ClusterRing(new ClusterProperties()).isLocal(node2.newGameId()));
+        Assertions.assertThrows(IllegalStateException.class, () -> ring("node5", 3));
+    }
+
+    private static ClusterRing ring(String nodeId, int nodes) {
+        ClusterProperties clusterProperties = new ClusterProperties();
+        clusterProperties.setEnabled(true);
+        clusterProperties.setNodeId(nodeId);
+        Map<String, String> addresses = new LinkedHashMap<>();
+        for (int i = 1; i <= nodes; i++) {
+            addresses.put("node" + i, "http://localhost:" + (9499 + i) + "/api");
+        }
+        clusterProperties.setNodes(addresses);
+        return new ClusterRing(clusterProperties);
+    }
+}
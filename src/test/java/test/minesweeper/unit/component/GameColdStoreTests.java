@@ -0,0 +1,268 @@
+package test.minesweeper.unit.component;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import test.minesweeper.component.GameColdStore;
+import test.minesweeper.component.GameComponent;
+import test.minesweeper.component.GameListener;
+import test.minesweeper.component.GameMetrics;
+import test.minesweeper.configuration.ColdStoreProperties;
+import test.minesweeper.configuration.GameProperties;
+import test.minesweeper.dto.GameBoard;
+import test.minesweeper.dto.GameInfo;
+import test.minesweeper.dto.GameInfoResponse;
+import test.minesweeper.dto.GameNewRequest;
+import test.minesweeper.dto.GameTurnRequest;
+import test.minesweeper.dto.GeneralGame;
+import test.minesweeper.service.MinesweeperService;
+import test.minesweeper.unit.service.MinesweeperServiceFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+public class GameColdStoreTests {
+
+    @TempDir
+    Path coldDir;
+
+    @Test
+    public void idleGameShouldBeSpilledToDiskAndLoadedBackOnNextTurn() throws Exception {
+        Node node = new Node();
+        String gameId = node.newGame();
+        turn(node, gameId, 0, 0);
+        String[][] field = new GameInfoResponse(node.gameComponent.getGame(gameId).getGameInfo()).getField();
+
+        node.gameComponent.deleteGame(System.nanoTime() + Duration.ofMinutes(3).toNanos());
+
+        Assertions.assertEquals(0, node.gameComponent.getGameCount());
+        Assertions.assertEquals(0, node.gameComponent.getUsedCells());
+        Assertions.assertEquals(1, node.gameColdStore.getGameCount());
+        GeneralGame loaded = node.gameComponent.getGame(gameId);
+        Assertions.assertArrayEquals(field, new GameInfoResponse(loaded.getGameInfo()).getField());
+        Assertions.assertEquals(1, loaded.getGameInfo().getVersion());
+        Assertions.assertEquals(1, node.gameComponent.getGameCount());
+        Assertions.assertEquals(0, node.gameColdStore.getGameCount());
+        // поле восстановлено из зерна, ход продолжает игру
+        GameBoard board = loaded.getGameInfo().getBoard();
+        int cell = 0;
+        while (board.isRevealed(cell) || board.isMine(cell)) {
+            cell++;
+        }
+        turn(node, gameId, cell / board.getWidth(), cell % board.getWidth());
+        Assertions.assertEquals(2, node.gameComponent.getGame(gameId).getGameInfo().getVersion());
+        Assertions.assertNull(node.gameComponent.getGame("unknown"));
+        node.gameColdStore.close();
+    }
+
+    @Test
+    public void turnWaitingForSpilledGameShouldApplyToLoadedGame() throws Exception {
+        Node node = new Node();
+        String gameId = node.newGame();
+        turn(node, gameId, 0, 0);
+        GeneralGame generalGame = node.gameComponent.getGame(gameId);
+        GameBoard board = generalGame.getGameInfo().getBoard();
+        int cell = 0;
+        while (board.isRevealed(cell) || board.isMine(cell)) {
+            cell++;
+        }
+        int row = cell / board.getWidth();
+        int col = cell % board.getWidth();
+
+        // ход нашел игру и ждет ее монитор, пока игра выгружается
+        Thread turnThread;
+        synchronized (generalGame) {
+            turnThread = new Thread(() -> turn(node, gameId, row, col));
+            turnThread.start();
+            while (turnThread.getState() != Thread.State.BLOCKED) {
+                Thread.sleep(1);
+            }
+            node.gameComponent.deleteGame(System.nanoTime() + Duration.ofMinutes(3).toNanos());
+            Assertions.assertFalse(node.gameComponent.isStored(generalGame));
+        }
+        turnThread.join();
+
+        GeneralGame loaded = node.gameComponent.getGame(gameId);
+        Assertions.assertNotSame(generalGame, loaded);
+        Assertions.assertEquals(2, loaded.getGameInfo().getVersion());
+        Assertions.assertTrue(loaded.getGameInfo().getBoard().isRevealed(row, col));
+        node.gameColdStore.close();
+    }
+
+    @Test
+    public void spilledGameShouldBeReportedToListenersWithoutBlockingStore() throws Exception {
+        Node node = new Node();
+        String gameId = node.newGame();
+        CompletableFuture<String> spilled = new CompletableFuture<>();
+        CountDownLatch release = new CountDownLatch(1);
+        // медленный подписчик, например WebSocket-клиент, который не читает события
+        node.gameComponent.addGameListener(new GameListener() {
+            @Override
+            public void gameSpilled(GeneralGame generalGame) {
+                spilled.complete(generalGame.getGameId());
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        node.gameComponent.deleteGame(System.nanoTime() + Duration.ofMinutes(3).toNanos());
+
+        Assertions.assertEquals(gameId, spilled.get(5, TimeUnit.SECONDS));
+        // подписчик еще занят, а хранилище и игры свободны
+        String otherGameId = node.newGame();
+        turn(node, otherGameId, 0, 0);
+        Assertions.assertNotNull(node.gameComponent.getGame(gameId));
+        release.countDown();
+        node.gameColdStore.close();
+    }
+
+    @Test
+    public void spilledGamesShouldSurviveRestartAndBeRemovedAfterRetention() throws Exception {
+        Node node = new Node();
+        String spilledGameId = node.newGame();
+        String loadedGameId = node.newGame();
+        turn(node, spilledGameId, 0, 0);
+        node.gameComponent.deleteGame(System.nanoTime() + Duration.ofMinutes(3).toNanos());
+        Assertions.assertNotNull(node.gameComponent.getGame(loadedGameId));
+        node.gameColdStore.close();
+
+        Node restarted = new Node();
+
+        // возврат игры в память записан в индексе и переживает перезапуск
+        Assertions.assertEquals(1, restarted.gameColdStore.getGameCount());
+        Assertions.assertNull(restarted.gameComponent.getGame(loadedGameId));
+        Assertions.assertEquals(1, restarted.gameComponent.getGame(spilledGameId).getGameInfo().getVersion());
+        restarted.gameComponent.deleteGame(System.nanoTime() + Duration.ofMinutes(3).toNanos());
+        Assertions.assertEquals(1, restarted.gameColdStore.getGameCount());
+
+        Assertions.assertEquals(0, restarted.gameColdStore.deleteExpired(System.currentTimeMillis()));
+        Assertions.assertEquals(1, restarted.gameColdStore.deleteExpired(
+                System.currentTimeMillis() + Duration.ofDays(8).toMillis()));
+        Assertions.assertEquals(0, restarted.gameColdStore.getSegmentCount());
+        Assertions.assertNull(restarted.gameComponent.getGame(spilledGameId));
+        try (Stream<Path> files = Files.list(coldDir)) {
+            Assertions.assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void manySpilledGamesShouldBeFoundAfterRestart() throws Exception {
+        Node node = new Node();
+        List<String> gameIds = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            gameIds.add(node.newGame());
+        }
+        node.gameComponent.deleteGame(System.nanoTime() + Duration.ofMinutes(3).toNanos());
+        Assertions.assertEquals(gameIds.size(), node.gameColdStore.getGameCount());
+        // половина игр возвращается в память, их отметки удаления переживают перезапуск
+        for (int i = 0; i < gameIds.size(); i += 2) {
+            Assertions.assertNotNull(node.gameComponent.getGame(gameIds.get(i)));
+        }
+        node.gameColdStore.close();
+
+        Node restarted = new Node();
+
+        Assertions.assertEquals(gameIds.size() / 2, restarted.gameColdStore.getGameCount());
+        for (int i = 0; i < gameIds.size(); i++) {
+            GameInfo gameInfo = restarted.gameColdStore.read(gameIds.get(i));
+            if (i % 2 == 0) {
+                Assertions.assertNull(gameInfo);
+            } else {
+                Assertions.assertEquals(gameIds.get(i), gameInfo.getGame_id());
+            }
+        }
+        restarted.gameColdStore.close();
+    }
+
+    @Test
+    public void corruptIndexShouldNotFailGameLookup() throws Exception {
+        Node node = new Node();
+        String gameId = node.newGame();
+        node.gameComponent.deleteGame(System.nanoTime() + Duration.ofMinutes(3).toNanos());
+        node.gameColdStore.close();
+        Path index;
+        try (Stream<Path> files = Files.list(coldDir)) {
+            index = files.filter(path -> path.toString().endsWith(".idx")).findFirst().orElseThrow();
+        }
+        // смещение записи за концом сегмента
+        byte[] bytes = Files.readAllBytes(index);
+        ByteBuffer.wrap(bytes).putInt(bytes.length - 8, Integer.MAX_VALUE - 4);
+        Files.write(index, bytes);
+
+        Node restarted = new Node();
+
+        Assertions.assertEquals(0, restarted.gameColdStore.getGameCount());
+        Assertions.assertNull(restarted.gameComponent.getGame(gameId));
+        restarted.gameColdStore.close();
+    }
+
+    @Test
+    public void damagedRecordShouldNotFailGameLookup() throws Exception {
+        Node node = new Node();
+        String gameId = node.newGame();
+        node.gameComponent.deleteGame(System.nanoTime() + Duration.ofMinutes(3).toNanos());
+        node.gameColdStore.close();
+        Path segment;
+        try (Stream<Path> files = Files.list(coldDir)) {
+            segment = files.filter(path -> path.toString().endsWith(".seg")).findFirst().orElseThrow();
+        }
+        // длина записи в заголовке больше сегмента
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, Integer.MAX_VALUE), 0);
+        }
+
+        Node restarted = new Node();
+
+        Assertions.assertEquals(1, restarted.gameColdStore.getGameCount());
+        Assertions.assertNull(restarted.gameColdStore.read(gameId));
+        Assertions.assertNull(restarted.gameComponent.getGame(gameId));
+        restarted.gameColdStore.close();
+    }
+
+    private void turn(Node node, String gameId, int row, int col) {
+        GameTurnRequest gameTurnRequest = new GameTurnRequest();
+        gameTurnRequest.setGame_id(gameId);
+        gameTurnRequest.setRow(row);
+        gameTurnRequest.setCol(col);
+        node.minesweeperService.turnGame(gameTurnRequest);
+    }
+
+    private class Node {
+        private final GameComponent gameComponent;
+        private final GameColdStore gameColdStore;
+        private final MinesweeperService minesweeperService;
+
+        private Node() throws Exception {
+            ColdStoreProperties coldStoreProperties = new ColdStoreProperties();
+            coldStoreProperties.setEnabled(true);
+            coldStoreProperties.setDir(coldDir.toString());
+            GameMetrics gameMetrics = new GameMetrics(new SimpleMeterRegistry());
+            gameComponent = new GameComponent(new GameProperties(), gameMetrics);
+            gameColdStore = new GameColdStore(coldStoreProperties, gameComponent, gameMetrics);
+            gameColdStore.open();
+            minesweeperService = MinesweeperServiceFactory.newService(gameComponent, gameMetrics);
+        }
+
+        private String newGame() {
+            GameNewRequest gameRequest = new GameNewRequest();
+            gameRequest.setHeight(30);
+            gameRequest.setWidth(30);
+            gameRequest.setMines_count(90);
+            return minesweeperService.createNewGame(gameRequest).getGame_id();
+        }
+    }
+}
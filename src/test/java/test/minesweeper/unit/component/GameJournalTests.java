@@ -0,0 +1,148 @@
+package test.minesweeper.unit.component;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import test.minesweeper.component.GameComponent;
+import test.minesweeper.component.GameJournal;
+import test.minesweeper.component.GameMetrics;
+import test.minesweeper.configuration.GameProperties;
+import test.minesweeper.configuration.JournalProperties;
+import test.minesweeper.dto.GameInfoResponse;
+import test.minesweeper.dto.GameNewRequest;
+import test.minesweeper.dto.GameTurnRequest;
+import test.minesweeper.exception.FieldOpenException;
+import test.minesweeper.service.MinesweeperService;
+import test.minesweeper.unit.service.MinesweeperServiceFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+public class GameJournalTests {
+
+    @TempDir
+    Path journalDir;
+
+    @Test
+    public void gamesShouldSurviveRestartFromSnapshotAndJournal() throws Exception {
+        final int HEIGHT = 30;
+        final int WIDTH = 30;
+        final int MINES_COUNT = 90;
+
+        Node node = new Node();
+        GameNewRequest gameRequest = new GameNewRequest();
+        gameRequest.setHeight(HEIGHT);
+        gameRequest.setWidth(WIDTH);
+        gameRequest.setMines_count(MINES_COUNT);
+        String snapshotGameId = node.minesweeperService.createNewGame(gameRequest).getGame_id();
+        turn(node, snapshotGameId, 0, 0);
+        node.gameJournal.writeSnapshot(node.gameComponent.getGames());
+        // ходы после снимка попадают только в журнал
+        turn(node, snapshotGameId, HEIGHT - 1, WIDTH - 1);
+        String journalGameId = node.minesweeperService.createNewGame(gameRequest).getGame_id();
+        turn(node, journalGameId, HEIGHT / 2, WIDTH / 2);
+        String[][] snapshotGameField = fieldOf(node, snapshotGameId);
+        String[][] journalGameField = fieldOf(node, journalGameId);
+        long snapshotGameVersion = node.gameComponent.getGame(snapshotGameId).getGameInfo().getVersion();
+        node.gameJournal.close();
+
+        Node restarted = new Node();
+
+        Assertions.assertArrayEquals(snapshotGameField, fieldOf(restarted, snapshotGameId));
+        Assertions.assertArrayEquals(journalGameField, fieldOf(restarted, journalGameId));
+        Assertions.assertEquals(snapshotGameVersion,
+                restarted.gameComponent.getGame(snapshotGameId).getGameInfo().getVersion());
+        restarted.gameJournal.close();
+    }
+
+    @Test
+    public void zeroFilledJournalTailShouldBeIgnored() throws Exception {
+        gameShouldSurviveDamagedJournalTail(new byte[4096]);
+    }
+
+    @Test
+    public void garbageJournalTailShouldBeIgnored() throws Exception {
+        ByteBuffer garbage = ByteBuffer.allocate(64);
+        garbage.putInt(-7).putInt(0x5EED);
+        gameShouldSurviveDamagedJournalTail(garbage.array());
+        ByteBuffer huge = ByteBuffer.allocate(64);
+        huge.putInt(Integer.MAX_VALUE - 8).putInt(0x5EED);
+        gameShouldSurviveDamagedJournalTail(huge.array());
+    }
+
+    @Test
+    public void undecodableJournalRecordShouldEndReplay() throws Exception {
+        // запись с верной CRC, но обрезанными полями события создания игры
+        byte[] payload = {1, 0, 1, 'x', 0, 0, 0, 9, 0, 0, 0};
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(8 + payload.length);
+        record.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        gameShouldSurviveDamagedJournalTail(record.array());
+    }
+
+    // игра из журнала восстанавливается, а поврежденный хвост последнего сегмента пропускается
+    private void gameShouldSurviveDamagedJournalTail(byte[] tail) throws Exception {
+        Node node = new Node();
+        GameNewRequest gameRequest = new GameNewRequest();
+        gameRequest.setHeight(10);
+        gameRequest.setWidth(10);
+        gameRequest.setMines_count(10);
+        String gameId = node.minesweeperService.createNewGame(gameRequest).getGame_id();
+        turn(node, gameId, 5, 5);
+        String[][] field = fieldOf(node, gameId);
+        node.gameJournal.close();
+        Path segment;
+        try (Stream<Path> files = Files.list(journalDir)) {
+            segment = files.filter(path -> path.getFileName().toString().endsWith(".log"))
+                    .max(Comparator.naturalOrder())
+                    .orElseThrow();
+        }
+        Files.write(segment, tail, StandardOpenOption.APPEND);
+
+        Node restarted = new Node();
+
+        Assertions.assertArrayEquals(field, fieldOf(restarted, gameId));
+        restarted.gameJournal.close();
+    }
+
+    private void turn(Node node, String gameId, int row, int col) {
+        GameTurnRequest gameTurnRequest = new GameTurnRequest();
+        gameTurnRequest.setGame_id(gameId);
+        gameTurnRequest.setRow(row);
+        gameTurnRequest.setCol(col);
+        try {
+            node.minesweeperService.turnGame(gameTurnRequest);
+        } catch (FieldOpenException e) {
+            // клетка уже открыта предыдущим ходом или игра завершена
+        }
+    }
+
+    private String[][] fieldOf(Node node, String gameId) {
+        GameInfoResponse gameInfoResponse = new GameInfoResponse(node.gameComponent.getGame(gameId).getGameInfo());
+        return gameInfoResponse.getField();
+    }
+
+    private class Node {
+        private final GameComponent gameComponent;
+        private final GameJournal gameJournal;
+        private final MinesweeperService minesweeperService;
+
+        private Node() {
+            JournalProperties journalProperties = new JournalProperties();
+            journalProperties.setEnabled(true);
+            journalProperties.setDir(journalDir.toString());
+            GameMetrics gameMetrics = new GameMetrics(new SimpleMeterRegistry());
+            gameComponent = new GameComponent(new GameProperties(), gameMetrics);
+            gameJournal = new GameJournal(journalProperties);
+            minesweeperService = MinesweeperServiceFactory.newService(gameComponent, gameMetrics, gameJournal);
+            minesweeperService.recoverGames();
+        }
+    }
+}
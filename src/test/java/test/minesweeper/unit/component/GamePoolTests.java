@@ -0,0 +1,48 @@
+package test.minesweeper.unit.component;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import test.minesweeper.component.GameMetrics;
+import test.minesweeper.component.GamePool;
+import test.minesweeper.configuration.GameProperties;
+import test.minesweeper.dto.GameBoard;
+import test.minesweeper.dto.GameInfo;
+
+import java.util.List;
+
+public class GamePoolTests {
+
+    @Test
+    public void pollShouldReturnLayoutGeneratedFromSeedAndRefillPool() throws Exception {
+        final int POOL_SIZE = 4;
+        GameProperties gameProperties = new GameProperties();
+        gameProperties.setPoolSize(POOL_SIZE);
+        gameProperties.setPooledBoards(List.of("9x9/10"));
+        GamePool gamePool = new GamePool(gameProperties, new GameMetrics(new SimpleMeterRegistry()));
+        gamePool.start();
+        try {
+            awaitFilled(gamePool, POOL_SIZE);
+
+            GamePool.Layout layout = gamePool.poll(9, 9, 10);
+            Assertions.assertNotNull(layout);
+            Assertions.assertNull(gamePool.poll(16, 16, 10));
+            GameBoard expected = GameInfo.generateBoard(9, 9, 10, layout.getSeed());
+            for (int i = 0; i < expected.size(); i++) {
+                Assertions.assertEquals(expected.getValue(i), layout.getBoard().getValue(i));
+            }
+
+            awaitFilled(gamePool, POOL_SIZE);
+        } finally {
+            gamePool.close();
+        }
+    }
+
+    private void awaitFilled(GamePool gamePool, int poolSize) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (gamePool.getAvailable(9, 9, 10) < poolSize && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(poolSize, gamePool.getAvailable(9, 9, 10));
+    }
+}
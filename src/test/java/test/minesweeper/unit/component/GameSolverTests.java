@@ -0,0 +1,108 @@
+package test.minesweeper.unit.component;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import test.minesweeper.component.GameSolver;
+import test.minesweeper.configuration.GameProperties;
+import test.minesweeper.dto.GameBoard;
+import test.minesweeper.dto.GameInfo;
+
+import java.time.Duration;
+
+public class GameSolverTests {
+
+    @Test
+    public void solveShouldDeduceMinesBySubsetReduction() {
+        // закрытая верхняя строка, открытая нижняя "1 2 1": мины по краям, середина безопасна
+        GameBoard board = new GameBoard(2, 3);
+        board.setValue(0, 0, GameBoard.MINE);
+        board.setValue(0, 2, GameBoard.MINE);
+        board.setValue(1, 0, 1);
+        board.setValue(1, 1, 2);
+        board.setValue(1, 2, 1);
+        for (int col = 0; col < 3; col++) {
+            board.reveal(1, col);
+        }
+
+        GameSolver.Solution solution = newSolver().solve(board, 2);
+
+        Assertions.assertTrue(solution.isExact());
+        Assertions.assertEquals(3, solution.getCells().length);
+        for (int i = 0; i < solution.getCells().length; i++) {
+            int cell = solution.getCells()[i];
+            Assertions.assertEquals(board.isMine(cell) ? 1.0 : 0.0, solution.getProbabilities()[i]);
+        }
+        Assertions.assertEquals(0, solution.getOtherCells());
+    }
+
+    @Test
+    public void solveShouldSplitProbabilityBetweenIndistinguishableCells() {
+        GameBoard board = new GameBoard(1, 3);
+        board.setValue(0, 0, GameBoard.MINE);
+        board.setValue(0, 1, 1);
+        board.reveal(0, 1);
+
+        GameSolver.Solution solution = newSolver().solve(board, 1);
+
+        Assertions.assertTrue(solution.isExact());
+        Assertions.assertArrayEquals(new double[]{0.5, 0.5}, solution.getProbabilities(), 1e-9);
+    }
+
+    @Test
+    public void provedSafeCellsShouldStaySafeWhenEnumerationTimesOut() {
+        // "1" между двумя закрытыми клетками не решается без перебора, "0" доказывает безопасность соседей
+        GameBoard board = new GameBoard(1, 7);
+        board.setValue(0, 0, GameBoard.MINE);
+        board.setValue(0, 1, 1);
+        board.reveal(0, 1);
+        board.reveal(0, 5);
+        GameProperties gameProperties = new GameProperties();
+        gameProperties.setSolverTimeLimit(Duration.ZERO);
+
+        GameSolver.Solution solution = new GameSolver(gameProperties).solve(board, 1);
+
+        Assertions.assertFalse(solution.isExact());
+        for (int i = 0; i < solution.getCells().length; i++) {
+            int cell = solution.getCells()[i];
+            Assertions.assertEquals(cell == 4 || cell == 6, solution.isSafe(i), "cell " + cell);
+        }
+    }
+
+    @Test
+    public void solveShouldNeverMarkMineAsSafeOnExpertBoards() {
+        final int HEIGHT = 16;
+        final int WIDTH = 30;
+        final int MINES_COUNT = 99;
+        GameSolver gameSolver = newSolver();
+
+        for (long seed = 0; seed < 20; seed++) {
+            GameInfo gameInfo = new GameInfo("game", WIDTH, HEIGHT, MINES_COUNT, seed);
+            gameInfo.initFirstTurn(HEIGHT / 2, WIDTH / 2);
+            GameBoard board = gameInfo.getBoard();
+            board.revealArea(HEIGHT / 2, WIDTH / 2, null);
+
+            boolean progress = true;
+            while (progress) {
+                progress = false;
+                GameSolver.Solution solution = gameSolver.solve(board, MINES_COUNT);
+                for (int i = 0; i < solution.getCells().length; i++) {
+                    int cell = solution.getCells()[i];
+                    double probability = solution.getProbabilities()[i];
+                    Assertions.assertTrue(probability >= 0 && probability <= 1);
+                    if (probability == 1) {
+                        Assertions.assertTrue(board.isMine(cell));
+                    } else if (probability == 0) {
+                        Assertions.assertFalse(board.isMine(cell));
+                        progress |= board.revealArea(cell / WIDTH, cell % WIDTH, null) > 0;
+                    }
+                }
+            }
+        }
+    }
+
+    private GameSolver newSolver() {
+        GameProperties gameProperties = new GameProperties();
+        gameProperties.setSolverTimeLimit(Duration.ofSeconds(1));
+        return new GameSolver(gameProperties);
+    }
+}
@@ -0,0 +1,162 @@
+package test.minesweeper.unit.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import test.minesweeper.component.ClusterRing;
+import test.minesweeper.component.GameMetrics;
+import test.minesweeper.configuration.ClusterProperties;
+import test.minesweeper.controller.ClusterForwardingFilter;
+import test.minesweeper.dto.GameIds;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ClusterForwardingFilterTests {
+    private HttpServer owner;
+    private ClusterRing clusterRing;
+    private ClusterForwardingFilter filter;
+
+    @BeforeEach
+    public void startOwner() throws Exception {
+        // узел node2 отвечает адресом запроса, узлом, который его переслал, и телом запроса
+        owner = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        owner.createContext("/api/v1/", exchange -> {
+            String reply = exchange.getRequestURI() + " "
+                    + exchange.getRequestHeaders().getFirst(ClusterForwardingFilter.FORWARDED_HEADER) + " "
+                    + new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            byte[] body = reply.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        owner.start();
+
+        ClusterProperties clusterProperties = new ClusterProperties();
+        clusterProperties.setEnabled(true);
+        clusterProperties.setNodeId("node1");
+        Map<String, String> nodes = new LinkedHashMap<>();
+        nodes.put("node1", "http://localhost:1/api");
+        nodes.put("node2", "http://localhost:" + owner.getAddress().getPort() + "/api");
+        clusterProperties.setNodes(nodes);
+        clusterRing = new ClusterRing(clusterProperties);
+        filter = new ClusterForwardingFilter(clusterRing, new GameMetrics(new SimpleMeterRegistry()),
+                new ObjectMapper(), clusterProperties);
+    }
+
+    @AfterEach
+    public void stopOwner() {
+        owner.stop(0);
+    }
+
+    @Test
+    public void turnOfForeignGameShouldBeForwardedToOwner() throws Exception {
+        String body = "{\"game_id\":\"" + gameIdOf("node2") + "\",\"row\":1,\"col\":2}";
+        MockHttpServletRequest request = turnRequest(body);
+        request.setQueryString("delta=true");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        Assertions.assertNull(chain.getRequest());
+        Assertions.assertEquals(200, response.getStatus());
+        Assertions.assertEquals("/api/v1/turn?delta=true node1 " + body, response.getContentAsString());
+    }
+
+    @Test
+    public void turnOfLocalGameShouldReachControllerWithSameBody() throws Exception {
+        String body = "{\"game_id\":\"" + gameIdOf("node1") + "\",\"row\":1,\"col\":2}";
+        MockHttpServletRequest request = turnRequest(body);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        Assertions.assertNotNull(chain.getRequest());
+        Assertions.assertEquals(body,
+                new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void localBodyShouldBeReadableThroughReadListener() throws Exception {
+        String body = "{\"game_id\":\"" + gameIdOf("node1") + "\",\"row\":1,\"col\":2}";
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(turnRequest(body), new MockHttpServletResponse(), chain);
+
+        ServletInputStream input = chain.getRequest().getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        AtomicBoolean allDataRead = new AtomicBoolean();
+        input.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                byte[] buffer = new byte[8];
+                while (input.isReady() && !input.isFinished()) {
+                    int length = input.read(buffer);
+                    if (length > 0) {
+                        read.write(buffer, 0, length);
+                    }
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                allDataRead.set(true);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                Assertions.fail(throwable);
+            }
+        });
+
+        Assertions.assertTrue(allDataRead.get());
+        Assertions.assertEquals(body, read.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void unreachableOwnerShouldReturnServiceUnavailable() throws Exception {
+        owner.stop(0);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/hint");
+        request.setContextPath("/api");
+        request.setParameter("game_id", gameIdOf("node2"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        Assertions.assertEquals(503, response.getStatus());
+        Assertions.assertTrue(response.getContentAsString().contains("node2"));
+    }
+
+    private String gameIdOf(String node) {
+        for (int shard = 0; ; shard++) {
+            String gameId = GameIds.newId(shard);
+            if (clusterRing.getOwner(gameId).equals(node)) {
+                return gameId;
+            }
+        }
+    }
+
+    private static MockHttpServletRequest turnRequest(String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/turn");
+        request.setContextPath("/api");
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
@@ -14,10 +14,12 @@ import test.minesweeper.exception.FieldOpenException;
 import test.minesweeper.exception.GameNotFoundException;
 import test.minesweeper.exception.MinesCountException;
 import test.minesweeper.service.MinesweeperService;
+import test.minesweeper.service.SolverService;
 
 import java.util.UUID;
 
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -32,6 +34,9 @@ public class MinesweeperControllerTests {
     @MockitoBean
     private MinesweeperService minesweeperService;
 
+    @MockitoBean
+    private SolverService solverService;
+
     @Test
     public void minesweeperNewShouldReturnMessageFromService() throws Exception {
         final int HEIGHT = 10;
@@ -97,8 +102,10 @@ public class MinesweeperControllerTests {
         gameRequest.setWidth(WIDTH);
         gameRequest.setMines_count(MINES_COUNT);
 
-        GameInfoResponse gameInfoResponse = new GameInfoResponse(new GameInfo(gameRequest));
-        gameInfoResponse.getField()[ROW][COL] = FieldEnum.ONE.getValue();
+        GameInfo gameInfo = new GameInfo(gameRequest);
+        gameInfo.getBoard().setValue(ROW, COL, 1);
+        gameInfo.getBoard().reveal(ROW, COL);
+        GameInfoResponse gameInfoResponse = new GameInfoResponse(gameInfo);
 
         GameTurnRequest gameTurnRequest = new GameTurnRequest();
         gameTurnRequest.setGame_id(UUID.randomUUID().toString());
@@ -193,4 +200,122 @@ public class MinesweeperControllerTests {
                         0, HEIGHT - 1,
                         0, WIDTH - 1)));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void minesweeperTurnDeltaShouldReturnMessageFromService() throws Exception {
+        final int HEIGHT = 10;
+        final int WIDTH = 10;
+        final int MINES_COUNT = 10;
+        final int COL = 4;
+        final int ROW = 4;
+
+        GameNewRequest gameRequest = new GameNewRequest();
+        gameRequest.setHeight(HEIGHT);
+        gameRequest.setWidth(WIDTH);
+        gameRequest.setMines_count(MINES_COUNT);
+
+        GameInfo gameInfo = new GameInfo(gameRequest);
+        gameInfo.getBoard().setValue(ROW, COL, 1);
+        RevealedCells revealedCells = new RevealedCells();
+        gameInfo.getBoard().revealArea(ROW, COL, revealedCells);
+        gameInfo.incrementVersion();
+        GameTurnDeltaResponse gameTurnDeltaResponse = new GameTurnDeltaResponse(gameInfo, revealedCells);
+
+        GameTurnRequest gameTurnRequest = new GameTurnRequest();
+        gameTurnRequest.setGame_id(gameInfo.getGame_id());
+        gameTurnRequest.setCol(COL);
+        gameTurnRequest.setRow(ROW);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        String jsonContent = objectMapper.writeValueAsString(gameTurnRequest);
+
+        when(minesweeperService.turnGameDelta(gameTurnRequest)).thenReturn(gameTurnDeltaResponse);
+        this.mockMvc.perform(post("/v1/turn")
+                        .contentType("application/json")
+                        .accept(MinesweeperController.DELTA_MEDIA_TYPE)
+                        .content(jsonContent))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.game_id").value(gameInfo.getGame_id()))
+                        .andExpect(jsonPath("$.version").value(1))
+                        .andExpect(jsonPath("$.completed").value(false))
+                        .andExpect(jsonPath("$.cells.length()").value(1))
+                        .andExpect(jsonPath("$.cells[0].row").value(ROW))
+                        .andExpect(jsonPath("$.cells[0].col").value(COL))
+                        .andExpect(jsonPath("$.cells[0].value").value(FieldEnum.ONE.getValue()))
+                        .andExpect(jsonPath("$.field").doesNotExist());
+    }
+
+    @Test
+    public void minesweeperTurnCompactShouldEncodeFieldByFormat() throws Exception {
+        final int HEIGHT = 3;
+        final int WIDTH = 4;
+        final int MINES_COUNT = 1;
+        final int COL = 1;
+        final int ROW = 1;
+
+        GameNewRequest gameRequest = new GameNewRequest();
+        gameRequest.setHeight(HEIGHT);
+        gameRequest.setWidth(WIDTH);
+        gameRequest.setMines_count(MINES_COUNT);
+
+        GameInfo gameInfo = new GameInfo(gameRequest);
+        gameInfo.getBoard().setValue(ROW, COL, 1);
+        gameInfo.getBoard().reveal(ROW, COL);
+        GameInfoResponse gameInfoResponse = new GameInfoResponse(gameInfo);
+
+        GameTurnRequest gameTurnRequest = new GameTurnRequest();
+        gameTurnRequest.setGame_id(gameInfo.getGame_id());
+        gameTurnRequest.setCol(COL);
+        gameTurnRequest.setRow(ROW);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        String jsonContent = objectMapper.writeValueAsString(gameTurnRequest);
+
+        when(minesweeperService.turnGame(gameTurnRequest)).thenReturn(gameInfoResponse);
+        this.mockMvc.perform(post("/v1/turn")
+                        .param("format", "rows")
+                        .contentType("application/json")
+                        .content(jsonContent))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.game_id").value(gameInfo.getGame_id()))
+                        .andExpect(jsonPath("$.field_format").value("rows"))
+                        .andExpect(jsonPath("$.field.length()").value(HEIGHT))
+                        .andExpect(jsonPath("$.field[0]").value("    "))
+                        .andExpect(jsonPath("$.field[1]").value(" 1  "))
+                        .andExpect(jsonPath("$.completed").value(false));
+
+        this.mockMvc.perform(post("/v1/turn")
+                        .param("format", "rle")
+                        .contentType("application/json")
+                        .content(jsonContent))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.field_format").value("rle"))
+                        .andExpect(jsonPath("$.field").value("5 ,11,6 "));
+
+        this.mockMvc.perform(post("/v1/turn")
+                        .param("format", "base64")
+                        .contentType("application/json")
+                        .content(jsonContent))
+                        .andExpect(status().isBadRequest())
+                        .andExpect(jsonPath("$.error").value("неизвестный формат поля base64, допустимы rows и rle"));
+    }
+
+    @Test
+    public void minesweeperHintShouldReturnMessageFromService() throws Exception {
+        final String GAME_ID = UUID.randomUUID().toString();
+        final int ROW = 2;
+        final int COL = 3;
+
+        when(solverService.hint(GAME_ID)).thenReturn(new HintResponse(GAME_ID, ROW, COL, 0.0, true));
+        this.mockMvc.perform(get("/v1/hint").param("game_id", GAME_ID))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.game_id").value(GAME_ID))
+                        .andExpect(jsonPath("$.row").value(ROW))
+                        .andExpect(jsonPath("$.col").value(COL))
+                        .andExpect(jsonPath("$.safe").value(true));
+
+        when(solverService.hint("unknown")).thenThrow(new GameNotFoundException("unknown"));
+        this.mockMvc.perform(get("/v1/hint").param("game_id", "unknown"))
+                        .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,82 @@
+package test.minesweeper.unit.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import test.minesweeper.component.GameComponent;
+import test.minesweeper.component.GameMetrics;
+import test.minesweeper.configuration.GameProperties;
+import test.minesweeper.controller.MinesweeperWebSocketHandler;
+import test.minesweeper.dto.GameNewRequest;
+import test.minesweeper.service.MinesweeperService;
+import test.minesweeper.unit.service.MinesweeperServiceFactory;
+
+import java.util.HashMap;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+public class MinesweeperWebSocketHandlerTests {
+
+    @Test
+    public void turnOverWebSocketShouldPushDeltaAndExpiry() throws Exception {
+        final int HEIGHT = 10;
+        final int WIDTH = 10;
+        final int MINES_COUNT = 10;
+        GameProperties gameProperties = new GameProperties();
+        GameMetrics gameMetrics = new GameMetrics(new SimpleMeterRegistry());
+        GameComponent gameComponent = new GameComponent(gameProperties, gameMetrics);
+        MinesweeperService minesweeperService = MinesweeperServiceFactory.newService(gameComponent, gameMetrics);
+        ObjectMapper objectMapper = new ObjectMapper();
+        MinesweeperWebSocketHandler handler = new MinesweeperWebSocketHandler(minesweeperService, gameComponent,
+                objectMapper);
+
+        GameNewRequest gameRequest = new GameNewRequest();
+        gameRequest.setHeight(HEIGHT);
+        gameRequest.setWidth(WIDTH);
+        gameRequest.setMines_count(MINES_COUNT);
+        String gameId = minesweeperService.createNewGame(gameRequest).getGame_id();
+
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("1");
+        when(session.isOpen()).thenReturn(true);
+        when(session.getAttributes()).thenReturn(new HashMap<>());
+        handler.afterConnectionEstablished(session);
+
+        handler.handleMessage(session, new TextMessage(String.format(
+                "{\"type\":\"turn\",\"game_id\":\"%s\",\"row\":0,\"col\":0}", gameId)));
+        handler.handleMessage(session, new TextMessage(String.format(
+                "{\"type\":\"turn\",\"game_id\":\"%s\",\"row\":%d,\"col\":0}", gameId, HEIGHT)));
+        gameComponent.deleteGame(System.nanoTime() + 2 * gameProperties.getTtl().toNanos());
+
+        ArgumentCaptor<WebSocketMessage<?>> messages = ArgumentCaptor.forClass(WebSocketMessage.class);
+        // события удаления отправляются потоком подписчиков хранилища
+        verify(session, timeout(5_000).times(3)).sendMessage(messages.capture());
+        List<JsonNode> events = messages.getAllValues().stream()
+                .map(message -> readTree(objectMapper, (String) message.getPayload())).toList();
+
+        Assertions.assertEquals("delta", events.get(0).get("type").asText());
+        Assertions.assertEquals(1, events.get(0).get("delta").get("version").asInt());
+        Assertions.assertFalse(events.get(0).get("delta").get("cells").isEmpty());
+        Assertions.assertEquals("error", events.get(1).get("type").asText());
+        Assertions.assertEquals("expired", events.get(2).get("type").asText());
+        Assertions.assertEquals(gameId, events.get(2).get("game_id").asText());
+
+        handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+    }
+
+    private JsonNode readTree(ObjectMapper objectMapper, String payload) {
+        try {
+            return objectMapper.readTree(payload);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package test.minesweeper.unit.controller;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import test.minesweeper.configuration.TimingProperties;
+import test.minesweeper.controller.RequestTimingFilter;
+import test.minesweeper.dto.RequestTiming;
+import test.minesweeper.enums.TimingPhaseEnum;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+public class RequestTimingFilterTests {
+    private RequestTimingFilter filter;
+
+    @BeforeEach
+    public void createFilter() {
+        filter = new RequestTimingFilter(new TimingProperties());
+    }
+
+    @AfterEach
+    public void disableTiming() {
+        RequestTiming.setEnabled(false);
+    }
+
+    @Test
+    public void turnShouldReturnPhasesInServerTimingHeader() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("/api/v1/turn"), response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                RequestTiming.mark(TimingPhaseEnum.LOOKUP);
+                RequestTiming.mark(TimingPhaseEnum.REVEAL);
+                response.getWriter().write("{}");
+            }
+        }));
+
+        String header = response.getHeader(RequestTimingFilter.SERVER_TIMING_HEADER);
+        Assertions.assertNotNull(header);
+        Assertions.assertTrue(header.matches("(\\w+;dur=\\d+\\.\\d{3}, )*total;dur=\\d+\\.\\d{3}"), header);
+        Assertions.assertTrue(header.contains("serialize;dur="), header);
+        Assertions.assertFalse(header.contains("init;dur="), header);
+        // вне запроса отметки не записываются
+        Assertions.assertNull(RequestTiming.current());
+    }
+
+    @Test
+    public void flushedStreamBodyShouldKeepFullServerTimingHeader() throws Exception {
+        byte[] body = new byte[16 * 1024];
+        Arrays.fill(body, (byte) 'x');
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setBufferSize(1024);
+
+        filter.doFilter(request("/api/v1/turn"), response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                RequestTiming.mark(TimingPhaseEnum.LOOKUP);
+                ServletOutputStream out = response.getOutputStream();
+                out.write(body, 0, body.length / 2);
+                out.flush();
+                response.flushBuffer();
+                out.write(body, body.length / 2, body.length - body.length / 2);
+            }
+        }));
+
+        String header = response.getHeader(RequestTimingFilter.SERVER_TIMING_HEADER);
+        Assertions.assertNotNull(header);
+        Assertions.assertTrue(header.contains("lookup;dur="), header);
+        Assertions.assertTrue(header.contains("serialize;dur="), header);
+        Assertions.assertArrayEquals(body, response.getContentAsByteArray());
+        Assertions.assertEquals(body.length, response.getContentLength());
+    }
+
+    @Test
+    public void largeBodyShouldBeStreamedWithHeaderBeforeSerialization() throws Exception {
+        byte[] body = new byte[1024 * 1024];
+        Arrays.fill(body, (byte) 'x');
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setBufferSize(1024);
+        boolean[] committed = new boolean[1];
+
+        filter.doFilter(request("/api/v1/turn"), response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                RequestTiming.mark(TimingPhaseEnum.LOOKUP);
+                ServletOutputStream out = response.getOutputStream();
+                for (int offset = 0; offset < body.length; offset += 8 * 1024) {
+                    out.write(body, offset, 8 * 1024);
+                }
+                // тело больше лимита не придерживается и уходит клиенту до конца запроса
+                committed[0] = response.isCommitted();
+            }
+        }));
+
+        Assertions.assertTrue(committed[0]);
+        String header = response.getHeader(RequestTimingFilter.SERVER_TIMING_HEADER);
+        Assertions.assertNotNull(header);
+        Assertions.assertTrue(header.contains("lookup;dur="), header);
+        Assertions.assertTrue(header.contains("total;dur="), header);
+        Assertions.assertArrayEquals(body, response.getContentAsByteArray());
+    }
+
+    @Test
+    public void webSocketUpgradeShouldNotBeTimed() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request("/api/v1/ws"), response, chain);
+
+        Assertions.assertSame(response, chain.getResponse());
+        Assertions.assertNull(response.getHeader(RequestTimingFilter.SERVER_TIMING_HEADER));
+    }
+
+    @Test
+    public void requestOutsideApiShouldNotBeTimed() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("/api/actuator/prometheus"), response, new MockFilterChain());
+
+        Assertions.assertNull(response.getHeader(RequestTimingFilter.SERVER_TIMING_HEADER));
+    }
+
+    private MockHttpServletRequest request(String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.setContextPath("/api");
+        return request;
+    }
+}
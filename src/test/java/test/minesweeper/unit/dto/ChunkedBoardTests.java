@@ -0,0 +1,77 @@
+package test.minesweeper.unit.dto;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import test.minesweeper.dto.ChunkedBoard;
+import test.minesweeper.dto.ChunkedGameInfo;
+import test.minesweeper.dto.ChunkedGameNewRequest;
+
+public class ChunkedBoardTests {
+
+    @Test
+    public void tilesShouldBeGeneratedLazilyAndDeterministically() {
+        final int SIZE = 100_000;
+        final double DENSITY = 0.2;
+        final long SEED = 42L;
+        ChunkedBoard board = new ChunkedBoard(SIZE, SIZE, DENSITY, SEED);
+        ChunkedBoard sameBoard = new ChunkedBoard(SIZE, SIZE, DENSITY, SEED);
+
+        // начало плитки в середине поля
+        final int START = SIZE / 2 & -ChunkedBoard.TILE_SIZE;
+        int mines = 0;
+        for (int i = 0; i < ChunkedBoard.TILE_SIZE; i++) {
+            for (int j = 0; j < ChunkedBoard.TILE_SIZE; j++) {
+                int row = START + i;
+                int col = START + j;
+                Assertions.assertEquals(board.isMine(row, col), sameBoard.isMine(row, col));
+                if (board.isMine(row, col)) {
+                    mines++;
+                }
+            }
+        }
+
+        // в памяти одна плитка, а не поле 100000x100000
+        Assertions.assertEquals(1, board.getTileCount());
+        Assertions.assertEquals(Math.round(ChunkedBoard.TILE_CELLS * DENSITY), mines);
+        Assertions.assertEquals(Math.round(ChunkedBoard.TILE_CELLS * DENSITY) * (SIZE / 64L) * (SIZE / 64L)
+                + Math.round(64 * (SIZE % 64) * DENSITY) * (SIZE / 64L) * 2
+                + Math.round((SIZE % 64) * (SIZE % 64) * DENSITY), board.getMinesCount());
+    }
+
+    @Test
+    public void unboundedBoardShouldOpenSafeAreaAroundFirstTurn() {
+        ChunkedBoard board = new ChunkedBoard(0, 0, 0.2, 7L);
+        final int ROW = -1_000_000;
+        final int COL = Integer.MAX_VALUE;
+
+        board.setSafeZone(ROW, COL);
+        int revealed = board.revealArea(ROW, COL, null);
+
+        Assertions.assertFalse(board.isMine(ROW, COL));
+        Assertions.assertEquals(0, board.getValue(ROW, COL));
+        Assertions.assertTrue(revealed >= 6);
+        Assertions.assertTrue(board.isRevealed(ROW - 1, COL - 1));
+    }
+
+    @Test
+    public void boundedChunkedGameShouldBeWonByOpeningAllSafeCells() {
+        ChunkedGameNewRequest newGameRequest = new ChunkedGameNewRequest();
+        newGameRequest.setHeight(70);
+        newGameRequest.setWidth(10);
+        newGameRequest.setMines_density(0.15);
+        ChunkedGameInfo gameInfo = new ChunkedGameInfo(newGameRequest);
+        ChunkedBoard board = gameInfo.getBoard();
+        board.setSafeZone(0, 0);
+
+        Assertions.assertFalse(gameInfo.checkWin());
+        for (int i = 0; i < gameInfo.getHeight(); i++) {
+            for (int j = 0; j < gameInfo.getWidth(); j++) {
+                if (!board.isMine(i, j)) {
+                    gameInfo.addRevealedCells(board.revealArea(i, j, null));
+                }
+            }
+        }
+
+        Assertions.assertTrue(gameInfo.checkWin());
+    }
+}
@@ -0,0 +1,98 @@
+package test.minesweeper.unit.dto;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import test.minesweeper.dto.GameBoard;
+import test.minesweeper.dto.GameIds;
+import test.minesweeper.dto.OffHeapGameBoard;
+import test.minesweeper.dto.OffHeapMemory;
+import test.minesweeper.dto.RevealedCells;
+import test.minesweeper.enums.FieldEnum;
+
+public class GameBoardTests {
+
+    @Test
+    public void revealAreaShouldOpenLargeEmptyBoardWithoutRecursion() {
+        final int HEIGHT = 1000;
+        final int WIDTH = 1000;
+        GameBoard board = new GameBoard(HEIGHT, WIDTH);
+
+        int revealed = board.revealArea(HEIGHT / 2, WIDTH / 2, null);
+
+        Assertions.assertEquals(HEIGHT * WIDTH, revealed);
+        Assertions.assertTrue(board.isRevealed(0, 0));
+        Assertions.assertTrue(board.isRevealed(HEIGHT - 1, WIDTH - 1));
+    }
+
+    @Test
+    public void revealAreaShouldStopAtNumberedBorder() {
+        final int HEIGHT = 3;
+        final int WIDTH = 5;
+        GameBoard board = new GameBoard(HEIGHT, WIDTH);
+        // мины в правом столбце, второй справа столбец - числа
+        for (int i = 0; i < HEIGHT; i++) {
+            board.setValue(i, WIDTH - 1, GameBoard.MINE);
+            board.setValue(i, WIDTH - 2, i == 1 ? 3 : 2);
+        }
+
+        RevealedCells revealedCells = new RevealedCells();
+        int revealed = board.revealArea(0, 0, revealedCells);
+
+        Assertions.assertEquals(HEIGHT * (WIDTH - 1), revealed);
+        Assertions.assertEquals(revealed, revealedCells.size());
+        Assertions.assertFalse(board.isRevealed(1, WIDTH - 1));
+        Assertions.assertEquals(0, board.revealArea(0, 0, null));
+        Assertions.assertEquals(FieldEnum.THREE.getValue(), board.toClientField(false, false)[1][WIDTH - 2]);
+        Assertions.assertEquals(FieldEnum.EMPTY.getValue(), board.toClientField(false, false)[1][WIDTH - 1]);
+    }
+
+    @Test
+    public void offHeapBoardShouldBehaveLikeHeapBoardAndReuseReleasedBlocks() {
+        final int HEIGHT = 30;
+        final int WIDTH = 40;
+        GameBoard heapBoard = new GameBoard(HEIGHT, WIDTH);
+        for (int i = 0; i < HEIGHT; i++) {
+            heapBoard.setValue(i, WIDTH - 1, GameBoard.MINE);
+            heapBoard.setValue(i, WIDTH - 2, i == 0 || i == HEIGHT - 1 ? 2 : 3);
+        }
+        OffHeapMemory memory = new OffHeapMemory();
+        GameBoard offHeapBoard = new OffHeapGameBoard(heapBoard, memory);
+        Assertions.assertEquals(2048, memory.getUsedBytes());
+
+        Assertions.assertEquals(heapBoard.revealArea(0, 0, null), offHeapBoard.revealArea(0, 0, null));
+        Assertions.assertArrayEquals(heapBoard.toClientField(false, false), offHeapBoard.toClientField(false, false));
+        // сжатие сохраняет только маски состояний
+        offHeapBoard.compact();
+        Assertions.assertEquals(0, memory.getUsedBytes());
+        offHeapBoard.expand();
+        Assertions.assertTrue(offHeapBoard.isRevealed(HEIGHT - 1, WIDTH - 2));
+        Assertions.assertFalse(offHeapBoard.isRevealed(0, WIDTH - 1));
+
+        // блок удаленного поля выдается снова только после двух шагов очистки
+        offHeapBoard.release();
+        memory.reclaim();
+        memory.reclaim();
+        long reserved = memory.getReservedBytes();
+        GameBoard next = new OffHeapGameBoard(new GameBoard(HEIGHT, WIDTH), memory);
+        Assertions.assertEquals(reserved, memory.getReservedBytes());
+        Assertions.assertFalse(next.isRevealed(0, 0));
+        Assertions.assertEquals(0, next.getValue(HEIGHT - 1, WIDTH - 1));
+        // удаленное поле читает свою копию, а не блок новой игры
+        next.reveal(HEIGHT - 1, WIDTH - 1);
+        Assertions.assertFalse(offHeapBoard.isRevealed(HEIGHT - 1, WIDTH - 1));
+        Assertions.assertTrue(offHeapBoard.isRevealed(HEIGHT - 1, WIDTH - 2));
+    }
+
+    @Test
+    public void gameIdsShouldRoundTripThroughIndexKey() {
+        for (long id : new long[]{0, 1, 61, 62, Long.MAX_VALUE, Long.MIN_VALUE, -1}) {
+            String gameId = GameIds.encode(id);
+            Assertions.assertEquals(GameIds.LENGTH, gameId.length());
+            Assertions.assertEquals(id, GameIds.key(gameId));
+        }
+        String gameId = GameIds.newId();
+        Assertions.assertEquals(gameId, GameIds.encode(GameIds.key(gameId)));
+        // идентификатор другого вида получает ключ по хешу
+        Assertions.assertNotEquals(GameIds.key("zzzzzzzzzzz"), GameIds.key("01234567-89ab-cdef-0123-456789abcdef"));
+    }
+}
@@ -0,0 +1,88 @@
+package test.minesweeper.unit.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import test.minesweeper.dto.GameInfo;
+import test.minesweeper.dto.GameInfoCompactResponse;
+import test.minesweeper.dto.GameInfoResponse;
+import test.minesweeper.enums.FieldFormatEnum;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class GameInfoResponseTests {
+
+    @Test
+    public void serializerShouldKeepReflectionWireFormat() throws Exception {
+        final int HEIGHT = 7;
+        final int WIDTH = 11;
+        final int MINES_COUNT = 12;
+
+        GameInfo gameInfo = new GameInfo("game", WIDTH, HEIGHT, MINES_COUNT, 7);
+        gameInfo.initFirstTurn(HEIGHT / 2, WIDTH / 2);
+        gameInfo.getBoard().revealArea(HEIGHT / 2, WIDTH / 2, null);
+        gameInfo.getBoard().setFlagged(gameInfo.getBoard().index(0, 0), !gameInfo.getBoard().isRevealed(0, 0));
+        assertSameJson(gameInfo);
+
+        gameInfo.setCompleted(true);
+        assertSameJson(gameInfo);
+        gameInfo.setWon(true);
+        assertSameJson(gameInfo);
+    }
+
+    @Test
+    public void rleFieldShouldBeStreamedInChunks() throws Exception {
+        final int HEIGHT = 300;
+        final int WIDTH = 300;
+        final int MINES_COUNT = 20000;
+
+        // на плотном поле серии короткие, строка занимает много кусков буфера
+        GameInfo gameInfo = new GameInfo("game", WIDTH, HEIGHT, MINES_COUNT, 7);
+        gameInfo.initFirstTurn(HEIGHT / 2, WIDTH / 2);
+        gameInfo.setCompleted(true);
+        GameInfoResponse response = new GameInfoResponse(gameInfo);
+        StringBuilder cells = new StringBuilder();
+        for (String[] row : response.getField()) {
+            cells.append(String.join("", row));
+        }
+        StringBuilder rle = new StringBuilder();
+        for (int i = 0; i < cells.length(); ) {
+            int end = i;
+            while (end < cells.length() && cells.charAt(end) == cells.charAt(i)) {
+                end++;
+            }
+            rle.append(rle.length() == 0 ? "" : ",").append(end - i).append(cells.charAt(i));
+            i = end;
+        }
+
+        for (ObjectMapper objectMapper : List.of(new ObjectMapper(),
+                new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT))) {
+            String json = objectMapper.writeValueAsString(new GameInfoCompactResponse(response, FieldFormatEnum.RLE));
+            JsonNode node = objectMapper.readTree(json);
+            Assertions.assertTrue(rle.length() > 4096);
+            Assertions.assertEquals(rle.toString(), node.get("field").asText());
+            Assertions.assertEquals("rle", node.get("field_format").asText());
+            Assertions.assertTrue(node.get("completed").asBoolean());
+        }
+    }
+
+    private void assertSameJson(GameInfo gameInfo) throws Exception {
+        GameInfoResponse response = new GameInfoResponse(gameInfo);
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("game_id", response.getGame_id());
+        expected.put("width", response.getWidth());
+        expected.put("height", response.getHeight());
+        expected.put("mines_count", response.getMines_count());
+        expected.put("field", response.getField());
+        expected.put("completed", response.getCompleted());
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        Assertions.assertEquals(objectMapper.writeValueAsString(expected), objectMapper.writeValueAsString(response));
+        ObjectMapper prettyMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        Assertions.assertEquals(prettyMapper.writeValueAsString(expected), prettyMapper.writeValueAsString(response));
+    }
+}
@@ -0,0 +1,166 @@
+package test.minesweeper.unit.dto;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import test.minesweeper.dto.GameBoard;
+import test.minesweeper.dto.GameInfo;
+import test.minesweeper.dto.GameNewRequest;
+
+public class GameInfoTests {
+
+    @Test
+    public void initFirstTurnShouldPlaceExactMinesCountOnDenseBoard() {
+        final int HEIGHT = 300;
+        final int WIDTH = 300;
+        final int MINES_COUNT = HEIGHT * WIDTH - 1;
+        final int COL = 150;
+        final int ROW = 150;
+
+        GameInfo gameInfo = new GameInfo(newGameRequest(HEIGHT, WIDTH, MINES_COUNT));
+        gameInfo.initFirstTurn(ROW, COL);
+
+        Assertions.assertEquals(MINES_COUNT, countMines(gameInfo.getBoard()));
+        Assertions.assertFalse(gameInfo.getBoard().isMine(ROW, COL));
+        Assertions.assertEquals(8, gameInfo.getBoard().getValue(ROW, COL));
+    }
+
+    @Test
+    public void initFirstTurnShouldComputeNeighbourCounts() {
+        final int HEIGHT = 16;
+        final int WIDTH = 30;
+        final int MINES_COUNT = 99;
+
+        GameInfo gameInfo = new GameInfo(newGameRequest(HEIGHT, WIDTH, MINES_COUNT));
+        gameInfo.initFirstTurn(0, 0);
+        GameBoard board = gameInfo.getBoard();
+
+        Assertions.assertEquals(MINES_COUNT, countMines(board));
+        Assertions.assertFalse(board.isMine(0, 0));
+        for (int i = 0; i < HEIGHT; i++) {
+            for (int j = 0; j < WIDTH; j++) {
+                if (board.isMine(i, j)) {
+                    continue;
+                }
+                int expected = 0;
+                for (int dx = -1; dx <= 1; dx++) {
+                    for (int dy = -1; dy <= 1; dy++) {
+                        int nx = i + dx, ny = j + dy;
+                        if (nx >= 0 && ny >= 0 && nx < HEIGHT && ny < WIDTH && board.isMine(nx, ny)) {
+                            expected++;
+                        }
+                    }
+                }
+                Assertions.assertEquals(expected, board.getValue(i, j));
+            }
+        }
+    }
+
+    @Test
+    public void initFirstTurnOnGeneratedBoardShouldMoveMineLikeRegularGame() {
+        final int HEIGHT = 16;
+        final int WIDTH = 16;
+        final int MINES_COUNT = 40;
+        final long SEED = 42;
+
+        GameBoard generatedBoard = GameInfo.generateBoard(WIDTH, HEIGHT, MINES_COUNT, SEED);
+        int mineIndex = 0;
+        while (!generatedBoard.isMine(mineIndex)) {
+            mineIndex++;
+        }
+        GameInfo pooledGame = new GameInfo("pooled", WIDTH, HEIGHT, MINES_COUNT, SEED, generatedBoard);
+        GameInfo regularGame = new GameInfo("regular", WIDTH, HEIGHT, MINES_COUNT, SEED);
+        pooledGame.initFirstTurn(mineIndex / WIDTH, mineIndex % WIDTH);
+        regularGame.initFirstTurn(mineIndex / WIDTH, mineIndex % WIDTH);
+
+        Assertions.assertFalse(pooledGame.getBoard().isMine(mineIndex));
+        Assertions.assertEquals(MINES_COUNT, countMines(pooledGame.getBoard()));
+        for (int i = 0; i < HEIGHT * WIDTH; i++) {
+            Assertions.assertEquals(regularGame.getBoard().getValue(i), pooledGame.getBoard().getValue(i));
+        }
+    }
+
+    @Test
+    public void initFirstTurnShouldMoveMineToUniformFreeCell() {
+        final int HEIGHT = 4;
+        final int WIDTH = 4;
+        final int MINES_COUNT = 8;
+        final int FREE_CELLS = HEIGHT * WIDTH - MINES_COUNT;
+        final int GAMES = 8000;
+
+        // номер клетки, куда ушла мина, среди свободных клеток исходной расстановки
+        int[] targets = new int[FREE_CELLS];
+        for (long seed = 0; seed < GAMES; seed++) {
+            GameBoard board = GameInfo.generateBoard(WIDTH, HEIGHT, MINES_COUNT, seed);
+            int[] freeCells = new int[FREE_CELLS];
+            int free = 0;
+            int mineIndex = -1;
+            for (int i = 0; i < board.size(); i++) {
+                if (!board.isMine(i)) {
+                    freeCells[free++] = i;
+                } else if (mineIndex < 0) {
+                    mineIndex = i;
+                }
+            }
+            GameInfo gameInfo = new GameInfo("game", WIDTH, HEIGHT, MINES_COUNT, seed, board);
+            gameInfo.initFirstTurn(mineIndex / WIDTH, mineIndex % WIDTH);
+            for (int target = 0; target < FREE_CELLS; target++) {
+                if (board.isMine(freeCells[target])) {
+                    targets[target]++;
+                }
+            }
+        }
+
+        for (int count : targets) {
+            Assertions.assertEquals(GAMES / FREE_CELLS, count, GAMES / FREE_CELLS / 5.0);
+        }
+    }
+
+    @Test
+    public void expandShouldRegenerateCompactedBoardFromSeed() {
+        final int HEIGHT = 100;
+        final int WIDTH = 100;
+        final int MINES_COUNT = 2000;
+
+        GameInfo gameInfo = new GameInfo(newGameRequest(HEIGHT, WIDTH, MINES_COUNT));
+        gameInfo.initFirstTurn(HEIGHT / 2, WIDTH / 3);
+        GameBoard board = gameInfo.getBoard();
+        board.revealArea(HEIGHT / 2, WIDTH / 3, null);
+        board.setFlagged(board.index(HEIGHT - 1, WIDTH - 1), true);
+        int[] values = new int[board.size()];
+        boolean[] revealed = new boolean[board.size()];
+        for (int i = 0; i < board.size(); i++) {
+            values[i] = board.getValue(i);
+            revealed[i] = board.isRevealed(i);
+        }
+
+        gameInfo.compact();
+        Assertions.assertTrue(gameInfo.isCompacted());
+        Assertions.assertEquals(2 * 8 * ((HEIGHT * WIDTH + 63) / 64), board.getResidentSize());
+
+        gameInfo.expand();
+        Assertions.assertFalse(gameInfo.isCompacted());
+        for (int i = 0; i < board.size(); i++) {
+            Assertions.assertEquals(values[i], board.getValue(i));
+            Assertions.assertEquals(revealed[i], board.isRevealed(i));
+            Assertions.assertEquals(i == board.index(HEIGHT - 1, WIDTH - 1), board.isFlagged(i));
+        }
+    }
+
+    private GameNewRequest newGameRequest(int height, int width, int minesCount) {
+        GameNewRequest gameRequest = new GameNewRequest();
+        gameRequest.setHeight(height);
+        gameRequest.setWidth(width);
+        gameRequest.setMines_count(minesCount);
+        return gameRequest;
+    }
+
+    private int countMines(GameBoard board) {
+        int mines = 0;
+        for (int i = 0; i < board.size(); i++) {
+            if (board.isMine(i)) {
+                mines++;
+            }
+        }
+        return mines;
+    }
+}
@@ -0,0 +1,93 @@
+package test.minesweeper.unit.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import test.minesweeper.component.ClusterRing;
+import test.minesweeper.component.GameComponent;
+import test.minesweeper.component.GameMetrics;
+import test.minesweeper.configuration.ClusterProperties;
+import test.minesweeper.configuration.GameProperties;
+import test.minesweeper.dto.*;
+import test.minesweeper.exception.FieldFlaggedException;
+import test.minesweeper.exception.MinesDensityException;
+import test.minesweeper.service.ChunkedGameService;
+
+public class ChunkedGameServiceTests {
+
+    @Test
+    public void unboundedGameShouldChargeOnlyTouchedTiles() {
+        GameMetrics gameMetrics = new GameMetrics(new SimpleMeterRegistry());
+        GameComponent gameComponent = new GameComponent(new GameProperties(), gameMetrics);
+        ChunkedGameService chunkedGameService = new ChunkedGameService(gameComponent, gameMetrics,
+                new ClusterRing(new ClusterProperties()));
+        ChunkedGameNewRequest newGameRequest = new ChunkedGameNewRequest();
+        newGameRequest.setHeight(0);
+        newGameRequest.setWidth(0);
+        newGameRequest.setMines_density(0.2);
+
+        ChunkedGameInfoResponse gameInfoResponse = chunkedGameService.createNewGame(newGameRequest);
+        Assertions.assertEquals(0L, gameComponent.getUsedCells());
+
+        GameTurnRequest gameTurnRequest = new GameTurnRequest();
+        gameTurnRequest.setGame_id(gameInfoResponse.getGame_id());
+        gameTurnRequest.setRow(123_456_789);
+        gameTurnRequest.setCol(-987_654_321);
+        GameTurnDeltaResponse gameTurnDeltaResponse = chunkedGameService.turnGame(gameTurnRequest);
+
+        Assertions.assertFalse(gameTurnDeltaResponse.getCompleted());
+        Assertions.assertFalse(gameTurnDeltaResponse.getCells().isEmpty());
+        GeneralGame generalGame = gameComponent.getGame(gameInfoResponse.getGame_id());
+        long tiles = generalGame.getChunkedGameInfo().getBoard().getTileCount();
+        Assertions.assertEquals(tiles * ChunkedBoard.TILE_CELLS, gameComponent.getUsedCells());
+
+        ChunkedRegionResponse region = chunkedGameService.getRegion(gameInfoResponse.getGame_id(),
+                123_456_788, -987_654_322, 3, 3);
+        Assertions.assertEquals("0", region.getField()[1].substring(1, 2));
+    }
+
+    @Test
+    public void rejectedOpenOfFlaggedCellShouldKeepFirstTurnSafe() {
+        GameMetrics gameMetrics = new GameMetrics(new SimpleMeterRegistry());
+        ChunkedGameService chunkedGameService = new ChunkedGameService(
+                new GameComponent(new GameProperties(), gameMetrics), gameMetrics,
+                new ClusterRing(new ClusterProperties()));
+        ChunkedGameNewRequest newGameRequest = new ChunkedGameNewRequest();
+        newGameRequest.setHeight(0);
+        newGameRequest.setWidth(0);
+        newGameRequest.setMines_density(ChunkedGameService.MAX_DENSITY);
+
+        // при плотности 0.9 клетка вне безопасной зоны почти всегда мина
+        for (int i = 0; i < 20; i++) {
+            String gameId = chunkedGameService.createNewGame(newGameRequest).getGame_id();
+            chunkedGameService.turnGame(turnRequest(gameId, 0, 0, "flag"));
+            Assertions.assertThrows(FieldFlaggedException.class,
+                    () -> chunkedGameService.turnGame(turnRequest(gameId, 0, 0, null)));
+
+            Assertions.assertFalse(chunkedGameService.turnGame(turnRequest(gameId, 100, 100, null)).getCompleted());
+        }
+    }
+
+    @Test
+    public void createNewGameShouldRejectSparseDensity() {
+        GameMetrics gameMetrics = new GameMetrics(new SimpleMeterRegistry());
+        ChunkedGameService chunkedGameService = new ChunkedGameService(
+                new GameComponent(new GameProperties(), gameMetrics), gameMetrics,
+                new ClusterRing(new ClusterProperties()));
+        ChunkedGameNewRequest newGameRequest = new ChunkedGameNewRequest();
+        newGameRequest.setHeight(100_000);
+        newGameRequest.setWidth(100_000);
+        newGameRequest.setMines_density(0.01);
+
+        Assertions.assertThrows(MinesDensityException.class, () -> chunkedGameService.createNewGame(newGameRequest));
+    }
+
+    private GameTurnRequest turnRequest(String gameId, int row, int col, String action) {
+        GameTurnRequest gameTurnRequest = new GameTurnRequest();
+        gameTurnRequest.setGame_id(gameId);
+        gameTurnRequest.setRow(row);
+        gameTurnRequest.setCol(col);
+        gameTurnRequest.setAction(action);
+        return gameTurnRequest;
+    }
+}
@@ -0,0 +1,176 @@
+package test.minesweeper.unit.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import test.minesweeper.component.GameComponent;
+import test.minesweeper.component.GameMetrics;
+import test.minesweeper.configuration.GameProperties;
+import test.minesweeper.dto.*;
+import test.minesweeper.enums.GameStoreEnum;
+import test.minesweeper.exception.FieldOpenException;
+import test.minesweeper.service.MinesweeperService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MinesweeperServiceConcurrencyTests {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void concurrentTurnsOnSameGameShouldKeepBoardConsistent() throws Exception {
+        playConcurrently(new GameProperties());
+    }
+
+    @Test
+    public void concurrentTurnsOnOffHeapStoreShouldKeepBoardConsistent() throws Exception {
+        GameProperties gameProperties = new GameProperties();
+        gameProperties.setStore(GameStoreEnum.OFF_HEAP);
+        playConcurrently(gameProperties);
+    }
+
+    @Test
+    public void turnWithoutResizeShouldNotWaitForStoreMonitor() throws Exception {
+        GameMetrics gameMetrics = new GameMetrics(new SimpleMeterRegistry());
+        GameComponent gameComponent = new GameComponent(new GameProperties(), gameMetrics);
+        MinesweeperService minesweeperService = MinesweeperServiceFactory.newService(gameComponent, gameMetrics);
+        GameNewRequest gameRequest = new GameNewRequest();
+        gameRequest.setHeight(10);
+        gameRequest.setWidth(10);
+        gameRequest.setMines_count(10);
+        String gameId = minesweeperService.createNewGame(gameRequest).getGame_id();
+        GameTurnRequest gameTurnRequest = new GameTurnRequest();
+        gameTurnRequest.setGame_id(gameId);
+        gameTurnRequest.setRow(0);
+        gameTurnRequest.setCol(0);
+        gameTurnRequest.setAction("flag");
+
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            // монитор хранилища занят, например, вытеснением: ход без изменения размера поля его не ждет
+            synchronized (gameComponent) {
+                executorService.submit(() -> minesweeperService.turnGame(gameTurnRequest)).get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    // ответ каждого хода показывает состояние сразу после этого хода: открытые клетки только добавляются
+    // от версии к версии, а завершенной игра видна лишь в ответе последнего хода
+    private void assertResponsesLinearizable(SortedMap<Long, String> responses, long lastVersion) throws Exception {
+        Assertions.assertEquals(lastVersion, responses.lastKey());
+        Set<Integer> previous = new HashSet<>();
+        for (Map.Entry<Long, String> response : responses.entrySet()) {
+            JsonNode json = objectMapper.readTree(response.getValue());
+            Assertions.assertEquals(response.getKey() == lastVersion, json.get("completed").asBoolean());
+            if (response.getKey() == lastVersion) {
+                continue;
+            }
+            Set<Integer> revealed = new HashSet<>();
+            JsonNode field = json.get("field");
+            for (int row = 0; row < field.size(); row++) {
+                for (int col = 0; col < field.get(row).size(); col++) {
+                    String value = field.get(row).get(col).asText();
+                    if (!" ".equals(value) && !"F".equals(value)) {
+                        revealed.add(row * field.get(row).size() + col);
+                    }
+                }
+            }
+            Assertions.assertTrue(revealed.containsAll(previous), "версия " + response.getKey());
+            Assertions.assertTrue(revealed.size() > previous.size(), "версия " + response.getKey());
+            previous = revealed;
+        }
+    }
+
+    private void playConcurrently(GameProperties gameProperties) throws Exception {
+        final int HEIGHT = 40;
+        final int WIDTH = 40;
+        final int MINES_COUNT = 100;
+        final int THREADS = 8;
+        final int GAMES = 20;
+
+        GameMetrics gameMetrics = new GameMetrics(new SimpleMeterRegistry());
+        GameComponent gameComponent = new GameComponent(gameProperties, gameMetrics);
+        MinesweeperService minesweeperService = MinesweeperServiceFactory.newService(gameComponent, gameMetrics);
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int game = 0; game < GAMES; game++) {
+                GameNewRequest gameRequest = new GameNewRequest();
+                gameRequest.setHeight(HEIGHT);
+                gameRequest.setWidth(WIDTH);
+                gameRequest.setMines_count(MINES_COUNT);
+                String gameId = minesweeperService.createNewGame(gameRequest).getGame_id();
+
+                AtomicInteger successfulTurns = new AtomicInteger();
+                // ответы сериализуются параллельно с чужими ходами, как в контроллере после выхода из монитора
+                Map<Long, String> responses = new ConcurrentHashMap<>();
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int thread = 0; thread < THREADS; thread++) {
+                    futures.add(executorService.submit(() -> {
+                        List<Integer> cells = new ArrayList<>();
+                        for (int i = 0; i < HEIGHT * WIDTH; i++) {
+                            cells.add(i);
+                        }
+                        Collections.shuffle(cells);
+                        start.await();
+                        for (int cell : cells) {
+                            GameTurnRequest gameTurnRequest = new GameTurnRequest();
+                            gameTurnRequest.setGame_id(gameId);
+                            gameTurnRequest.setRow(cell / WIDTH);
+                            gameTurnRequest.setCol(cell % WIDTH);
+                            try {
+                                GameInfoResponse response = minesweeperService.turnGame(gameTurnRequest);
+                                Assertions.assertNull(responses.put(response.getVersion(),
+                                        objectMapper.writeValueAsString(response)));
+                                successfulTurns.incrementAndGet();
+                            } catch (FieldOpenException e) {
+                                // ячейка уже открыта другим потоком или игра завершена
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get(1, TimeUnit.MINUTES);
+                }
+
+                GameInfo gameInfo = gameComponent.getGame(gameId).getGameInfo();
+                GameBoard board = gameInfo.getBoard();
+                Assertions.assertEquals(gameProperties.getStore() == GameStoreEnum.OFF_HEAP,
+                        board instanceof OffHeapGameBoard);
+                int mines = 0;
+                int revealed = 0;
+                for (int i = 0; i < board.size(); i++) {
+                    mines += board.isMine(i) ? 1 : 0;
+                    revealed += board.isRevealed(i) ? 1 : 0;
+                }
+                Assertions.assertEquals(MINES_COUNT, mines);
+                Assertions.assertEquals(revealed, gameInfo.getRevealedCells());
+                Assertions.assertEquals(successfulTurns.get(), gameInfo.getVersion());
+                Assertions.assertTrue(gameInfo.getCompleted());
+                Assertions.assertEquals(gameInfo.isWon(), gameInfo.getSafeCellsRemaining() == 0);
+                assertResponsesLinearizable(new TreeMap<>(responses), gameInfo.getVersion());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package test.minesweeper.unit.service;
+
+import test.minesweeper.component.ClusterRing;
+import test.minesweeper.component.GameComponent;
+import test.minesweeper.component.GameJournal;
+import test.minesweeper.component.GameMetrics;
+import test.minesweeper.component.GamePool;
+import test.minesweeper.configuration.ClusterProperties;
+import test.minesweeper.configuration.GameProperties;
+import test.minesweeper.configuration.JournalProperties;
+import test.minesweeper.service.MinesweeperService;
+
+/**
+ * Сервис игр поверх заданного хранилища для тестов и бенчмарков: журнал выключен, пул полей и кольцо
+ * кластера из настроек по умолчанию (один узел).
+ */
+public final class MinesweeperServiceFactory {
+
+    private MinesweeperServiceFactory() {
+    }
+
+    public static MinesweeperService newService(GameComponent gameComponent, GameMetrics gameMetrics) {
+        return newService(gameComponent, gameMetrics, new GameJournal(new JournalProperties()));
+    }
+
+    public static MinesweeperService newService(GameComponent gameComponent, GameMetrics gameMetrics,
+                                                GameJournal gameJournal) {
+        return newService(new GameProperties(), gameComponent, gameMetrics, gameJournal);
+    }
+
+    // настройки игр задают конфигурации и размер пула готовых полей
+    public static MinesweeperService newService(GameProperties gameProperties, GameComponent gameComponent,
+                                                GameMetrics gameMetrics, GameJournal gameJournal) {
+        return new MinesweeperService(gameComponent, gameMetrics, gameJournal,
+                new GamePool(gameProperties, gameMetrics), new ClusterRing(new ClusterProperties()));
+    }
+}
@@ -1,17 +1,39 @@
 package test.minesweeper.unit.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import test.minesweeper.component.ClusterRing;
 import test.minesweeper.component.GameComponent;
+import test.minesweeper.component.GameJournal;
+import test.minesweeper.component.GameMetrics;
+import test.minesweeper.component.GamePool;
+import test.minesweeper.configuration.GameProperties;
+import test.minesweeper.dto.GameBoard;
 import test.minesweeper.dto.GameInfo;
 import test.minesweeper.dto.GameInfoResponse;
 import test.minesweeper.dto.GameNewRequest;
+import test.minesweeper.dto.GameTurnRequest;
+import test.minesweeper.dto.GameTurnsRequest;
+import test.minesweeper.dto.GameTurnsResponse;
 import test.minesweeper.dto.GeneralGame;
+import test.minesweeper.enums.FieldEnum;
+import test.minesweeper.enums.TurnStatusEnum;
+import test.minesweeper.exception.FieldChordException;
+import test.minesweeper.exception.FieldFlaggedException;
+import test.minesweeper.exception.GameStoreFullException;
 import test.minesweeper.service.MinesweeperService;
 
-import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -19,6 +41,14 @@ import static org.mockito.Mockito.*;
 public class MinesweeperServiceTests {
     @MockitoBean
     GameComponent gameComponent;
+    @MockitoBean
+    GameMetrics gameMetrics;
+    @MockitoBean
+    GameJournal gameJournal;
+    @MockitoBean
+    GamePool gamePool;
+    @MockitoBean
+    ClusterRing clusterRing;
     @Test
     public void minesweeperCreateNewGameShouldReturnMessageFromService() throws Exception {
         GameComponent gameComponent = spy(GameComponent.class);
@@ -30,8 +60,7 @@ public class MinesweeperServiceTests {
         gameRequest.setWidth(WIDTH);
         gameRequest.setMines_count(MINES_COUNT);
         GameInfo gameInfo = new GameInfo(gameRequest);
-        GameInfoResponse gameInfoResponse = new GameInfoResponse(gameInfo);
-        GeneralGame generalGame = new GeneralGame(gameInfo, gameInfoResponse);
+        GeneralGame generalGame = new GeneralGame(gameInfo);
 
         doCallRealMethod().when(gameComponent).addGame(any(GeneralGame.class));
         gameComponent.addGame(generalGame);
@@ -48,8 +77,7 @@ public class MinesweeperServiceTests {
         gameRequest.setWidth(WIDTH);
         gameRequest.setMines_count(MINES_COUNT);
         GameInfo gameInfo = new GameInfo(gameRequest);
-        GameInfoResponse gameInfoResponse = new GameInfoResponse(gameInfo);
-        GeneralGame generalGame = new GeneralGame(gameInfo, gameInfoResponse);
+        GeneralGame generalGame = new GeneralGame(gameInfo);
         gameComponent.addGame(generalGame);
 
         doCallRealMethod().when(gameComponent).getGame(any(String.class));
@@ -67,13 +95,240 @@ public class MinesweeperServiceTests {
         gameRequest.setWidth(WIDTH);
         gameRequest.setMines_count(MINES_COUNT);
         GameInfo gameInfo = new GameInfo(gameRequest);
-        GameInfoResponse gameInfoResponse = new GameInfoResponse(gameInfo);
-        GeneralGame generalGame = new GeneralGame(gameInfo, gameInfoResponse);
-        generalGame.setLocalDateTime(LocalDateTime.MIN);
+        GeneralGame generalGame = new GeneralGame(gameInfo);
+        generalGame.setExpiresAt(System.nanoTime());
         gameComponent.addGame(generalGame);
 
         doCallRealMethod().when(gameComponent).deleteGame();
         gameComponent.deleteGame();
         verify(gameComponent, times(1)).deleteGame();
     }
+    @Test
+    public void minesweeperTouchedGameShouldOutliveTtl() throws Exception {
+        GameProperties gameProperties = new GameProperties();
+        GameComponent gameComponent = new GameComponent(gameProperties, new GameMetrics(new SimpleMeterRegistry()));
+        final long TTL = gameProperties.getTtl().toNanos();
+        final int HEIGHT = 10;
+        final int WIDTH = 10;
+        final int MINES_COUNT = 10;
+        GameNewRequest gameRequest = new GameNewRequest();
+        gameRequest.setHeight(HEIGHT);
+        gameRequest.setWidth(WIDTH);
+        gameRequest.setMines_count(MINES_COUNT);
+        GameInfo gameInfo = new GameInfo(gameRequest);
+        GeneralGame generalGame = new GeneralGame(gameInfo);
+        gameComponent.addGame(generalGame);
+        long now = System.nanoTime();
+
+        gameComponent.deleteGame(now + TTL / 2);
+        assertNotNull(gameComponent.getGame(gameInfo.getGame_id()));
+
+        generalGame.setExpiresAt(now + 2 * TTL);
+        gameComponent.deleteGame(now + TTL + TTL / 2);
+        assertNotNull(gameComponent.getGame(gameInfo.getGame_id()));
+
+        gameComponent.deleteGame(now + 3 * TTL);
+        assertNull(gameComponent.getGame(gameInfo.getGame_id()));
+    }
+    @Test
+    public void minesweeperAddGameOverBudgetShouldEvictLeastRecentlyUsed() throws Exception {
+        GameProperties gameProperties = new GameProperties();
+        gameProperties.setMaxCells(250);
+        GameComponent gameComponent = new GameComponent(gameProperties, new GameMetrics(new SimpleMeterRegistry()));
+        final int HEIGHT = 10;
+        final int WIDTH = 10;
+        final int MINES_COUNT = 10;
+        GameNewRequest gameRequest = new GameNewRequest();
+        gameRequest.setHeight(HEIGHT);
+        gameRequest.setWidth(WIDTH);
+        gameRequest.setMines_count(MINES_COUNT);
+        GeneralGame[] generalGames = new GeneralGame[3];
+        for (int i = 0; i < generalGames.length; i++) {
+            GameInfo gameInfo = new GameInfo(gameRequest);
+            generalGames[i] = new GeneralGame(gameInfo);
+            gameComponent.addGame(generalGames[i]);
+        }
+
+        assertNull(gameComponent.getGame(generalGames[0].getGameInfo().getGame_id()));
+        assertNotNull(gameComponent.getGame(generalGames[1].getGameInfo().getGame_id()));
+        assertNotNull(gameComponent.getGame(generalGames[2].getGameInfo().getGame_id()));
+        assertEquals(2L * HEIGHT * WIDTH, gameComponent.getUsedCells());
+    }
+    @Test
+    public void minesweeperAddGameOverBudgetShouldThrowGameStoreFullException() throws Exception {
+        GameProperties gameProperties = new GameProperties();
+        gameProperties.setMaxCells(50);
+        GameComponent gameComponent = new GameComponent(gameProperties, new GameMetrics(new SimpleMeterRegistry()));
+        GameNewRequest gameRequest = new GameNewRequest();
+        gameRequest.setHeight(10);
+        gameRequest.setWidth(10);
+        gameRequest.setMines_count(10);
+        GameInfo gameInfo = new GameInfo(gameRequest);
+        GeneralGame generalGame = new GeneralGame(gameInfo);
+
+        assertThrows(GameStoreFullException.class, () -> gameComponent.addGame(generalGame));
+        assertEquals(0L, gameComponent.getUsedCells());
+    }
+    @Test
+    public void minesweeperTurnGamesShouldApplyBatchAndSkipCompletedGame() throws Exception {
+        GameMetrics gameMetrics = new GameMetrics(new SimpleMeterRegistry());
+        MinesweeperService minesweeperService = MinesweeperServiceFactory.newService(
+                new GameComponent(new GameProperties(), gameMetrics), gameMetrics);
+        final int HEIGHT = 3;
+        final int WIDTH = 3;
+        GameNewRequest gameRequest = new GameNewRequest();
+        gameRequest.setHeight(HEIGHT);
+        gameRequest.setWidth(WIDTH);
+        // единственная безопасная клетка - первая открытая
+        gameRequest.setMines_count(HEIGHT * WIDTH - 1);
+        String wonGameId = minesweeperService.createNewGame(gameRequest).getGame_id();
+        gameRequest.setMines_count(1);
+        String gameId = minesweeperService.createNewGame(gameRequest).getGame_id();
+
+        GameTurnsRequest gameTurnsRequest = new GameTurnsRequest();
+        gameTurnsRequest.setTurns(List.of(
+                turnRequest(wonGameId, 1, 1),
+                turnRequest(wonGameId, 0, 0),
+                turnRequest(UUID.randomUUID().toString(), 0, 0),
+                turnRequest(gameId, HEIGHT, WIDTH),
+                turnRequest(gameId, 1, 1),
+                turnRequest(gameId, 1, 1)));
+        GameTurnsResponse gameTurnsResponse = minesweeperService.turnGames(gameTurnsRequest);
+
+        assertEquals(List.of(TurnStatusEnum.WON.getValue(), TurnStatusEnum.SKIPPED.getValue(),
+                        TurnStatusEnum.GAME_NOT_FOUND.getValue(), TurnStatusEnum.INVALID_COORDINATES.getValue(),
+                        TurnStatusEnum.OPENED.getValue(), TurnStatusEnum.ALREADY_OPEN.getValue()),
+                gameTurnsResponse.getResults().stream().map(result -> result.getStatus()).toList());
+        assertEquals(1, gameTurnsResponse.getResults().get(4).getRevealed());
+        assertEquals(2, gameTurnsResponse.getGames().size());
+        assertEquals(wonGameId, gameTurnsResponse.getGames().get(0).getGame_id());
+        assertEquals(true, gameTurnsResponse.getGames().get(0).getWon());
+        assertEquals(gameId, gameTurnsResponse.getGames().get(1).getGame_id());
+        assertEquals(1L, gameTurnsResponse.getGames().get(1).getVersion());
+        assertEquals(1, gameTurnsResponse.getGames().get(1).getCells().size());
+    }
+
+    @Test
+    public void minesweeperChordShouldRevealNeighboursOfSatisfiedNumber() throws Exception {
+        GameMetrics gameMetrics = new GameMetrics(new SimpleMeterRegistry());
+        GameComponent gameComponent = new GameComponent(new GameProperties(), gameMetrics);
+        MinesweeperService minesweeperService = MinesweeperServiceFactory.newService(gameComponent, gameMetrics);
+        GameInfo gameInfo = addChordGame(gameComponent);
+        String gameId = gameInfo.getGame_id();
+
+        assertThrows(FieldChordException.class, () -> minesweeperService.turnGame(turnRequest(gameId, 1, 1, "chord")));
+        minesweeperService.turnGame(turnRequest(gameId, 0, 0, "flag"));
+        assertEquals(FieldEnum.F.getValue(), minesweeperService.turnGame(turnRequest(gameId, 0, 0, "flag")).getField()[0][0]);
+        assertThrows(FieldFlaggedException.class, () -> minesweeperService.turnGame(turnRequest(gameId, 0, 0, null)));
+
+        GameTurnsRequest gameTurnsRequest = new GameTurnsRequest();
+        gameTurnsRequest.setTurns(List.of(turnRequest(gameId, 1, 1, "chord")));
+        GameTurnsResponse gameTurnsResponse = minesweeperService.turnGames(gameTurnsRequest);
+
+        assertEquals(TurnStatusEnum.WON.getValue(), gameTurnsResponse.getResults().get(0).getStatus());
+        assertEquals(7, gameTurnsResponse.getResults().get(0).getRevealed());
+        assertTrue(gameInfo.isWon());
+    }
+
+    @Test
+    public void minesweeperRejectedOpenOfFlaggedCellShouldKeepFirstTurnSafe() throws Exception {
+        GameMetrics gameMetrics = new GameMetrics(new SimpleMeterRegistry());
+        GameComponent gameComponent = new GameComponent(new GameProperties(), gameMetrics);
+        MinesweeperService minesweeperService = MinesweeperServiceFactory.newService(gameComponent, gameMetrics);
+        // на поле 3x3 с 8 минами безопасна только клетка первого принятого хода
+        GameNewRequest gameRequest = new GameNewRequest();
+        gameRequest.setHeight(3);
+        gameRequest.setWidth(3);
+        gameRequest.setMines_count(8);
+        String gameId = minesweeperService.createNewGame(gameRequest).getGame_id();
+
+        minesweeperService.turnGame(turnRequest(gameId, 0, 0, "flag"));
+        assertThrows(FieldFlaggedException.class, () -> minesweeperService.turnGame(turnRequest(gameId, 0, 0)));
+        GameInfoResponse gameInfoResponse = minesweeperService.turnGame(turnRequest(gameId, 2, 2));
+
+        assertTrue(gameInfoResponse.getCompleted());
+        assertTrue(gameInfoResponse.isWon());
+    }
+
+    @Test
+    public void minesweeperChordWithWrongFlagShouldLoseGame() throws Exception {
+        GameMetrics gameMetrics = new GameMetrics(new SimpleMeterRegistry());
+        GameComponent gameComponent = new GameComponent(new GameProperties(), gameMetrics);
+        MinesweeperService minesweeperService = MinesweeperServiceFactory.newService(gameComponent, gameMetrics);
+        GameInfo gameInfo = addChordGame(gameComponent);
+        String gameId = gameInfo.getGame_id();
+
+        minesweeperService.turnGame(turnRequest(gameId, 2, 2, "flag"));
+        minesweeperService.turnGame(turnRequest(gameId, 1, 1, "chord"));
+
+        assertTrue(gameInfo.getCompleted());
+        assertFalse(gameInfo.isWon());
+    }
+
+    @Test
+    public void minesweeperIdleGameShouldBeCompactedAndRestoredOnTurn() throws Exception {
+        GameProperties gameProperties = new GameProperties();
+        GameMetrics gameMetrics = new GameMetrics(new SimpleMeterRegistry());
+        GameComponent gameComponent = new GameComponent(gameProperties, gameMetrics);
+        MinesweeperService minesweeperService = MinesweeperServiceFactory.newService(gameComponent, gameMetrics);
+        final int HEIGHT = 64;
+        final int WIDTH = 64;
+        GameNewRequest gameRequest = new GameNewRequest();
+        gameRequest.setHeight(HEIGHT);
+        gameRequest.setWidth(WIDTH);
+        gameRequest.setMines_count(400);
+        String gameId = minesweeperService.createNewGame(gameRequest).getGame_id();
+        String[][] field = minesweeperService.turnGame(turnRequest(gameId, 0, 0)).getField();
+        GameInfo gameInfo = gameComponent.getGame(gameId).getGameInfo();
+        int safeCell = 0;
+        while (gameInfo.getBoard().isRevealed(safeCell) || gameInfo.getBoard().isMine(safeCell)) {
+            safeCell++;
+        }
+
+        // срок сжатия округляется вверх до шага колеса
+        gameComponent.compactIdleGames(System.nanoTime() + gameProperties.getCompactAfter().toNanos()
+                + gameProperties.getExpiryTick().toNanos());
+        assertTrue(gameInfo.isCompacted());
+        assertEquals(8L * HEIGHT * WIDTH / 64, gameComponent.getUsedCells());
+
+        minesweeperService.turnGame(turnRequest(gameId, safeCell / WIDTH, safeCell % WIDTH));
+        assertFalse(gameInfo.isCompacted());
+        assertEquals((long) HEIGHT * WIDTH, gameComponent.getUsedCells());
+        assertEquals(field[0][0], new GameInfoResponse(gameInfo).getField()[0][0]);
+
+        // восстановленное поле снова попадает в колесо сжатия, но сжимается только после нового простоя
+        gameComponent.compactIdleGames(System.nanoTime());
+        assertFalse(gameInfo.isCompacted());
+        gameComponent.compactIdleGames(System.nanoTime() + 2 * gameProperties.getCompactAfter().toNanos());
+        assertTrue(gameInfo.isCompacted());
+    }
+
+    // поле 3x3 с миной в углу, центральная клетка с числом 1 уже открыта
+    private GameInfo addChordGame(GameComponent gameComponent) {
+        GameInfo gameInfo = new GameInfo(UUID.randomUUID().toString(), 3, 3, 1, 0L);
+        GameBoard board = gameInfo.getBoard();
+        board.setValue(0, 0, GameBoard.MINE);
+        board.setValue(0, 1, 1);
+        board.setValue(1, 0, 1);
+        board.setValue(1, 1, 1);
+        board.reveal(1, 1);
+        gameInfo.setFirstTurnDone(true);
+        gameInfo.addRevealedCells(1);
+        gameComponent.addGame(new GeneralGame(gameInfo));
+        return gameInfo;
+    }
+
+    private GameTurnRequest turnRequest(String gameId, int row, int col, String action) {
+        GameTurnRequest gameTurnRequest = turnRequest(gameId, row, col);
+        gameTurnRequest.setAction(action);
+        return gameTurnRequest;
+    }
+
+    private GameTurnRequest turnRequest(String gameId, int row, int col) {
+        GameTurnRequest gameTurnRequest = new GameTurnRequest();
+        gameTurnRequest.setGame_id(gameId);
+        gameTurnRequest.setRow(row);
+        gameTurnRequest.setCol(col);
+        return gameTurnRequest;
+    }
 }